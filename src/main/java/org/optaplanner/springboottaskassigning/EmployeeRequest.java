@@ -0,0 +1,58 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.springboottaskassigning;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.optaplanner.springboottaskassigning.domain.Affinity;
+
+/**
+ * Request body to add or change an employee, it refers to the other objects of the tenant by id.
+ * On a change, the null fields are kept as they are.
+ */
+public class EmployeeRequest {
+
+    private String fullName;
+    private Set<Long> skillIds;
+    // Only used when the employee is added
+    private Map<Long, Affinity> customerIdToAffinityMap;
+
+    public String getFullName() {
+        return fullName;
+    }
+
+    public void setFullName(String fullName) {
+        this.fullName = fullName;
+    }
+
+    public Set<Long> getSkillIds() {
+        return skillIds;
+    }
+
+    public void setSkillIds(Set<Long> skillIds) {
+        this.skillIds = skillIds;
+    }
+
+    public Map<Long, Affinity> getCustomerIdToAffinityMap() {
+        return customerIdToAffinityMap;
+    }
+
+    public void setCustomerIdToAffinityMap(Map<Long, Affinity> customerIdToAffinityMap) {
+        this.customerIdToAffinityMap = customerIdToAffinityMap;
+    }
+}
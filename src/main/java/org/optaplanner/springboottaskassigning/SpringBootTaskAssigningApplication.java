@@ -1,7 +1,10 @@
 package org.optaplanner.springboottaskassigning;
 
+import org.optaplanner.springboottaskassigning.solver.SolverManagerConfig;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
 
 @SpringBootApplication
 public class SpringBootTaskAssigningApplication {
@@ -10,4 +13,16 @@ public class SpringBootTaskAssigningApplication {
 		SpringApplication.run(SpringBootTaskAssigningApplication.class, args);
 	}
 
+	@Bean
+	@ConfigurationProperties("solver-manager")
+	public SolverManagerConfig solverManagerConfig() {
+		return new SolverManagerConfig();
+	}
+
+	@Bean
+	@ConfigurationProperties("tenant-lease")
+	public TenantLeaseConfig tenantLeaseConfig() {
+		return new TenantLeaseConfig();
+	}
+
 }
@@ -17,18 +17,25 @@
 package org.optaplanner.springboottaskassigning;
 
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.optaplanner.core.api.score.Score;
 import org.optaplanner.springboottaskassigning.domain.TaskAssigningSolution;
+import org.optaplanner.springboottaskassigning.solver.SolverQueuePosition;
 import org.optaplanner.springboottaskassigning.solver.SolverStatus;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -45,19 +52,143 @@ public class TaskAssigningSolverManagerController {
     }
 
     @PostMapping("/{problemId}/solver")
-    public void solve(@PathVariable Long problemId, @RequestBody TaskAssigningSolution planningProblem) {
-        if (!solverManagerService.solve(problemId, planningProblem)) {
+    public void solve(@PathVariable Long problemId, @RequestBody TaskAssigningSolution planningProblem,
+                      @RequestParam(required = false) Integer moveThreadCount,
+                      TerminationRequest terminationRequest) {
+        boolean submitted;
+        try {
+            submitted = solverManagerService.solve(problemId, planningProblem, moveThreadCount, terminationRequest);
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, e.getMessage(), e);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        if (!submitted) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Problem (" + problemId + ") already exists.");
         }
     }
 
     @PostMapping("/{problemId}/solver/generate/{taskListSize}/{employeeListSize}")
-    void solve(@PathVariable Long problemId, @PathVariable int taskListSize, @PathVariable int employeeListSize) {
-        if (!solverManagerService.solve(problemId, taskListSize, employeeListSize)) {
+    void solve(@PathVariable Long problemId, @PathVariable int taskListSize, @PathVariable int employeeListSize,
+               @RequestParam(required = false) Integer moveThreadCount, TerminationRequest terminationRequest) {
+        boolean submitted;
+        try {
+            submitted = solverManagerService.solve(problemId, taskListSize, employeeListSize, moveThreadCount,
+                    terminationRequest);
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, e.getMessage(), e);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        if (!submitted) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Problem (" + problemId + ") already exists.");
         }
     }
 
+    @PostMapping("/{problemId}/solver/pause")
+    public void pauseSolver(@PathVariable Long problemId) {
+        try {
+            solverManagerService.pauseSolver(problemId);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage(), e);
+        }
+    }
+
+    @PostMapping("/{problemId}/solver/resume")
+    public void resumeSolver(@PathVariable Long problemId) {
+        try {
+            solverManagerService.resumeSolver(problemId);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage(), e);
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, e.getMessage(), e);
+        }
+    }
+
+    @PostMapping("/{problemId}/tasks")
+    public Long addTask(@PathVariable Long problemId, @RequestBody TaskRequest taskRequest) {
+        try {
+            return solverManagerService.addTask(problemId, taskRequest);
+        } catch (NoSuchElementException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
+        } catch (OptimisticLockingFailureException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Problem (" + problemId
+                    + ") was changed at the same time, try again.", e);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    @PatchMapping("/{problemId}/tasks/{taskId}")
+    public void changeTask(@PathVariable Long problemId, @PathVariable Long taskId,
+                           @RequestBody TaskRequest taskRequest) {
+        try {
+            solverManagerService.changeTask(problemId, taskId, taskRequest);
+        } catch (NoSuchElementException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
+        } catch (OptimisticLockingFailureException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Problem (" + problemId
+                    + ") was changed at the same time, try again.", e);
+        }
+    }
+
+    @DeleteMapping("/{problemId}/tasks/{taskId}")
+    public void removeTask(@PathVariable Long problemId, @PathVariable Long taskId) {
+        try {
+            solverManagerService.removeTask(problemId, taskId);
+        } catch (NoSuchElementException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
+        } catch (OptimisticLockingFailureException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Problem (" + problemId
+                    + ") was changed at the same time, try again.", e);
+        }
+    }
+
+    @PostMapping("/{problemId}/employees")
+    public Long addEmployee(@PathVariable Long problemId, @RequestBody EmployeeRequest employeeRequest) {
+        try {
+            return solverManagerService.addEmployee(problemId, employeeRequest);
+        } catch (NoSuchElementException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
+        } catch (OptimisticLockingFailureException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Problem (" + problemId
+                    + ") was changed at the same time, try again.", e);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    @PatchMapping("/{problemId}/employees/{employeeId}")
+    public void changeEmployee(@PathVariable Long problemId, @PathVariable Long employeeId,
+                               @RequestBody EmployeeRequest employeeRequest) {
+        try {
+            solverManagerService.changeEmployee(problemId, employeeId, employeeRequest);
+        } catch (NoSuchElementException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
+        } catch (OptimisticLockingFailureException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Problem (" + problemId
+                    + ") was changed at the same time, try again.", e);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    @DeleteMapping("/{problemId}/employees/{employeeId}")
+    public void removeEmployee(@PathVariable Long problemId, @PathVariable Long employeeId) {
+        try {
+            solverManagerService.removeEmployee(problemId, employeeId);
+        } catch (NoSuchElementException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
+        } catch (OptimisticLockingFailureException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Problem (" + problemId
+                    + ") was changed at the same time, try again.", e);
+        }
+    }
+
     @GetMapping("/{problemId}/solver/bestSolution")
     public TaskAssigningSolution bestSolution(@PathVariable Long problemId) {
         TaskAssigningSolution bestSolution = solverManagerService.getBestSolution(problemId);
@@ -87,4 +218,14 @@ public class TaskAssigningSolverManagerController {
         }
         return status;
     }
+
+    @GetMapping("/{problemId}/solver/queuePosition")
+    public SolverQueuePosition queuePosition(@PathVariable Long problemId) {
+        SolverQueuePosition queuePosition = solverManagerService.getQueuePosition(problemId);
+        if (queuePosition == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+                    "Problem (" + problemId + ") is not waiting in the solver queue.");
+        }
+        return queuePosition;
+    }
 }
\ No newline at end of file
@@ -16,12 +16,21 @@
 
 package org.optaplanner.springboottaskassigning;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -29,40 +38,105 @@ import java.util.stream.Collectors;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.optaplanner.core.api.score.Score;
+import org.optaplanner.core.config.solver.termination.TerminationConfig;
+import org.optaplanner.core.impl.solver.ProblemFactChange;
+import org.optaplanner.springboottaskassigning.domain.AbstractPersistable;
+import org.optaplanner.springboottaskassigning.domain.Customer;
 import org.optaplanner.springboottaskassigning.domain.Employee;
+import org.optaplanner.springboottaskassigning.domain.Priority;
+import org.optaplanner.springboottaskassigning.domain.Skill;
 import org.optaplanner.springboottaskassigning.domain.Task;
 import org.optaplanner.springboottaskassigning.domain.TaskAssigningSolution;
 import org.optaplanner.springboottaskassigning.domain.TaskOrEmployee;
+import org.optaplanner.springboottaskassigning.domain.TaskType;
+import org.optaplanner.springboottaskassigning.domain.solver.AddEmployeeProblemFactChange;
+import org.optaplanner.springboottaskassigning.domain.solver.AddTaskProblemFactChange;
+import org.optaplanner.springboottaskassigning.domain.solver.ChangeEmployeeProblemFactChange;
+import org.optaplanner.springboottaskassigning.domain.solver.ChangeTaskProblemFactChange;
+import org.optaplanner.springboottaskassigning.domain.solver.RemoveEmployeeProblemFactChange;
+import org.optaplanner.springboottaskassigning.domain.solver.RemoveTaskProblemFactChange;
+import org.optaplanner.springboottaskassigning.repository.EmployeeRepository;
 import org.optaplanner.springboottaskassigning.repository.TaskAssigningSolutionRepository;
 import org.optaplanner.springboottaskassigning.repository.TaskRepository;
+import org.optaplanner.springboottaskassigning.solver.FinishedSolverTask;
 import org.optaplanner.springboottaskassigning.solver.SolverManager;
+import org.optaplanner.springboottaskassigning.solver.SolverManagerConfig;
+import org.optaplanner.springboottaskassigning.solver.SolverQueuePosition;
 import org.optaplanner.springboottaskassigning.solver.SolverStatus;
+import org.optaplanner.springboottaskassigning.solver.SolverTaskArchive;
+import org.optaplanner.springboottaskassigning.solver.SolverTaskConfig;
 import org.optaplanner.springboottaskassigning.utils.TaskAssigningGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 public class TaskAssigningSolverManagerService {
 
     public static final String SOLVER_CONFIG = "org/optaplanner/springboottaskassigning/solver/taskAssigningSolverConfig.xml";
+    private static final long WARM_UP_TENANT_ID = -1L;
+    private static final int WARM_UP_TASK_LIST_SIZE = 50;
+    private static final int WARM_UP_EMPLOYEE_LIST_SIZE = 5;
+    private static final long STARTUP_RETRY_MILLIS = 1000L;
 
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
     private final TaskAssigningSolutionRepository taskAssigningSolutionRepository;
     private final TaskRepository taskRepository;
+    private final EmployeeRepository employeeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TenantLeaseService tenantLeaseService;
+    private final Timer solutionUpdateTimer;
+    private final DistributionSummary solutionUpdateRowsSummary;
+    private final ConcurrentMap<Long, Object> solutionIdToLockMap = new ConcurrentHashMap<>();
     private final Consumer<TaskAssigningSolution> onBestSolutionChangedEvent;
     private final Consumer<TaskAssigningSolution> onSolvingEnded;
+    private final boolean warmUp;
+    private final boolean resumeWithRemainingTime;
+    private final int queueCapacity;
+    private final Pageable startupPageable;
+    private final long startupStaggerMillis;
+    // Null unless the saved tenants are loading or loaded
+    private volatile ExecutorService startupLoadExecutorService = null;
 
     private SolverManager<TaskAssigningSolution> solverManager;
 
     public TaskAssigningSolverManagerService(TaskAssigningSolutionRepository taskAssigningSolutionRepository,
-                                             TaskRepository taskRepository) {
+                                             TaskRepository taskRepository,
+                                             EmployeeRepository employeeRepository,
+                                             PlatformTransactionManager transactionManager,
+                                             SolverManagerConfig solverManagerConfig,
+                                             TenantLeaseService tenantLeaseService,
+                                             MeterRegistry meterRegistry) {
         this.taskAssigningSolutionRepository = taskAssigningSolutionRepository;
         this.taskRepository = taskRepository;
-        solverManager = SolverManager.createFromXmlResource(SOLVER_CONFIG, getClass().getClassLoader());
+        this.employeeRepository = employeeRepository;
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tenantLeaseService = tenantLeaseService;
+        warmUp = solverManagerConfig.isWarmUp();
+        resumeWithRemainingTime = solverManagerConfig.isResumeWithRemainingTime();
+        queueCapacity = solverManagerConfig.getQueueCapacity();
+        startupPageable = PageRequest.of(0, solverManagerConfig.getStartupPageSize());
+        startupStaggerMillis = solverManagerConfig.getStartupStaggerMillis();
+        solverManager = SolverManager.createFromXmlResource(SOLVER_CONFIG, getClass().getClassLoader(), null,
+                solverManagerConfig);
+        // The best solutions are already saved, so only the final status has to be added
+        solverManager.setSolverTaskArchive(new SolutionRepositoryArchive());
+        solverManager.bindTo(meterRegistry);
+        solutionUpdateTimer = Timer.builder("solution.update")
+                .description("Time to save a best solution, including the wait for the real-time changes of its tenant")
+                .register(meterRegistry);
+        solutionUpdateRowsSummary = DistributionSummary.builder("solution.update.rows")
+                .description("Number of rows written to save a best solution")
+                .register(meterRegistry);
 
         onBestSolutionChangedEvent = taskAssigningSolution -> {
             logger.debug("Best solution changed.");
@@ -83,19 +157,47 @@ public class TaskAssigningSolverManagerService {
             } catch (Exception e) {
                 logger.error("Error in onSolvingEnded listener", e);
                 throw new RuntimeException(e);
+            } finally {
+                // After the final best solution is saved, so the next owner starts from it
+                tenantLeaseService.release(taskAssigningSolution.getTenantId());
             }
         };
     }
 
-    @Transactional
     public void updateSolution(TaskAssigningSolution taskAssigningSolution) {
+        if (!tenantLeaseService.isOwned(taskAssigningSolution.getTenantId())) {
+            // Another node solves it now, its best solutions win
+            logger.info("Tenant ({}) is no longer owned by this node, its best solution is not saved.",
+                    taskAssigningSolution.getTenantId());
+            return;
+        }
+        solutionUpdateTimer.record(() -> {
+            // Serialized with the real-time changes of the same solution, so they don't overwrite each other
+            synchronized (getSolutionLock(taskAssigningSolution.getId())) {
+                Integer rowCount = transactionTemplate.execute(status -> doUpdateSolution(taskAssigningSolution));
+                solutionUpdateRowsSummary.record(rowCount == null ? 0 : rowCount);
+            }
+        });
+    }
+
+    /**
+     * @return number of saved rows
+     */
+    private int doUpdateSolution(TaskAssigningSolution taskAssigningSolution) {
         Long tenantId = taskAssigningSolution.getTenantId();
+        if (!tenantLeaseService.lockLease(tenantId)) {
+            logger.info("Tenant ({}) was claimed by another node in the meantime, its best solution is not saved.",
+                    tenantId);
+            return 0;
+        }
         Optional<TaskAssigningSolution> solutionEntityOptional = taskAssigningSolutionRepository.findById(taskAssigningSolution.getId());
         if (solutionEntityOptional.isPresent()) {
             TaskAssigningSolution solutionEntity = solutionEntityOptional.get();
+            int rowCount = 0;
             if (taskAssigningSolution.getScore() != null && !taskAssigningSolution.getScore().equals(solutionEntity.getScore())) {
                 solutionEntity.setScore(taskAssigningSolution.getScore());
                 taskAssigningSolutionRepository.save(solutionEntity);
+                rowCount++;
             }
             // Update: Tasks (nextTask, previousTaskOrEmployee, employee, start&EndTime) and Employees (nextTask)
             Map<Long, Task> taskEntityMap = solutionEntity.getTaskList()
@@ -103,16 +205,27 @@ public class TaskAssigningSolverManagerService {
             Map<Long, Employee> employeeEntityMap = solutionEntity.getEmployeeList()
                     .stream().parallel().collect(Collectors.toConcurrentMap(Employee::getId, Function.identity()));
 
-            taskAssigningSolution.getTaskList().stream().parallel()
+            // Tasks and employees that were removed in the meantime are skipped, the next best solution won't have them
+            rowCount += taskAssigningSolution.getTaskList().stream().parallel()
                     .filter(task -> task.getPreviousTaskOrEmployee() != null)
+                    .filter(task -> taskEntityMap.containsKey(task.getId()))
+                    .filter(task -> task.getPreviousTaskOrEmployee() instanceof Task
+                            ? taskEntityMap.containsKey(task.getPreviousTaskOrEmployee().getId())
+                            : employeeEntityMap.containsKey(task.getPreviousTaskOrEmployee().getId()))
                     .filter(task -> !task.getPreviousTaskOrEmployee().equals(taskEntityMap.get(task.getId()).getPreviousTaskOrEmployee()))
-                    .forEach(task -> updateTask(task, taskEntityMap.get(task.getId()), taskEntityMap, employeeEntityMap));
+                    .mapToInt(task -> updateTask(task, taskEntityMap.get(task.getId()), taskEntityMap, employeeEntityMap))
+                    .sum();
+            return rowCount;
         } else {
             logger.error("Trying to update solution ({}) that does not exist.", tenantId);
+            return 0;
         }
     }
 
-    private void updateTask(Task newTask, Task taskEntity, Map<Long, Task> taskEntityMap, Map<Long, Employee> employeeEntityMap) {
+    /**
+     * @return number of saved rows
+     */
+    private int updateTask(Task newTask, Task taskEntity, Map<Long, Task> taskEntityMap, Map<Long, Employee> employeeEntityMap) {
         TaskOrEmployee newPreviousTaskOrEmployee = newTask.getPreviousTaskOrEmployee();
         if (newPreviousTaskOrEmployee instanceof Task) {
             taskEntity.setPreviousTaskOrEmployee(taskEntityMap.get(newPreviousTaskOrEmployee.getId()));
@@ -132,44 +245,583 @@ public class TaskAssigningSolverManagerService {
 
         taskEntity.setEmployee(Objects.isNull(newTask.getEmployee()) ? null
                                        : employeeEntityMap.get(newTask.getEmployee().getId()));
-        taskEntity.setStartTime(newTask.getStartTime());
-        taskEntity.setEndTime(newTask.getEndTime());
+        taskEntity.setStartTimeValue(newTask.getStartTimeValue());
+        taskEntity.setEndTimeValue(newTask.getEndTimeValue());
         taskRepository.save(taskEntity);
+        return 1;
     }
 
     @PostConstruct
     public void loadExistingProblemsAndStartSolving() {
-        List<TaskAssigningSolution> solutionList = taskAssigningSolutionRepository.findAll();
-        solutionList
-                .forEach(taskAssigningSolution -> solve(taskAssigningSolution.getTenantId(), taskAssigningSolution));
+        if (warmUp) {
+            // Before the existing problems, so none of them pays for the cold start. Never saved.
+            TaskAssigningSolution warmUpProblem = new TaskAssigningGenerator(WARM_UP_TENANT_ID)
+                    .createTaskAssigningSolution(WARM_UP_TASK_LIST_SIZE, WARM_UP_EMPLOYEE_LIST_SIZE);
+            warmUpProblem.buildIndex();
+            warmUpProblem.resetChainAggregates();
+            solverManager.warmUp(warmUpProblem);
+        }
+        if (tenantLeaseService.isEnabled()) {
+            // Only the fair share of this node, the other nodes claim the rest
+            tenantLeaseService.start(taskAssigningSolutionRepository::findUnfinishedTenantIds,
+                    this::solveClaimedTenant, this::stopLostTenant, this::handOverTenant);
+            return;
+        }
+        // In the background, so the application is ready before every saved tenant is read
+        startupLoadExecutorService = Executors.newSingleThreadExecutor();
+        startupLoadExecutorService.execute(this::loadSavedTenants);
+    }
+
+    /**
+     * Runs on the startup load thread. Only the ids are read a page at a time,
+     * a whole solution is only read right before it's submitted.
+     */
+    private void loadSavedTenants() {
+        long startedMillis = System.currentTimeMillis();
+        try {
+            if (resumeWithRemainingTime) {
+                // Read back from the database through the archive when they're asked for
+                long finishedCount = taskAssigningSolutionRepository.countBySolverStatusIsNotNull();
+                if (finishedCount > 0L) {
+                    logger.info("Skipping {} tenants that already finished solving.", finishedCount);
+                }
+            }
+            // The tenants that the last shutdown interrupted continue first, they have the most progress to lose
+            int interruptedCount = loadSavedTenantPages(afterId ->
+                    taskAssigningSolutionRepository.findInterruptedIds(afterId, startupPageable));
+            if (interruptedCount > 0) {
+                logger.info("Resumed {} tenants that a shutdown interrupted.", interruptedCount);
+            }
+            int otherCount = loadSavedTenantPages(afterId -> taskAssigningSolutionRepository.findNotInterruptedIds(
+                    afterId, !resumeWithRemainingTime, startupPageable));
+            logger.info("Loaded {} saved tenants in {} ms.", interruptedCount + otherCount,
+                    System.currentTimeMillis() - startedMillis);
+        } catch (InterruptedException e) {
+            logger.info("Loading the saved tenants was interrupted by the shutdown.");
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            logger.error("Loading the saved tenants failed.", e);
+        }
+    }
+
+    /**
+     * @param idPageFunction never null, from the id after which the page starts to the ids of that page, by id
+     * @return number of submitted tenants
+     */
+    private int loadSavedTenantPages(Function<Long, List<Long>> idPageFunction) throws InterruptedException {
+        int submittedCount = 0;
+        Long afterId = Long.MIN_VALUE;
+        while (true) {
+            List<Long> solutionIdList = idPageFunction.apply(afterId);
+            for (Long solutionId : solutionIdList) {
+                if (solveSavedSolution(solutionId)) {
+                    submittedCount++;
+                    if (startupStaggerMillis > 0L) {
+                        Thread.sleep(startupStaggerMillis);
+                    }
+                }
+            }
+            if (solutionIdList.size() < startupPageable.getPageSize()) {
+                return submittedCount;
+            }
+            afterId = solutionIdList.get(solutionIdList.size() - 1);
+        }
+    }
+
+    /**
+     * Unlike a new tenant, a saved tenant that doesn't fit in the solver queue is not deleted,
+     * it waits until there's room.
+     * @return false if it was deleted or submitted in the meantime
+     */
+    private boolean solveSavedSolution(Long solutionId) throws InterruptedException {
+        TaskAssigningSolution savedSolution = taskAssigningSolutionRepository.findById(solutionId).orElse(null);
+        if (savedSolution == null || solverManager.isProblemSubmitted(savedSolution.getTenantId())) {
+            return false;
+        }
+        savedSolution.buildIndex();
+        savedSolution.resetChainAggregates();
+        SolverTaskConfig solverTaskConfig = buildResumeSolverTaskConfig(savedSolution);
+        while (true) {
+            while (queueCapacity > 0 && solverManager.getQueueSize() >= queueCapacity) {
+                Thread.sleep(STARTUP_RETRY_MILLIS);
+            }
+            try {
+                solverManager.solve(savedSolution.getTenantId(), savedSolution, solverTaskConfig,
+                        onBestSolutionChangedEvent, onSolvingEnded, null);
+                return true;
+            } catch (RejectedExecutionException e) {
+                // Another tenant took the room first
+                Thread.sleep(STARTUP_RETRY_MILLIS);
+            } catch (IllegalArgumentException e) {
+                logger.debug("Tenant ({}) was submitted in the meantime.", savedSolution.getTenantId());
+                return false;
+            }
+        }
+    }
+
+    private void solveClaimedTenant(Long tenantId) {
+        if (solverManager.isProblemSubmitted(tenantId)) {
+            return;
+        }
+        TaskAssigningSolution planningProblem = taskAssigningSolutionRepository.findFirstByTenantIdOrderByIdDesc(tenantId)
+                .orElse(null);
+        if (planningProblem == null) {
+            tenantLeaseService.release(tenantId);
+            return;
+        }
+        planningProblem.buildIndex();
+        planningProblem.resetChainAggregates();
+        try {
+            // Not through solve(), a rejected tenant stays in the database for the next node
+            solverManager.solve(tenantId, planningProblem, buildResumeSolverTaskConfig(planningProblem),
+                    onBestSolutionChangedEvent, onSolvingEnded, null);
+        } catch (RejectedExecutionException | IllegalArgumentException e) {
+            logger.warn("Tenant ({}) was claimed but could not be solved, its lease is released.", tenantId, e);
+            tenantLeaseService.release(tenantId);
+        }
+    }
+
+    private void stopLostTenant(Long tenantId) {
+        try {
+            solverManager.stopSolver(tenantId);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            logger.debug("Lost tenant ({}) was not solving.", tenantId);
+        }
+    }
+
+    /**
+     * Still owned until solving ended saved its final best solution, then its lease is released.
+     * The archive records its time spent instead of its status, so the next owner resumes it.
+     */
+    private void handOverTenant(Long tenantId) {
+        try {
+            solverManager.stopSolver(tenantId);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            logger.debug("Handed over tenant ({}) was not solving.", tenantId);
+            tenantLeaseService.release(tenantId);
+        }
     }
 
     @PreDestroy
     public void tearDown() {
+        ExecutorService startupLoadExecutorService = this.startupLoadExecutorService;
+        if (startupLoadExecutorService != null) {
+            // Before the solver manager, so no saved tenant is submitted while it shuts down
+            startupLoadExecutorService.shutdownNow();
+            try {
+                startupLoadExecutorService.awaitTermination(STARTUP_RETRY_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
         solverManager.shutdown();
+        // After the solvers stopped, so no other node takes over a tenant that still saves its best solution
+        tenantLeaseService.shutdown();
     }
 
     public Set<Long> getSubmittedTenantsIds() {
-        return taskAssigningSolutionRepository.findAll().stream()
-                .map(TaskAssigningSolution::getTenantId)
-                .collect(Collectors.toSet());
+        // Only the ids, not every saved solution
+        return new LinkedHashSet<>(taskAssigningSolutionRepository.findTenantIds());
     }
 
     public boolean solve(Long problemId, int taskListSize, int employeeListSize) {
+        return solve(problemId, taskListSize, employeeListSize, null);
+    }
+
+    public boolean solve(Long problemId, int taskListSize, int employeeListSize, Integer moveThreadCount) {
+        return solve(problemId, taskListSize, employeeListSize, moveThreadCount, null);
+    }
+
+    public boolean solve(Long problemId, int taskListSize, int employeeListSize, Integer moveThreadCount,
+                         TerminationRequest terminationRequest) {
         TaskAssigningSolution generatedPlanningProblem =
                 new TaskAssigningGenerator(problemId).createTaskAssigningSolution(taskListSize, employeeListSize);
-        return solve(problemId, generatedPlanningProblem);
+        return solve(problemId, generatedPlanningProblem, moveThreadCount, terminationRequest);
     }
 
+    /**
+     * @throws RejectedExecutionException if the solver queue is full
+     */
     public boolean solve(Long problemId, TaskAssigningSolution planningProblem) {
+        return solve(problemId, planningProblem, null);
+    }
+
+    /**
+     * @param moveThreadCount null to only be limited by the core budget
+     * @throws RejectedExecutionException if the solver queue is full
+     */
+    public boolean solve(Long problemId, TaskAssigningSolution planningProblem, Integer moveThreadCount) {
+        return solve(problemId, planningProblem, moveThreadCount, null);
+    }
+
+    /**
+     * @param moveThreadCount null to only be limited by the core budget
+     * @param terminationRequest null for the default termination, which scales with the number of tasks
+     * @throws RejectedExecutionException if the solver queue is full
+     * @throws IllegalArgumentException if the terminationRequest is invalid
+     */
+    public boolean solve(Long problemId, TaskAssigningSolution planningProblem, Integer moveThreadCount,
+                         TerminationRequest terminationRequest) {
         if (solverManager.isProblemSubmitted(problemId)) {
             return false;
         }
+        SolverTaskConfig solverTaskConfig = buildSolverTaskConfig(planningProblem, moveThreadCount,
+                terminationRequest);
+        planningProblem.buildIndex();
+        planningProblem.resetChainAggregates();
+        if (!tenantLeaseService.claim(problemId)) {
+            // Another node solves it
+            return false;
+        }
         taskAssigningSolutionRepository.save(planningProblem);
-        solverManager.solve(problemId, planningProblem, onBestSolutionChangedEvent, onSolvingEnded);
+        try {
+            solverManager.solve(problemId, planningProblem, solverTaskConfig, onBestSolutionChangedEvent,
+                    onSolvingEnded, null);
+        } catch (RejectedExecutionException | IllegalArgumentException e) {
+            // Don't start solving a rejected problem when the application restarts
+            taskAssigningSolutionRepository.deleteById(planningProblem.getId());
+            tenantLeaseService.release(problemId);
+            throw e;
+        }
         return true;
     }
 
+    /**
+     * @throws IllegalArgumentException if the terminationRequest is invalid
+     */
+    private static SolverTaskConfig buildSolverTaskConfig(TaskAssigningSolution planningProblem,
+                                                          Integer moveThreadCount,
+                                                          TerminationRequest terminationRequest) {
+        // Bigger tenants get a bigger share of the core budget and a longer default termination
+        SolverTaskConfig solverTaskConfig = new SolverTaskConfig()
+                .withMoveThreadCount(moveThreadCount)
+                .withProblemScale(Math.max(1, planningProblem.getTaskList().size()))
+                .withTerminationConfig(buildTerminationConfig(terminationRequest));
+        solverTaskConfig.validate();
+        return solverTaskConfig;
+    }
+
+    /**
+     * Continues a saved tenant from its saved best solution. The construction heuristic leaves the tasks
+     * that are already in a chain alone, so an initialized solution goes straight on with the local search.
+     */
+    private SolverTaskConfig buildResumeSolverTaskConfig(TaskAssigningSolution savedSolution) {
+        SolverTaskConfig solverTaskConfig = buildSolverTaskConfig(savedSolution, null, null);
+        if (resumeWithRemainingTime && savedSolution.getTimeMillisSpent() != null) {
+            solverTaskConfig.setPreviousTimeMillisSpent(savedSolution.getTimeMillisSpent());
+            boolean initialized = savedSolution.getTaskList().stream()
+                    .allMatch(task -> task.getPreviousTaskOrEmployee() != null);
+            logger.info("Tenant ({}) resumes from its saved {} solution, after {} ms of solving.",
+                    savedSolution.getTenantId(), initialized ? "initialized" : "partial",
+                    savedSolution.getTimeMillisSpent());
+        }
+        return solverTaskConfig;
+    }
+
+    /**
+     * @return null if the request has no termination
+     */
+    private static TerminationConfig buildTerminationConfig(TerminationRequest terminationRequest) {
+        if (terminationRequest == null || terminationRequest.isEmpty()) {
+            return null;
+        }
+        return new TerminationConfig()
+                .withMillisecondsSpentLimit(terminationRequest.getMillisecondsSpentLimit())
+                .withUnimprovedMillisecondsSpentLimit(terminationRequest.getUnimprovedMillisecondsSpentLimit())
+                .withUnimprovedScoreDifferenceThreshold(terminationRequest.getUnimprovedScoreDifferenceThreshold())
+                .withBestScoreLimit(terminationRequest.getBestScoreLimit())
+                .withBestScoreFeasible(terminationRequest.getBestScoreFeasible());
+    }
+
+    // ************************************************************************
+    // Real-time problem changes: saved first, then handed to the solver of the problem if it's still running
+    // ************************************************************************
+
+    /**
+     * @return the id of the new task
+     * @throws NoSuchElementException if the problem was not submitted
+     * @throws IllegalArgumentException if the taskType or customer does not exist
+     */
+    public Long addTask(Long problemId, TaskRequest taskRequest) {
+        Task newTask = changeSolutionEntity(problemId, solutionEntity -> {
+            TaskType taskType = findById(solutionEntity.getTaskTypeList(), taskRequest.getTaskTypeId())
+                    .orElseThrow(() -> new IllegalArgumentException("The taskType (" + taskRequest.getTaskTypeId()
+                                                                            + ") does not exist."));
+            Customer customer = findById(solutionEntity.getCustomerList(), taskRequest.getCustomerId())
+                    .orElseThrow(() -> new IllegalArgumentException("The customer (" + taskRequest.getCustomerId()
+                                                                            + ") does not exist."));
+            int indexInTaskType = solutionEntity.getTaskList().stream()
+                    .filter(task -> task.getTaskType().equals(taskType))
+                    .mapToInt(task -> task.getIndexInTaskType() + 1)
+                    .max().orElse(0);
+            Task task = new Task();
+            task.setTenantId(solutionEntity.getTenantId());
+            task.setTaskType(taskType);
+            task.setIndexInTaskType(indexInTaskType);
+            task.setCustomer(customer);
+            task.setReadyTime(taskRequest.getReadyTime() == null ? 0 : taskRequest.getReadyTime());
+            task.setPriority(taskRequest.getPriority() == null ? Priority.MINOR : taskRequest.getPriority());
+            // Generates the id that the solver uses too
+            task = taskRepository.save(task);
+            solutionEntity.getTaskList().add(task);
+            taskAssigningSolutionRepository.save(solutionEntity);
+            return task;
+        });
+        addProblemFactChange(problemId, new AddTaskProblemFactChange(newTask));
+        return newTask.getId();
+    }
+
+    /**
+     * @throws NoSuchElementException if the problem or the task does not exist
+     */
+    public void changeTask(Long problemId, Long taskId, TaskRequest taskRequest) {
+        changeSolutionEntity(problemId, solutionEntity -> {
+            Task task = findById(solutionEntity.getTaskList(), taskId)
+                    .orElseThrow(() -> new NoSuchElementException("The task (" + taskId + ") does not exist."));
+            if (taskRequest.getReadyTime() != null) {
+                task.setReadyTime(taskRequest.getReadyTime());
+            }
+            if (taskRequest.getPriority() != null) {
+                task.setPriority(taskRequest.getPriority());
+            }
+            if (taskRequest.getPinned() != null) {
+                task.setPinned(taskRequest.getPinned());
+            }
+            return taskRepository.save(task);
+        });
+        addProblemFactChange(problemId, new ChangeTaskProblemFactChange(taskId, taskRequest.getReadyTime(),
+                taskRequest.getPriority(), taskRequest.getPinned()));
+    }
+
+    /**
+     * @throws NoSuchElementException if the problem or the task does not exist
+     */
+    public void removeTask(Long problemId, Long taskId) {
+        changeSolutionEntity(problemId, solutionEntity -> {
+            Task task = findById(solutionEntity.getTaskList(), taskId)
+                    .orElseThrow(() -> new NoSuchElementException("The task (" + taskId + ") does not exist."));
+            // Closes the gap in the chain, like the solver does
+            solutionEntity.getTaskList().stream()
+                    .filter(other -> task.equals(other.getPreviousTaskOrEmployee()))
+                    .forEach(nextTask -> {
+                        nextTask.setPreviousTaskOrEmployee(task.getPreviousTaskOrEmployee());
+                        taskRepository.save(nextTask);
+                    });
+            solutionEntity.getTaskList().remove(task);
+            taskAssigningSolutionRepository.save(solutionEntity);
+            taskRepository.delete(task);
+            return task;
+        });
+        addProblemFactChange(problemId, new RemoveTaskProblemFactChange(taskId));
+    }
+
+    /**
+     * @return the id of the new employee
+     * @throws NoSuchElementException if the problem was not submitted
+     * @throws IllegalArgumentException if a skill does not exist
+     */
+    public Long addEmployee(Long problemId, EmployeeRequest employeeRequest) {
+        Employee newEmployee = changeSolutionEntity(problemId, solutionEntity -> {
+            Employee employee = new Employee();
+            employee.setTenantId(solutionEntity.getTenantId());
+            employee.setFullName(employeeRequest.getFullName());
+            employee.setSkillSet(findSkills(solutionEntity, employeeRequest.getSkillIds() == null
+                    ? Collections.emptySet() : employeeRequest.getSkillIds()));
+            employee.setCustomerIdToAffinityMap(employeeRequest.getCustomerIdToAffinityMap() == null
+                    ? new LinkedHashMap<>() : new LinkedHashMap<>(employeeRequest.getCustomerIdToAffinityMap()));
+            // Generates the id that the solver uses too
+            employee = employeeRepository.save(employee);
+            solutionEntity.getEmployeeList().add(employee);
+            taskAssigningSolutionRepository.save(solutionEntity);
+            return employee;
+        });
+        addProblemFactChange(problemId, new AddEmployeeProblemFactChange(newEmployee));
+        return newEmployee.getId();
+    }
+
+    /**
+     * @throws NoSuchElementException if the problem or the employee does not exist
+     * @throws IllegalArgumentException if a skill does not exist
+     */
+    public void changeEmployee(Long problemId, Long employeeId, EmployeeRequest employeeRequest) {
+        changeSolutionEntity(problemId, solutionEntity -> {
+            Employee employee = findById(solutionEntity.getEmployeeList(), employeeId)
+                    .orElseThrow(() -> new NoSuchElementException("The employee (" + employeeId
+                                                                          + ") does not exist."));
+            if (employeeRequest.getFullName() != null) {
+                employee.setFullName(employeeRequest.getFullName());
+            }
+            if (employeeRequest.getSkillIds() != null) {
+                employee.setSkillSet(findSkills(solutionEntity, employeeRequest.getSkillIds()));
+            }
+            return employeeRepository.save(employee);
+        });
+        addProblemFactChange(problemId, new ChangeEmployeeProblemFactChange(employeeId,
+                employeeRequest.getFullName(), employeeRequest.getSkillIds()));
+    }
+
+    /**
+     * Its tasks become unassigned, the solver assigns them to the other employees.
+     * @throws NoSuchElementException if the problem or the employee does not exist
+     */
+    public void removeEmployee(Long problemId, Long employeeId) {
+        changeSolutionEntity(problemId, solutionEntity -> {
+            Employee employee = findById(solutionEntity.getEmployeeList(), employeeId)
+                    .orElseThrow(() -> new NoSuchElementException("The employee (" + employeeId
+                                                                          + ") does not exist."));
+            solutionEntity.getTaskList().stream()
+                    .filter(task -> employee.equals(task.getEmployee())
+                            || employee.equals(task.getPreviousTaskOrEmployee()))
+                    .forEach(task -> {
+                        task.setPreviousTaskOrEmployee(null);
+                        task.setNextTask(null);
+                        task.setEmployee(null);
+                        task.setStartTime(null);
+                        task.setEndTime(null);
+                        task.setPinned(false);
+                        taskRepository.save(task);
+                    });
+            solutionEntity.getEmployeeList().remove(employee);
+            taskAssigningSolutionRepository.save(solutionEntity);
+            employeeRepository.delete(employee);
+            return employee;
+        });
+        addProblemFactChange(problemId, new RemoveEmployeeProblemFactChange(employeeId));
+    }
+
+    /**
+     * Runs in one transaction, serialized with the best solution updates of the same solution.
+     * @throws NoSuchElementException if the problem was not submitted
+     */
+    private <T> T changeSolutionEntity(Long problemId, Function<TaskAssigningSolution, T> change) {
+        TaskAssigningSolution bestSolution = solverManager.getBestSolution(problemId);
+        if (bestSolution == null) {
+            throw new NoSuchElementException("Problem (" + problemId + ") was not submitted.");
+        }
+        Long solutionId = bestSolution.getId();
+        synchronized (getSolutionLock(solutionId)) {
+            return transactionTemplate.execute(status -> change.apply(
+                    taskAssigningSolutionRepository.findById(solutionId)
+                            .orElseThrow(() -> new NoSuchElementException("Problem (" + problemId
+                                                                                  + ") was not saved."))));
+        }
+    }
+
+    private Object getSolutionLock(Long solutionId) {
+        return solutionIdToLockMap.computeIfAbsent(solutionId, key -> new Object());
+    }
+
+    private static <T extends AbstractPersistable> Optional<T> findById(List<T> list, Long id) {
+        return list.stream().filter(item -> item.getId().equals(id)).findFirst();
+    }
+
+    private Set<Skill> findSkills(TaskAssigningSolution solutionEntity, Set<Long> skillIdSet) {
+        Map<Long, Skill> skillEntityMap = solutionEntity.getSkillList().stream()
+                .collect(Collectors.toMap(Skill::getId, Function.identity()));
+        Set<Skill> skillSet = new LinkedHashSet<>(skillIdSet.size());
+        for (Long skillId : skillIdSet) {
+            Skill skill = skillEntityMap.get(skillId);
+            if (skill == null) {
+                throw new IllegalArgumentException("The skill (" + skillId + ") does not exist.");
+            }
+            skillSet.add(skill);
+        }
+        return skillSet;
+    }
+
+    private void addProblemFactChange(Long problemId, ProblemFactChange<TaskAssigningSolution> problemFactChange) {
+        try {
+            // Batched by the solver manager, so a burst of changes restarts the solver once
+            solverManager.addProblemFactChanges(problemId, Collections.singletonList(problemFactChange));
+        } catch (IllegalStateException e) {
+            logger.info("Problem ({}) has already ended, the change is only saved.", problemId);
+        }
+    }
+
+    /**
+     * Reads finished tenants back from the database after the solver manager evicted them from memory.
+     */
+    private class SolutionRepositoryArchive implements SolverTaskArchive<TaskAssigningSolution> {
+
+        @Override
+        public void archive(FinishedSolverTask<TaskAssigningSolution> finishedSolverTask) {
+            TaskAssigningSolution bestSolution = finishedSolverTask.getBestSolution();
+            if (bestSolution == null || bestSolution.getId() == null
+                    || !tenantLeaseService.isOwned(bestSolution.getTenantId())) {
+                // A lost tenant didn't finish, its new owner continues solving it
+                return;
+            }
+            if (tenantLeaseService.isHandingOver(bestSolution.getTenantId())) {
+                // Didn't finish either, but its next owner only gets the rest of its time
+                saveInterruption(bestSolution, finishedSolverTask.getTimeMillisSpent());
+                return;
+            }
+            synchronized (getSolutionLock(bestSolution.getId())) {
+                transactionTemplate.execute(status -> {
+                    taskAssigningSolutionRepository.findById(bestSolution.getId()).ifPresent(solutionEntity -> {
+                        solutionEntity.setSolverStatus(finishedSolverTask.getSolverStatus());
+                        solutionEntity.setInterruptedAtMillis(null);
+                        solutionEntity.setTimeMillisSpent(null);
+                        taskAssigningSolutionRepository.save(solutionEntity);
+                    });
+                    return null;
+                });
+            }
+        }
+
+        @Override
+        public void checkpoint(FinishedSolverTask<TaskAssigningSolution> interruptedSolverTask) {
+            TaskAssigningSolution bestSolution = interruptedSolverTask.getBestSolution();
+            if (bestSolution == null || bestSolution.getId() == null) {
+                return;
+            }
+            // Its best solution is already saved by the solving ended event, if the shutdown waited long enough
+            saveInterruption(bestSolution, interruptedSolverTask.getTimeMillisSpent());
+            logger.info("Tenant ({}) was {} when the shutdown interrupted it.", bestSolution.getTenantId(),
+                    interruptedSolverTask.getSolverStatus());
+        }
+
+        private void saveInterruption(TaskAssigningSolution bestSolution, long timeMillisSpent) {
+            synchronized (getSolutionLock(bestSolution.getId())) {
+                transactionTemplate.execute(status -> {
+                    taskAssigningSolutionRepository.findById(bestSolution.getId())
+                            .filter(solutionEntity -> solutionEntity.getSolverStatus() == null)
+                            .ifPresent(solutionEntity -> {
+                                solutionEntity.setInterruptedAtMillis(System.currentTimeMillis());
+                                solutionEntity.setTimeMillisSpent(timeMillisSpent);
+                                taskAssigningSolutionRepository.save(solutionEntity);
+                            });
+                    return null;
+                });
+            }
+        }
+
+        @Override
+        public FinishedSolverTask<TaskAssigningSolution> load(Object problemId) {
+            // Solutions without a status never finished solving
+            return taskAssigningSolutionRepository.findFirstByTenantIdOrderByIdDesc((Long) problemId)
+                    .filter(solutionEntity -> solutionEntity.getSolverStatus() != null)
+                    .map(solutionEntity -> new FinishedSolverTask<>(problemId, solutionEntity,
+                            solutionEntity.getScore(), solutionEntity.getSolverStatus()))
+                    .orElse(null);
+        }
+    }
+
+    public void pauseSolver(Long problemId) {
+        solverManager.pauseSolver(problemId);
+    }
+
+    /**
+     * @throws RejectedExecutionException if the solver queue is full
+     */
+    public void resumeSolver(Long problemId) {
+        solverManager.resumeSolver(problemId);
+    }
+
+    public SolverQueuePosition getQueuePosition(Long problemId) {
+        return solverManager.getQueuePosition(problemId);
+    }
+
     public TaskAssigningSolution getBestSolution(Long problemId) throws NoSuchElementException {
         return solverManager.getBestSolution(problemId);
     }
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.springboottaskassigning;
+
+import org.optaplanner.springboottaskassigning.domain.Priority;
+
+/**
+ * Request body to add or change a task, it refers to the other objects of the tenant by id.
+ * On a change, the null fields are kept as they are.
+ */
+public class TaskRequest {
+
+    private Long taskTypeId;
+    private Long customerId;
+    private Integer readyTime;
+    private Priority priority;
+    private Boolean pinned;
+
+    public Long getTaskTypeId() {
+        return taskTypeId;
+    }
+
+    public void setTaskTypeId(Long taskTypeId) {
+        this.taskTypeId = taskTypeId;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(Long customerId) {
+        this.customerId = customerId;
+    }
+
+    public Integer getReadyTime() {
+        return readyTime;
+    }
+
+    public void setReadyTime(Integer readyTime) {
+        this.readyTime = readyTime;
+    }
+
+    public Priority getPriority() {
+        return priority;
+    }
+
+    public void setPriority(Priority priority) {
+        this.priority = priority;
+    }
+
+    public Boolean getPinned() {
+        return pinned;
+    }
+
+    public void setPinned(Boolean pinned) {
+        this.pinned = pinned;
+    }
+}
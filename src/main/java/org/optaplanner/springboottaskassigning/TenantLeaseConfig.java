@@ -0,0 +1,136 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.optaplanner.springboottaskassigning;
+
+import java.util.UUID;
+
+/**
+ * Lets several nodes share the tenants of one database: every node only solves the tenants it holds a lease on.
+ * The node clocks must not drift apart by more than a small part of the leaseMillis.
+ */
+public class TenantLeaseConfig {
+
+    public static final long DEFAULT_LEASE_MILLIS = 30_000L;
+    public static final long DEFAULT_RENEW_INTERVAL_MILLIS = 10_000L;
+
+    /**
+     * False to solve every tenant on this node, without leases.
+     */
+    private boolean enabled = false;
+    /**
+     * Unique per running node, a restarted node with the same nodeId gets its own leases back.
+     */
+    private String nodeId = UUID.randomUUID().toString();
+    /**
+     * Base URL that the other nodes redirect the requests of the tenants of this node to,
+     * for example "http://host-1:8080". Null to not redirect.
+     */
+    private String nodeUrl = null;
+    /**
+     * How long a lease lasts without being renewed, so how long the tenants of a crashed node wait for another node.
+     */
+    private long leaseMillis = DEFAULT_LEASE_MILLIS;
+    /**
+     * How often the leases are renewed and free tenants are claimed, must be shorter than the leaseMillis.
+     */
+    private long renewIntervalMillis = DEFAULT_RENEW_INTERVAL_MILLIS;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public String getNodeUrl() {
+        return nodeUrl;
+    }
+
+    public void setNodeUrl(String nodeUrl) {
+        this.nodeUrl = nodeUrl;
+    }
+
+    public long getLeaseMillis() {
+        return leaseMillis;
+    }
+
+    public void setLeaseMillis(long leaseMillis) {
+        this.leaseMillis = leaseMillis;
+    }
+
+    public long getRenewIntervalMillis() {
+        return renewIntervalMillis;
+    }
+
+    public void setRenewIntervalMillis(long renewIntervalMillis) {
+        this.renewIntervalMillis = renewIntervalMillis;
+    }
+
+    // ************************************************************************
+    // With methods
+    // ************************************************************************
+
+    public TenantLeaseConfig withEnabled(boolean enabled) {
+        this.enabled = enabled;
+        return this;
+    }
+
+    public TenantLeaseConfig withNodeId(String nodeId) {
+        this.nodeId = nodeId;
+        return this;
+    }
+
+    public TenantLeaseConfig withNodeUrl(String nodeUrl) {
+        this.nodeUrl = nodeUrl;
+        return this;
+    }
+
+    public TenantLeaseConfig withLeaseMillis(long leaseMillis) {
+        this.leaseMillis = leaseMillis;
+        return this;
+    }
+
+    public TenantLeaseConfig withRenewIntervalMillis(long renewIntervalMillis) {
+        this.renewIntervalMillis = renewIntervalMillis;
+        return this;
+    }
+
+    public void validate() {
+        if (nodeId == null || nodeId.isEmpty()) {
+            throw new IllegalArgumentException("The nodeId (" + nodeId + ") cannot be empty.");
+        }
+        if (renewIntervalMillis < 1L) {
+            throw new IllegalArgumentException("The renewIntervalMillis (" + renewIntervalMillis
+                                                       + ") must be at least 1.");
+        }
+        if (leaseMillis <= renewIntervalMillis) {
+            throw new IllegalArgumentException("The leaseMillis (" + leaseMillis
+                                                       + ") must be longer than the renewIntervalMillis ("
+                                                       + renewIntervalMillis + ").");
+        }
+    }
+}
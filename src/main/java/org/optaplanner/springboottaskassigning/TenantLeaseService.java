@@ -0,0 +1,285 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.optaplanner.springboottaskassigning;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.optaplanner.springboottaskassigning.domain.SolverNode;
+import org.optaplanner.springboottaskassigning.domain.TenantLease;
+import org.optaplanner.springboottaskassigning.repository.SolverNodeRepository;
+import org.optaplanner.springboottaskassigning.repository.TenantLeaseRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Decides which node solves which tenant, through leases in the shared database.
+ * A node renews its leases periodically, claims its fair share of the tenants that nobody solves,
+ * which includes the tenants of a crashed node once their leases expired,
+ * hands the tenants above its fair share over when more nodes joined,
+ * and stops solving a tenant as soon as it notices it lost the lease.
+ * If leases are disabled, this node owns every tenant.
+ */
+@Service
+public class TenantLeaseService {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final boolean enabled;
+    private final String nodeId;
+    private final String nodeUrl;
+    private final long leaseMillis;
+    private final long renewIntervalMillis;
+    private final TenantLeaseRepository tenantLeaseRepository;
+    private final SolverNodeRepository solverNodeRepository;
+    private final TransactionTemplate transactionTemplate;
+    // Values are the claim order, so the most recently claimed tenants are handed over first
+    private final ConcurrentMap<Long, Long> ownedTenantIdToClaimIndexMap = new ConcurrentHashMap<>();
+    private final AtomicLong claimIndexSequence = new AtomicLong();
+    private final Set<Long> handingOverTenantIdSet = ConcurrentHashMap.newKeySet();
+
+    private ScheduledExecutorService renewExecutorService = null;
+
+    public TenantLeaseService(TenantLeaseConfig tenantLeaseConfig, TenantLeaseRepository tenantLeaseRepository,
+                              SolverNodeRepository solverNodeRepository,
+                              PlatformTransactionManager transactionManager) {
+        tenantLeaseConfig.validate();
+        enabled = tenantLeaseConfig.isEnabled();
+        nodeId = tenantLeaseConfig.getNodeId();
+        nodeUrl = tenantLeaseConfig.getNodeUrl();
+        leaseMillis = tenantLeaseConfig.getLeaseMillis();
+        renewIntervalMillis = tenantLeaseConfig.getRenewIntervalMillis();
+        this.tenantLeaseRepository = tenantLeaseRepository;
+        this.solverNodeRepository = solverNodeRepository;
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Renews the leases right away and then every renew interval, until {@link #shutdown()}.
+     * The callbacks run on the renew thread.
+     * @param unfinishedTenantIdsSupplier never null, the tenants that need a node to solve them
+     * @param onTenantClaimed never null, starts solving a tenant this node claimed
+     * @param onTenantLost never null, stops solving a tenant that another node claimed
+     * @param onTenantHandedOver never null, stops solving a tenant above the fair share of this node,
+     * saves where it got and then calls {@link #release(Long)}
+     */
+    public synchronized void start(Supplier<List<Long>> unfinishedTenantIdsSupplier,
+                                   Consumer<Long> onTenantClaimed, Consumer<Long> onTenantLost,
+                                   Consumer<Long> onTenantHandedOver) {
+        if (!enabled) {
+            throw new IllegalStateException("Tenant leases are disabled.");
+        }
+        if (renewExecutorService != null) {
+            throw new IllegalStateException("The node (" + nodeId + ") already started renewing its leases.");
+        }
+        logger.info("Node ({}) shares the tenants with the other nodes, lease: {} ms, renew interval: {} ms.",
+                nodeId, leaseMillis, renewIntervalMillis);
+        renewExecutorService = Executors.newSingleThreadScheduledExecutor();
+        renewExecutorService.scheduleWithFixedDelay(() -> {
+            try {
+                renew(unfinishedTenantIdsSupplier, onTenantClaimed, onTenantLost, onTenantHandedOver);
+            } catch (RuntimeException e) {
+                // The next renewal tries again, before the leases expire
+                logger.error("Node (" + nodeId + ") failed to renew its leases.", e);
+            }
+        }, 0L, renewIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Public for the tests, to renew without waiting for the renew interval.
+     */
+    public void renew(Supplier<List<Long>> unfinishedTenantIdsSupplier,
+                      Consumer<Long> onTenantClaimed, Consumer<Long> onTenantLost,
+                      Consumer<Long> onTenantHandedOver) {
+        long nowMillis = System.currentTimeMillis();
+        List<Long> leasedTenantIdList = transactionTemplate.execute(status -> {
+            solverNodeRepository.save(new SolverNode(nodeId, nodeUrl, nowMillis + leaseMillis));
+            tenantLeaseRepository.renewAll(nodeId, nowMillis, nowMillis + leaseMillis);
+            return tenantLeaseRepository.findOwnedTenantIds(nodeId, nowMillis);
+        });
+        Set<Long> leasedTenantIdSet = new HashSet<>(leasedTenantIdList);
+        for (Long tenantId : new ArrayList<>(ownedTenantIdToClaimIndexMap.keySet())) {
+            if (!leasedTenantIdSet.contains(tenantId) && ownedTenantIdToClaimIndexMap.remove(tenantId) != null) {
+                handingOverTenantIdSet.remove(tenantId);
+                logger.warn("Node ({}) lost the lease of tenant ({}).", nodeId, tenantId);
+                onTenantLost.accept(tenantId);
+            }
+        }
+
+        List<Long> unfinishedTenantIdList = unfinishedTenantIdsSupplier.get();
+        long liveNodeCount = Math.max(1L, solverNodeRepository.countLiveNodes(nowMillis));
+        long fairShare = (unfinishedTenantIdList.size() + liveNodeCount - 1L) / liveNodeCount;
+        for (Long tenantId : unfinishedTenantIdList) {
+            if (ownedTenantIdToClaimIndexMap.size() >= fairShare) {
+                break;
+            }
+            if (!ownedTenantIdToClaimIndexMap.containsKey(tenantId) && claim(tenantId)) {
+                logger.info("Node ({}) claimed tenant ({}).", nodeId, tenantId);
+                onTenantClaimed.accept(tenantId);
+            }
+        }
+
+        // The most recently claimed tenants are the most likely to be still queued
+        long surplusCount = ownedTenantIdToClaimIndexMap.size() - handingOverTenantIdSet.size() - fairShare;
+        if (surplusCount <= 0L) {
+            return;
+        }
+        List<Long> surplusTenantIdList = ownedTenantIdToClaimIndexMap.entrySet().stream()
+                .filter(entry -> !handingOverTenantIdSet.contains(entry.getKey()))
+                .sorted(Map.Entry.<Long, Long>comparingByValue().reversed())
+                .limit(surplusCount)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+        for (Long tenantId : surplusTenantIdList) {
+            handingOverTenantIdSet.add(tenantId);
+            logger.info("Node ({}) hands tenant ({}) over, its fair share is {} tenants.", nodeId, tenantId, fairShare);
+            onTenantHandedOver.accept(tenantId);
+        }
+    }
+
+    /**
+     * @return true if this node owns the tenant now, also if it already owned it
+     */
+    public boolean claim(Long tenantId) {
+        if (!enabled) {
+            return true;
+        }
+        long nowMillis = System.currentTimeMillis();
+        Integer claimedCount = transactionTemplate.execute(status ->
+                tenantLeaseRepository.claim(tenantId, nodeId, nowMillis, nowMillis + leaseMillis));
+        boolean claimed = claimedCount != null && claimedCount > 0;
+        if (!claimed && !tenantLeaseRepository.existsById(tenantId)) {
+            try {
+                transactionTemplate.execute(status -> {
+                    tenantLeaseRepository.insert(tenantId, nodeId, nowMillis + leaseMillis);
+                    return null;
+                });
+                claimed = true;
+            } catch (DataIntegrityViolationException e) {
+                logger.debug("Another node claimed tenant ({}) first.", tenantId);
+            }
+        }
+        if (claimed) {
+            ownedTenantIdToClaimIndexMap.putIfAbsent(tenantId, claimIndexSequence.getAndIncrement());
+        }
+        return claimed;
+    }
+
+    /**
+     * @return true if this node holds the lease of the tenant, also while it hands it over,
+     * always true if leases are disabled
+     */
+    public boolean isOwned(Long tenantId) {
+        return !enabled || ownedTenantIdToClaimIndexMap.containsKey(tenantId);
+    }
+
+    /**
+     * Must run in the transaction that writes the tenant's solution, so it doesn't overwrite the solution
+     * of a node that claimed the tenant after {@link #isOwned(Long)} looked.
+     * @return true if this node holds the lease of the tenant and keeps it until the transaction ends,
+     * always true if leases are disabled
+     */
+    public boolean lockLease(Long tenantId) {
+        return !enabled || tenantLeaseRepository.lock(tenantId, nodeId, System.currentTimeMillis()) > 0;
+    }
+
+    /**
+     * @return true if this node still holds the lease of the tenant, but another node should continue solving it
+     */
+    public boolean isHandingOver(Long tenantId) {
+        return enabled && handingOverTenantIdSet.contains(tenantId);
+    }
+
+    /**
+     * Lets another node claim the tenant right away. Does nothing if this node doesn't own it.
+     */
+    public void release(Long tenantId) {
+        if (!enabled || ownedTenantIdToClaimIndexMap.remove(tenantId) == null) {
+            return;
+        }
+        handingOverTenantIdSet.remove(tenantId);
+        transactionTemplate.execute(status -> tenantLeaseRepository.release(tenantId, nodeId));
+    }
+
+    /**
+     * @return null if this node owns the tenant, or nobody does, or the owner has no URL
+     */
+    public String findRemoteOwnerUrl(Long tenantId) {
+        if (!enabled || ownedTenantIdToClaimIndexMap.containsKey(tenantId)) {
+            return null;
+        }
+        long nowMillis = System.currentTimeMillis();
+        TenantLease tenantLease = tenantLeaseRepository.findById(tenantId).orElse(null);
+        if (tenantLease == null || tenantLease.getExpiresAtMillis() < nowMillis
+                || nodeId.equals(tenantLease.getOwnerNodeId())) {
+            return null;
+        }
+        return solverNodeRepository.findById(tenantLease.getOwnerNodeId())
+                .filter(solverNode -> solverNode.getExpiresAtMillis() >= nowMillis)
+                .map(SolverNode::getUrl)
+                .orElse(null);
+    }
+
+    /**
+     * Releases all leases of this node, so the other nodes take its tenants over without waiting for them to expire.
+     */
+    public synchronized void shutdown() {
+        if (!enabled) {
+            return;
+        }
+        if (renewExecutorService != null) {
+            renewExecutorService.shutdownNow();
+            renewExecutorService = null;
+        }
+        ownedTenantIdToClaimIndexMap.clear();
+        handingOverTenantIdSet.clear();
+        try {
+            transactionTemplate.execute(status -> {
+                tenantLeaseRepository.releaseAll(nodeId);
+                solverNodeRepository.deleteById(nodeId);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            logger.warn("Node ({}) could not release its leases, they expire in {} ms.", nodeId, leaseMillis, e);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.optaplanner.springboottaskassigning;
+
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Redirects the requests of a tenant to the node that owns it, so clients can call any node.
+ * A temporary redirect (307) keeps the method and the body of the request.
+ */
+@Component
+public class TenantOwnerRedirectInterceptor implements HandlerInterceptor, WebMvcConfigurer {
+
+    private final TenantLeaseService tenantLeaseService;
+
+    public TenantOwnerRedirectInterceptor(TenantLeaseService tenantLeaseService) {
+        this.tenantLeaseService = tenantLeaseService;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(this).addPathPatterns("/tenants/*/**");
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!tenantLeaseService.isEnabled()) {
+            return true;
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, String> uriTemplateVariables = (Map<String, String>) request.getAttribute(
+                HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String problemId = uriTemplateVariables == null ? null : uriTemplateVariables.get("problemId");
+        if (problemId == null) {
+            return true;
+        }
+        String ownerUrl;
+        try {
+            ownerUrl = tenantLeaseService.findRemoteOwnerUrl(Long.valueOf(problemId));
+        } catch (NumberFormatException e) {
+            // The controller rejects it
+            return true;
+        }
+        if (ownerUrl == null) {
+            return true;
+        }
+        String location = ownerUrl + request.getRequestURI()
+                + (request.getQueryString() == null ? "" : "?" + request.getQueryString());
+        response.setStatus(HttpStatus.TEMPORARY_REDIRECT.value());
+        response.setHeader(HttpHeaders.LOCATION, location);
+        return false;
+    }
+}
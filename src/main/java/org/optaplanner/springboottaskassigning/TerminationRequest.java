@@ -0,0 +1,83 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.optaplanner.springboottaskassigning;
+
+/**
+ * Query parameters that decide when a submitted tenant stops solving, the first one that is reached wins.
+ * If they are all null, the default termination of the server applies.
+ */
+public class TerminationRequest {
+
+    private Long millisecondsSpentLimit;
+    private Long unimprovedMillisecondsSpentLimit;
+    /**
+     * Only an improvement of at least this score counts for the unimprovedMillisecondsSpentLimit,
+     * for example "[0]hard/[0/0/0/100]soft".
+     */
+    private String unimprovedScoreDifferenceThreshold;
+    /**
+     * For example "[0]hard/[0/0/0/0]soft".
+     */
+    private String bestScoreLimit;
+    private Boolean bestScoreFeasible;
+
+    public boolean isEmpty() {
+        return millisecondsSpentLimit == null && unimprovedMillisecondsSpentLimit == null
+                && unimprovedScoreDifferenceThreshold == null && bestScoreLimit == null && bestScoreFeasible == null;
+    }
+
+    public Long getMillisecondsSpentLimit() {
+        return millisecondsSpentLimit;
+    }
+
+    public void setMillisecondsSpentLimit(Long millisecondsSpentLimit) {
+        this.millisecondsSpentLimit = millisecondsSpentLimit;
+    }
+
+    public Long getUnimprovedMillisecondsSpentLimit() {
+        return unimprovedMillisecondsSpentLimit;
+    }
+
+    public void setUnimprovedMillisecondsSpentLimit(Long unimprovedMillisecondsSpentLimit) {
+        this.unimprovedMillisecondsSpentLimit = unimprovedMillisecondsSpentLimit;
+    }
+
+    public String getUnimprovedScoreDifferenceThreshold() {
+        return unimprovedScoreDifferenceThreshold;
+    }
+
+    public void setUnimprovedScoreDifferenceThreshold(String unimprovedScoreDifferenceThreshold) {
+        this.unimprovedScoreDifferenceThreshold = unimprovedScoreDifferenceThreshold;
+    }
+
+    public String getBestScoreLimit() {
+        return bestScoreLimit;
+    }
+
+    public void setBestScoreLimit(String bestScoreLimit) {
+        this.bestScoreLimit = bestScoreLimit;
+    }
+
+    public Boolean getBestScoreFeasible() {
+        return bestScoreFeasible;
+    }
+
+    public void setBestScoreFeasible(Boolean bestScoreFeasible) {
+        this.bestScoreFeasible = bestScoreFeasible;
+    }
+}
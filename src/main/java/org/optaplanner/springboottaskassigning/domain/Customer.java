@@ -17,12 +17,22 @@
 package org.optaplanner.springboottaskassigning.domain;
 
 import javax.persistence.Entity;
+import javax.persistence.Transient;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 @Entity
 public class Customer extends AbstractPersistable {
 
     private String name;
 
+    /**
+     * Dense index in the customerList of its solution, -1 until {@link TaskAssigningSolution#buildIndex()}.
+     */
+    @Transient
+    @JsonIgnore
+    private int index = -1;
+
     public Customer() {
     }
 
@@ -39,6 +49,14 @@ public class Customer extends AbstractPersistable {
         this.name = name;
     }
 
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
     // ************************************************************************
     // Complex methods
     // ************************************************************************
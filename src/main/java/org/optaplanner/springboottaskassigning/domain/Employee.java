@@ -29,14 +29,22 @@ import javax.persistence.JoinColumn;
 import javax.persistence.JoinTable;
 import javax.persistence.ManyToMany;
 import javax.persistence.MapKeyColumn;
+import javax.persistence.Transient;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.hibernate.annotations.LazyCollection;
 import org.hibernate.annotations.LazyCollectionOption;
+import org.optaplanner.core.api.domain.entity.PlanningEntity;
+import org.optaplanner.core.api.domain.variable.CustomShadowVariable;
+import org.optaplanner.core.api.domain.variable.PlanningVariableReference;
+import org.optaplanner.springboottaskassigning.domain.solver.ChainAggregateUpdatingVariableListener;
 
+@PlanningEntity
 @Entity
 public class Employee extends TaskOrEmployee {
 
+    private static final Affinity[] AFFINITIES = Affinity.values();
+
     private String fullName;
 
     @ManyToMany(fetch = FetchType.EAGER)
@@ -52,6 +60,55 @@ public class Employee extends TaskOrEmployee {
     @LazyCollection(LazyCollectionOption.FALSE)
     private Map<Long, Affinity> customerIdToAffinityMap;
 
+    /**
+     * Dense index in the employeeList of its solution, -1 until {@link TaskAssigningSolution#buildIndex()}.
+     */
+    @Transient
+    @JsonIgnore
+    private int index = -1;
+    /**
+     * The skillSet as a bitset of {@link Skill#getIndex()}, null until it's indexed.
+     */
+    @Transient
+    @JsonIgnore
+    private long[] skillBits;
+    /**
+     * The {@link Affinity#ordinal()} per {@link Customer#getIndex()}, null until it's indexed.
+     * Replaces the customerIdToAffinityMap lookups while solving.
+     */
+    @Transient
+    @JsonIgnore
+    private byte[] customerIndexToAffinity;
+
+    // Shadow variables: aggregates of its chain of tasks, so the score needn't match every task of a long chain
+    @CustomShadowVariable(variableListenerClass = ChainAggregateUpdatingVariableListener.class,
+            sources = {@PlanningVariableReference(entityClass = Task.class, variableName = "previousTaskOrEmployee"),
+                    @PlanningVariableReference(entityClass = Task.class, variableName = "employee"),
+                    @PlanningVariableReference(entityClass = Task.class, variableName = "nextTask"),
+                    @PlanningVariableReference(entityClass = Task.class, variableName = "endTime")})
+    @Transient
+    @JsonIgnore
+    private int taskCount;
+    /**
+     * End time of its last task, 0 without tasks.
+     */
+    @CustomShadowVariable(variableListenerRef = @PlanningVariableReference(variableName = "taskCount"))
+    @Transient
+    @JsonIgnore
+    private int lastEndTime;
+    @CustomShadowVariable(variableListenerRef = @PlanningVariableReference(variableName = "taskCount"))
+    @Transient
+    @JsonIgnore
+    private int criticalEndTimeSum;
+    @CustomShadowVariable(variableListenerRef = @PlanningVariableReference(variableName = "taskCount"))
+    @Transient
+    @JsonIgnore
+    private int majorEndTimeSum;
+    @CustomShadowVariable(variableListenerRef = @PlanningVariableReference(variableName = "taskCount"))
+    @Transient
+    @JsonIgnore
+    private int minorEndTimeSum;
+
     public Employee() {
     }
 
@@ -86,6 +143,70 @@ public class Employee extends TaskOrEmployee {
         this.customerIdToAffinityMap = customerIdToAffinityMap;
     }
 
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public long[] getSkillBits() {
+        return skillBits;
+    }
+
+    public void setSkillBits(long[] skillBits) {
+        this.skillBits = skillBits;
+    }
+
+    public byte[] getCustomerIndexToAffinity() {
+        return customerIndexToAffinity;
+    }
+
+    public void setCustomerIndexToAffinity(byte[] customerIndexToAffinity) {
+        this.customerIndexToAffinity = customerIndexToAffinity;
+    }
+
+    public int getTaskCount() {
+        return taskCount;
+    }
+
+    public void setTaskCount(int taskCount) {
+        this.taskCount = taskCount;
+    }
+
+    public int getLastEndTime() {
+        return lastEndTime;
+    }
+
+    public void setLastEndTime(int lastEndTime) {
+        this.lastEndTime = lastEndTime;
+    }
+
+    public int getCriticalEndTimeSum() {
+        return criticalEndTimeSum;
+    }
+
+    public void setCriticalEndTimeSum(int criticalEndTimeSum) {
+        this.criticalEndTimeSum = criticalEndTimeSum;
+    }
+
+    public int getMajorEndTimeSum() {
+        return majorEndTimeSum;
+    }
+
+    public void setMajorEndTimeSum(int majorEndTimeSum) {
+        this.majorEndTimeSum = majorEndTimeSum;
+    }
+
+    public int getMinorEndTimeSum() {
+        return minorEndTimeSum;
+    }
+
+    public void setMinorEndTimeSum(int minorEndTimeSum) {
+        this.minorEndTimeSum = minorEndTimeSum;
+    }
+
     // ************************************************************************
     // Complex methods
     // ************************************************************************
@@ -97,15 +218,51 @@ public class Employee extends TaskOrEmployee {
     }
 
     @Override
-    public Integer getEndTime() {
+    public int getEndTime() {
         return 0;
     }
 
+    /**
+     * Recalculates the chain aggregates from its tasks, without telling a score director.
+     * Only before solving or on a new clone, afterwards the {@link ChainAggregateUpdatingVariableListener} keeps them.
+     */
+    public void resetChainAggregates() {
+        taskCount = 0;
+        lastEndTime = 0;
+        criticalEndTimeSum = 0;
+        majorEndTimeSum = 0;
+        minorEndTimeSum = 0;
+        for (Task task = nextTask; task != null; task = task.getNextTask()) {
+            int endTime = task.getEndTime();
+            boolean last = task.getNextTask() == null;
+            taskCount++;
+            if (last) {
+                lastEndTime = endTime;
+            }
+            addEndTime(task.getPriority(), endTime);
+            task.setAggregatedContribution(this, task.getPriority(), endTime, last);
+        }
+    }
+
+    private void addEndTime(Priority priority, int endTime) {
+        if (priority == Priority.CRITICAL) {
+            criticalEndTimeSum += endTime;
+        } else if (priority == Priority.MAJOR) {
+            majorEndTimeSum += endTime;
+        } else if (priority == Priority.MINOR) {
+            minorEndTimeSum += endTime;
+        }
+    }
+
     /**
      * @param customer never null
      * @return never null
      */
     public Affinity getAffinity(Customer customer) {
+        int customerIndex = customer.getIndex();
+        if (customerIndexToAffinity != null && customerIndex >= 0 && customerIndex < customerIndexToAffinity.length) {
+            return AFFINITIES[customerIndexToAffinity[customerIndex]];
+        }
         Affinity affinity = customerIdToAffinityMap.get(customer.getId());
         if (affinity == null) {
             affinity = Affinity.NONE;
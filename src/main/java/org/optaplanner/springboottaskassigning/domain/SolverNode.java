@@ -0,0 +1,75 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.optaplanner.springboottaskassigning.domain;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * Heartbeat of a running node, so the other nodes know how many nodes share the tenants
+ * and where to redirect the requests of the tenants it owns.
+ */
+@Entity
+public class SolverNode {
+
+    @Id
+    private String nodeId;
+    /**
+     * For example "http://host-1:8080", null if the node can't be reached by the other nodes.
+     */
+    private String url;
+    private long expiresAtMillis;
+
+    public SolverNode() {
+    }
+
+    public SolverNode(String nodeId, String url, long expiresAtMillis) {
+        this.nodeId = nodeId;
+        this.url = url;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    public void setExpiresAtMillis(long expiresAtMillis) {
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    @Override
+    public String toString() {
+        return nodeId;
+    }
+}
@@ -16,9 +16,13 @@
 
 package org.optaplanner.springboottaskassigning.domain;
 
+import javax.persistence.Access;
+import javax.persistence.AccessType;
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToOne;
+import javax.persistence.Transient;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.optaplanner.core.api.domain.entity.PlanningEntity;
@@ -35,6 +39,11 @@ import org.optaplanner.springboottaskassigning.domain.solver.TaskDifficultyCompa
 @Entity
 public class Task extends TaskOrEmployee {
 
+    /**
+     * The startTime and endTime of a task that isn't assigned, null in JSON and in the database.
+     */
+    public static final int UNASSIGNED_TIME = Integer.MIN_VALUE;
+
     @ManyToOne
     private TaskType taskType;
     private int indexInTaskType;
@@ -62,9 +71,26 @@ public class Task extends TaskOrEmployee {
             // Arguable, to adhere to API specs (although this works), nextTask and employee should also be a source,
             // because this shadow must be triggered after nextTask and employee (but there is no need to be triggered by those)
             sources = {@PlanningVariableReference(variableName = "previousTaskOrEmployee")})
-    private Integer startTime; // In minutes
+    // Primitive, so the listener doesn't box while solving, and persisted as a nullable column by a getter
+    @Transient
+    private int startTime = UNASSIGNED_TIME; // In minutes
     @CustomShadowVariable(variableListenerRef = @PlanningVariableReference(variableName = "startTime"))
-    private Integer endTime; // In minutes
+    @Transient
+    private int endTime = UNASSIGNED_TIME; // In minutes
+
+    // What this task last added to the chain aggregates of an employee, so it can take it out again
+    @Transient
+    @JsonIgnore
+    private Employee aggregatedEmployee;
+    @Transient
+    @JsonIgnore
+    private Priority aggregatedPriority;
+    @Transient
+    @JsonIgnore
+    private int aggregatedEndTime;
+    @Transient
+    @JsonIgnore
+    private boolean aggregatedLast;
 
     public Task() {
     }
@@ -144,23 +170,106 @@ public class Task extends TaskOrEmployee {
         this.employee = employee;
     }
 
+    /**
+     * @return null if it's not assigned
+     */
     public Integer getStartTime() {
-        return startTime;
+        return startTime == UNASSIGNED_TIME ? null : startTime;
     }
 
+    /**
+     * @param startTime null if it's not assigned
+     */
     public void setStartTime(Integer startTime) {
-        this.startTime = startTime;
+        this.startTime = startTime == null ? UNASSIGNED_TIME : startTime;
     }
 
+    /**
+     * @return 0 if it's not assigned
+     */
     @Override
-    public Integer getEndTime() {
-        return endTime == null ? 0 : endTime;
+    public int getEndTime() {
+        return endTime == UNASSIGNED_TIME ? 0 : endTime;
     }
 
+    /**
+     * @param endTime null if it's not assigned
+     */
     public void setEndTime(Integer endTime) {
+        this.endTime = endTime == null ? UNASSIGNED_TIME : endTime;
+    }
+
+    /**
+     * @return {@link #UNASSIGNED_TIME} if it's not assigned
+     */
+    @JsonIgnore
+    public int getStartTimeValue() {
+        return startTime;
+    }
+
+    public void setStartTimeValue(int startTime) {
+        this.startTime = startTime;
+    }
+
+    /**
+     * @return {@link #UNASSIGNED_TIME} if it's not assigned
+     */
+    @JsonIgnore
+    public int getEndTimeValue() {
+        return endTime;
+    }
+
+    public void setEndTimeValue(int endTime) {
         this.endTime = endTime;
     }
 
+    public Employee getAggregatedEmployee() {
+        return aggregatedEmployee;
+    }
+
+    public Priority getAggregatedPriority() {
+        return aggregatedPriority;
+    }
+
+    public int getAggregatedEndTime() {
+        return aggregatedEndTime;
+    }
+
+    public boolean isAggregatedLast() {
+        return aggregatedLast;
+    }
+
+    /**
+     * @param aggregatedEmployee null if it's not in the chain aggregates of any employee
+     */
+    public void setAggregatedContribution(Employee aggregatedEmployee, Priority aggregatedPriority,
+                                          int aggregatedEndTime, boolean aggregatedLast) {
+        this.aggregatedEmployee = aggregatedEmployee;
+        this.aggregatedPriority = aggregatedPriority;
+        this.aggregatedEndTime = aggregatedEndTime;
+        this.aggregatedLast = aggregatedLast;
+    }
+
+    @Access(AccessType.PROPERTY)
+    @Column(name = "startTime")
+    protected Integer getStartTimeColumn() {
+        return getStartTime();
+    }
+
+    protected void setStartTimeColumn(Integer startTime) {
+        setStartTime(startTime);
+    }
+
+    @Access(AccessType.PROPERTY)
+    @Column(name = "endTime")
+    protected Integer getEndTimeColumn() {
+        return endTime == UNASSIGNED_TIME ? null : endTime;
+    }
+
+    protected void setEndTimeColumn(Integer endTime) {
+        setEndTime(endTime);
+    }
+
     // ************************************************************************
     // Complex methods
     // ************************************************************************
@@ -170,13 +279,7 @@ public class Task extends TaskOrEmployee {
         if (employee == null) {
             return 0;
         }
-        int count = 0;
-        for (Skill skill : taskType.getRequiredSkillSet()) {
-            if (!employee.getSkillSet().contains(skill)) {
-                count++;
-            }
-        }
-        return count;
+        return taskType.getMissingSkillCount(employee);
     }
 
     /**
@@ -16,18 +16,26 @@
 
 package org.optaplanner.springboottaskassigning.domain;
 
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
 import javax.persistence.JoinColumn;
 import javax.persistence.OneToMany;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import org.hibernate.annotations.Columns;
 import org.hibernate.annotations.LazyCollection;
 import org.hibernate.annotations.LazyCollectionOption;
+import org.hibernate.annotations.OptimisticLock;
 import org.hibernate.annotations.Parameter;
 import org.hibernate.annotations.TypeDef;
 import org.optaplanner.core.api.domain.solution.PlanningEntityCollectionProperty;
@@ -37,6 +45,7 @@ import org.optaplanner.core.api.domain.solution.drools.ProblemFactCollectionProp
 import org.optaplanner.core.api.domain.valuerange.ValueRangeProvider;
 import org.optaplanner.core.api.score.buildin.bendable.BendableScore;
 import org.optaplanner.persistence.jpa.impl.score.buildin.bendable.BendableScoreHibernateType;
+import org.optaplanner.springboottaskassigning.solver.SolverStatus;
 
 @PlanningSolution
 @JsonPropertyOrder({"skillList", "taskTypeList", "customerList", "employeeList", "taskList", "score", "frozenCutoff"})
@@ -70,6 +79,8 @@ public class TaskAssigningSolution extends AbstractPersistable {
     @OneToMany(cascade = {CascadeType.PERSIST, CascadeType.REMOVE})
     @JoinColumn(name = "task_assigning_solution_id")
     @LazyCollection(LazyCollectionOption.FALSE)
+    // Adding or removing one doesn't conflict with the best solution updates of the same solution
+    @OptimisticLock(excluded = true)
     private List<Employee> employeeList;
 
     @PlanningEntityCollectionProperty
@@ -77,6 +88,8 @@ public class TaskAssigningSolution extends AbstractPersistable {
     @OneToMany(cascade = {CascadeType.PERSIST, CascadeType.REMOVE})
     @JoinColumn(name = "task_assigning_solution_id")
     @LazyCollection(LazyCollectionOption.FALSE)
+    // Adding or removing one doesn't conflict with the best solution updates of the same solution
+    @OptimisticLock(excluded = true)
     private List<Task> taskList;
 
     @PlanningScore(bendableHardLevelsSize = 1, bendableSoftLevelsSize = 4)
@@ -95,6 +108,25 @@ public class TaskAssigningSolution extends AbstractPersistable {
      */
     private int frozenCutoff; // In minutes
 
+    /**
+     * Null until solving ended, so the status of an evicted tenant can be read back.
+     */
+    @JsonIgnore
+    @Enumerated(EnumType.STRING)
+    private SolverStatus solverStatus;
+
+    /**
+     * When a shutdown interrupted its solving, null if none did since it was submitted.
+     */
+    @JsonIgnore
+    private Long interruptedAtMillis;
+
+    /**
+     * Time spent solving when a shutdown interrupted it, so it continues with the rest of its time spent limit.
+     */
+    @JsonIgnore
+    private Long timeMillisSpent;
+
     public TaskAssigningSolution() {
     }
 
@@ -164,7 +196,131 @@ public class TaskAssigningSolution extends AbstractPersistable {
         this.frozenCutoff = frozenCutoff;
     }
 
+    public SolverStatus getSolverStatus() {
+        return solverStatus;
+    }
+
+    public void setSolverStatus(SolverStatus solverStatus) {
+        this.solverStatus = solverStatus;
+    }
+
+    public Long getInterruptedAtMillis() {
+        return interruptedAtMillis;
+    }
+
+    public void setInterruptedAtMillis(Long interruptedAtMillis) {
+        this.interruptedAtMillis = interruptedAtMillis;
+    }
+
+    public Long getTimeMillisSpent() {
+        return timeMillisSpent;
+    }
+
+    public void setTimeMillisSpent(Long timeMillisSpent) {
+        this.timeMillisSpent = timeMillisSpent;
+    }
+
     // ************************************************************************
     // Complex methods
     // ************************************************************************
+
+    /**
+     * Gives every skill, customer, employee and task type a dense index and precomputes the missing skill count
+     * of every task type for every employee, so the score calculation never compares skill sets,
+     * the employees that have all the skills of every task type, for the moves that skip the others,
+     * the skills that every task type requires and every other one doesn't, for nearby selection,
+     * and the affinity of every employee with every customer, so a task duration needs no map lookup.
+     * Build it again after an employee is added, removed or gets other skills.
+     * @throws IllegalStateException if a skill of an employee or task type is not in the skillList
+     */
+    public void buildIndex() {
+        for (int i = 0; i < skillList.size(); i++) {
+            skillList.get(i).setIndex(i);
+        }
+        Map<Long, Integer> customerIdToIndexMap = new HashMap<>(customerList.size());
+        for (int i = 0; i < customerList.size(); i++) {
+            Customer customer = customerList.get(i);
+            customer.setIndex(i);
+            customerIdToIndexMap.put(customer.getId(), i);
+        }
+        int skillBitsLength = (skillList.size() + Long.SIZE - 1) / Long.SIZE;
+        for (int i = 0; i < employeeList.size(); i++) {
+            Employee employee = employeeList.get(i);
+            employee.setIndex(i);
+            employee.setSkillBits(toSkillBits(employee.getSkillSet(), skillBitsLength));
+            byte[] customerIndexToAffinity = new byte[customerList.size()];
+            Arrays.fill(customerIndexToAffinity, (byte) Affinity.NONE.ordinal());
+            employee.getCustomerIdToAffinityMap().forEach((customerId, affinity) -> {
+                Integer customerIndex = customerIdToIndexMap.get(customerId);
+                if (customerIndex != null) {
+                    customerIndexToAffinity[customerIndex] = (byte) affinity.ordinal();
+                }
+            });
+            employee.setCustomerIndexToAffinity(customerIndexToAffinity);
+        }
+        for (int i = 0; i < taskTypeList.size(); i++) {
+            TaskType taskType = taskTypeList.get(i);
+            taskType.setIndex(i);
+            taskType.setRequiredSkillBits(toSkillBits(taskType.getRequiredSkillSet(), skillBitsLength));
+        }
+        for (TaskType taskType : taskTypeList) {
+            long[] requiredSkillBits = taskType.getRequiredSkillBits();
+            int[] employeeIndexToMissingSkillCount = new int[employeeList.size()];
+            int eligibleEmployeeCount = 0;
+            for (int i = 0; i < employeeList.size(); i++) {
+                long[] skillBits = employeeList.get(i).getSkillBits();
+                int count = 0;
+                for (int j = 0; j < skillBitsLength; j++) {
+                    count += Long.bitCount(requiredSkillBits[j] & ~skillBits[j]);
+                }
+                employeeIndexToMissingSkillCount[i] = count;
+                if (count == 0) {
+                    eligibleEmployeeCount++;
+                }
+            }
+            int[] eligibleEmployeeIndexes = new int[eligibleEmployeeCount];
+            for (int i = 0, j = 0; i < employeeList.size(); i++) {
+                if (employeeIndexToMissingSkillCount[i] == 0) {
+                    eligibleEmployeeIndexes[j++] = i;
+                }
+            }
+            int[] taskTypeIndexToMissingSkillCount = new int[taskTypeList.size()];
+            for (int i = 0; i < taskTypeList.size(); i++) {
+                long[] otherRequiredSkillBits = taskTypeList.get(i).getRequiredSkillBits();
+                int count = 0;
+                for (int j = 0; j < skillBitsLength; j++) {
+                    count += Long.bitCount(requiredSkillBits[j] & ~otherRequiredSkillBits[j]);
+                }
+                taskTypeIndexToMissingSkillCount[i] = count;
+            }
+            taskType.setEmployeeIndexToMissingSkillCount(employeeIndexToMissingSkillCount);
+            taskType.setEligibleEmployeeIndexes(eligibleEmployeeIndexes);
+            taskType.setTaskTypeIndexToMissingSkillCount(taskTypeIndexToMissingSkillCount);
+        }
+    }
+
+    /**
+     * Recalculates the chain aggregates of every employee, which aren't saved. Only before solving.
+     */
+    public void resetChainAggregates() {
+        for (Task task : taskList) {
+            task.setAggregatedContribution(null, null, 0, false);
+        }
+        for (Employee employee : employeeList) {
+            employee.resetChainAggregates();
+        }
+    }
+
+    private long[] toSkillBits(Set<Skill> skillSet, int skillBitsLength) {
+        long[] skillBits = new long[skillBitsLength];
+        for (Skill skill : skillSet) {
+            int skillIndex = skill.getIndex();
+            if (skillIndex < 0 || skillIndex >= skillList.size() || skillList.get(skillIndex) != skill) {
+                throw new IllegalStateException("The skill (" + skill + ") is not in the skillList of solution ("
+                                                        + getId() + ").");
+            }
+            skillBits[skillIndex / Long.SIZE] |= 1L << (skillIndex % Long.SIZE);
+        }
+        return skillBits;
+    }
 }
@@ -53,9 +53,9 @@ public abstract class TaskOrEmployee extends AbstractPersistable {
     }
 
     /**
-     * @return sometimes null
+     * @return 0 if it's not assigned or an employee
      */
-    public abstract Integer getEndTime();
+    public abstract int getEndTime();
 
     /**
      * @return sometimes null
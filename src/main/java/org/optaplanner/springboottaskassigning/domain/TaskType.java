@@ -16,6 +16,7 @@
 
 package org.optaplanner.springboottaskassigning.domain;
 
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -24,6 +25,9 @@ import javax.persistence.FetchType;
 import javax.persistence.JoinColumn;
 import javax.persistence.JoinTable;
 import javax.persistence.ManyToMany;
+import javax.persistence.Transient;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 @Entity
 public class TaskType extends AbstractPersistable {
@@ -39,6 +43,41 @@ public class TaskType extends AbstractPersistable {
     )
     private Set<Skill> requiredSkillSet;
 
+    /**
+     * Dense index in the taskTypeList of its solution, -1 until {@link TaskAssigningSolution#buildIndex()}.
+     */
+    @Transient
+    @JsonIgnore
+    private int index = -1;
+    /**
+     * The requiredSkillSet as a bitset of {@link Skill#getIndex()}, null until it's indexed.
+     */
+    @Transient
+    @JsonIgnore
+    private long[] requiredSkillBits;
+    /**
+     * Missing skill count per {@link Employee#getIndex()}, null until it's indexed.
+     * Replaced, never changed, because the best solution clones share it.
+     */
+    @Transient
+    @JsonIgnore
+    private int[] employeeIndexToMissingSkillCount;
+    /**
+     * The {@link Employee#getIndex()} of every employee without missing skills, in ascending order,
+     * null until it's indexed.
+     * Replaced, never changed, because the best solution clones share it.
+     */
+    @Transient
+    @JsonIgnore
+    private int[] eligibleEmployeeIndexes;
+    /**
+     * Per {@link #getIndex()} of another task type, how many of the required skills it doesn't require,
+     * null until it's indexed. Replaced, never changed, because the best solution clones share it.
+     */
+    @Transient
+    @JsonIgnore
+    private int[] taskTypeIndexToMissingSkillCount;
+
     public TaskType() {
     }
 
@@ -82,10 +121,107 @@ public class TaskType extends AbstractPersistable {
         this.requiredSkillSet = requiredSkillList;
     }
 
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public long[] getRequiredSkillBits() {
+        return requiredSkillBits;
+    }
+
+    public void setRequiredSkillBits(long[] requiredSkillBits) {
+        this.requiredSkillBits = requiredSkillBits;
+    }
+
+    public int[] getEmployeeIndexToMissingSkillCount() {
+        return employeeIndexToMissingSkillCount;
+    }
+
+    public void setEmployeeIndexToMissingSkillCount(int[] employeeIndexToMissingSkillCount) {
+        this.employeeIndexToMissingSkillCount = employeeIndexToMissingSkillCount;
+    }
+
+    public int[] getEligibleEmployeeIndexes() {
+        return eligibleEmployeeIndexes;
+    }
+
+    public void setEligibleEmployeeIndexes(int[] eligibleEmployeeIndexes) {
+        this.eligibleEmployeeIndexes = eligibleEmployeeIndexes;
+    }
+
+    public int[] getTaskTypeIndexToMissingSkillCount() {
+        return taskTypeIndexToMissingSkillCount;
+    }
+
+    public void setTaskTypeIndexToMissingSkillCount(int[] taskTypeIndexToMissingSkillCount) {
+        this.taskTypeIndexToMissingSkillCount = taskTypeIndexToMissingSkillCount;
+    }
+
     // ************************************************************************
     // Complex methods
     // ************************************************************************
 
+    /**
+     * @param employee never null
+     * @return at least 0
+     */
+    public int getMissingSkillCount(Employee employee) {
+        int employeeIndex = employee.getIndex();
+        if (employeeIndexToMissingSkillCount != null && employeeIndex >= 0
+                && employeeIndex < employeeIndexToMissingSkillCount.length) {
+            return employeeIndexToMissingSkillCount[employeeIndex];
+        }
+        // Not indexed, for example a problem that isn't solved
+        int count = 0;
+        for (Skill skill : requiredSkillSet) {
+            if (!employee.getSkillSet().contains(skill)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param other never null
+     * @return at least 0, the number of required skills that the other task type doesn't require
+     */
+    public int getMissingSkillCount(TaskType other) {
+        int otherIndex = other.getIndex();
+        if (taskTypeIndexToMissingSkillCount != null && otherIndex >= 0
+                && otherIndex < taskTypeIndexToMissingSkillCount.length) {
+            return taskTypeIndexToMissingSkillCount[otherIndex];
+        }
+        int count = 0;
+        for (Skill skill : requiredSkillSet) {
+            if (!other.getRequiredSkillSet().contains(skill)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * An employee is eligible if it has all the required skills,
+     * or if no employee has them all, because then the hard score decides who misses the least.
+     * @param employee never null
+     * @return true if it's not indexed
+     */
+    public boolean isEligible(Employee employee) {
+        if (eligibleEmployeeIndexes == null || eligibleEmployeeIndexes.length == 0) {
+            return true;
+        }
+        int employeeIndex = employee.getIndex();
+        if (employeeIndex < 0) {
+            // Not indexed yet, for example an employee that was just added
+            return getMissingSkillCount(employee) == 0;
+        }
+        return Arrays.binarySearch(eligibleEmployeeIndexes, employeeIndex) >= 0;
+    }
+
     public String getLabel() {
         return title;
     }
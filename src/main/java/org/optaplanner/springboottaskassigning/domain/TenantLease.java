@@ -0,0 +1,72 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.optaplanner.springboottaskassigning.domain;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * The node that solves a tenant, until the lease expires without being renewed.
+ * A tenant without a lease, or with an expired one, can be claimed by any node.
+ */
+@Entity
+public class TenantLease {
+
+    @Id
+    private Long tenantId;
+    private String ownerNodeId;
+    private long expiresAtMillis;
+
+    public TenantLease() {
+    }
+
+    public TenantLease(Long tenantId, String ownerNodeId, long expiresAtMillis) {
+        this.tenantId = tenantId;
+        this.ownerNodeId = ownerNodeId;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    public Long getTenantId() {
+        return tenantId;
+    }
+
+    public void setTenantId(Long tenantId) {
+        this.tenantId = tenantId;
+    }
+
+    public String getOwnerNodeId() {
+        return ownerNodeId;
+    }
+
+    public void setOwnerNodeId(String ownerNodeId) {
+        this.ownerNodeId = ownerNodeId;
+    }
+
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    public void setExpiresAtMillis(long expiresAtMillis) {
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "TenantLease-" + tenantId + " (" + ownerNodeId + ")";
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.springboottaskassigning.domain.solver;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+import org.optaplanner.core.impl.solver.ProblemFactChange;
+import org.optaplanner.springboottaskassigning.domain.Employee;
+import org.optaplanner.springboottaskassigning.domain.Skill;
+import org.optaplanner.springboottaskassigning.domain.TaskAssigningSolution;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Adds an employee without tasks. Does nothing if an employee with the same id already exists.
+ */
+public class AddEmployeeProblemFactChange implements ProblemFactChange<TaskAssigningSolution> {
+
+    private static final Logger logger = LoggerFactory.getLogger(AddEmployeeProblemFactChange.class);
+
+    private final Employee employee;
+
+    /**
+     * @param employee never null, its skills only need an id, it's never added itself
+     */
+    public AddEmployeeProblemFactChange(Employee employee) {
+        this.employee = employee;
+    }
+
+    @Override
+    public void doChange(ScoreDirector<TaskAssigningSolution> scoreDirector) {
+        if (scoreDirector.lookUpWorkingObjectOrReturnNull(employee) != null) {
+            return;
+        }
+        Employee workingEmployee = new Employee(employee.getId(), employee.getTenantId(), employee.getFullName());
+        Set<Skill> workingSkillSet = new LinkedHashSet<>(employee.getSkillSet().size());
+        for (Skill skill : employee.getSkillSet()) {
+            Skill workingSkill = scoreDirector.lookUpWorkingObjectOrReturnNull(skill);
+            if (workingSkill == null) {
+                logger.warn("Employee ({}) is added without skill ({}) because it does not exist.",
+                        employee.getId(), skill.getId());
+            } else {
+                workingSkillSet.add(workingSkill);
+            }
+        }
+        workingEmployee.setSkillSet(workingSkillSet);
+        workingEmployee.setCustomerIdToAffinityMap(new LinkedHashMap<>(employee.getCustomerIdToAffinityMap()));
+        TaskAssigningSolution solution = scoreDirector.getWorkingSolution();
+        // Shallow copy, so the best solution clones don't change too
+        List<Employee> employeeList = new ArrayList<>(solution.getEmployeeList());
+        scoreDirector.beforeProblemFactAdded(workingEmployee);
+        employeeList.add(workingEmployee);
+        solution.setEmployeeList(employeeList);
+        solution.buildIndex();
+        scoreDirector.afterProblemFactAdded(workingEmployee);
+        scoreDirector.triggerVariableListeners();
+    }
+}
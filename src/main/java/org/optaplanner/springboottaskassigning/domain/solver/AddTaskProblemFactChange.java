@@ -0,0 +1,70 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.springboottaskassigning.domain.solver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+import org.optaplanner.core.impl.solver.ProblemFactChange;
+import org.optaplanner.springboottaskassigning.domain.Customer;
+import org.optaplanner.springboottaskassigning.domain.Task;
+import org.optaplanner.springboottaskassigning.domain.TaskAssigningSolution;
+import org.optaplanner.springboottaskassigning.domain.TaskType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Adds an unassigned task. Does nothing if a task with the same id already exists.
+ */
+public class AddTaskProblemFactChange implements ProblemFactChange<TaskAssigningSolution> {
+
+    private static final Logger logger = LoggerFactory.getLogger(AddTaskProblemFactChange.class);
+
+    private final Task task;
+
+    /**
+     * @param task never null, its taskType and customer only need an id, it's never added itself
+     */
+    public AddTaskProblemFactChange(Task task) {
+        this.task = task;
+    }
+
+    @Override
+    public void doChange(ScoreDirector<TaskAssigningSolution> scoreDirector) {
+        if (scoreDirector.lookUpWorkingObjectOrReturnNull(task) != null) {
+            return;
+        }
+        TaskType workingTaskType = scoreDirector.lookUpWorkingObjectOrReturnNull(task.getTaskType());
+        Customer workingCustomer = scoreDirector.lookUpWorkingObjectOrReturnNull(task.getCustomer());
+        if (workingTaskType == null || workingCustomer == null) {
+            logger.warn("Task ({}) is not added because its taskType or customer does not exist.", task.getId());
+            return;
+        }
+        // A new instance every time, so the change can be done again by another solver
+        Task workingTask = new Task(task.getId(), task.getTenantId(), workingTaskType, task.getIndexInTaskType(),
+                workingCustomer, task.getReadyTime(), task.getPriority());
+        TaskAssigningSolution solution = scoreDirector.getWorkingSolution();
+        // Shallow copy, so the best solution clones don't change too
+        List<Task> taskList = new ArrayList<>(solution.getTaskList());
+        scoreDirector.beforeEntityAdded(workingTask);
+        taskList.add(workingTask);
+        solution.setTaskList(taskList);
+        scoreDirector.afterEntityAdded(workingTask);
+        scoreDirector.triggerVariableListeners();
+    }
+}
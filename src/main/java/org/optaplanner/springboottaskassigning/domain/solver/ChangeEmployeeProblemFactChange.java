@@ -0,0 +1,83 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.springboottaskassigning.domain.solver;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+import org.optaplanner.core.impl.solver.ProblemFactChange;
+import org.optaplanner.springboottaskassigning.domain.Employee;
+import org.optaplanner.springboottaskassigning.domain.Skill;
+import org.optaplanner.springboottaskassigning.domain.TaskAssigningSolution;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Changes the fullName and/or skills of an employee. Does nothing if the employee does not exist.
+ */
+public class ChangeEmployeeProblemFactChange implements ProblemFactChange<TaskAssigningSolution> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeEmployeeProblemFactChange.class);
+
+    private final long employeeId;
+    private final String fullName;
+    private final Set<Long> skillIdSet;
+
+    /**
+     * @param fullName null to keep it
+     * @param skillIdSet null to keep the skills
+     */
+    public ChangeEmployeeProblemFactChange(long employeeId, String fullName, Set<Long> skillIdSet) {
+        this.employeeId = employeeId;
+        this.fullName = fullName;
+        this.skillIdSet = skillIdSet;
+    }
+
+    @Override
+    public void doChange(ScoreDirector<TaskAssigningSolution> scoreDirector) {
+        Employee employee = new Employee();
+        employee.setId(employeeId);
+        Employee workingEmployee = scoreDirector.lookUpWorkingObjectOrReturnNull(employee);
+        if (workingEmployee == null) {
+            return;
+        }
+        scoreDirector.beforeProblemPropertyChanged(workingEmployee);
+        if (fullName != null) {
+            workingEmployee.setFullName(fullName);
+        }
+        if (skillIdSet != null) {
+            // A new set, because the best solution clones share the old one
+            Set<Skill> workingSkillSet = new LinkedHashSet<>(skillIdSet.size());
+            for (Long skillId : skillIdSet) {
+                Skill skill = new Skill();
+                skill.setId(skillId);
+                Skill workingSkill = scoreDirector.lookUpWorkingObjectOrReturnNull(skill);
+                if (workingSkill == null) {
+                    logger.warn("Employee ({}) does not get skill ({}) because it does not exist.",
+                            employeeId, skillId);
+                } else {
+                    workingSkillSet.add(workingSkill);
+                }
+            }
+            workingEmployee.setSkillSet(workingSkillSet);
+            scoreDirector.getWorkingSolution().buildIndex();
+        }
+        scoreDirector.afterProblemPropertyChanged(workingEmployee);
+        scoreDirector.triggerVariableListeners();
+    }
+}
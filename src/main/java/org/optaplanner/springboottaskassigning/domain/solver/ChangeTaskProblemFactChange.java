@@ -0,0 +1,81 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.springboottaskassigning.domain.solver;
+
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+import org.optaplanner.core.impl.solver.ProblemFactChange;
+import org.optaplanner.springboottaskassigning.domain.Priority;
+import org.optaplanner.springboottaskassigning.domain.Task;
+import org.optaplanner.springboottaskassigning.domain.TaskAssigningSolution;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Changes the readyTime, priority and/or pinned of a task. Does nothing if the task does not exist.
+ */
+public class ChangeTaskProblemFactChange implements ProblemFactChange<TaskAssigningSolution> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeTaskProblemFactChange.class);
+
+    private final long taskId;
+    private final Integer readyTime;
+    private final Priority priority;
+    private final Boolean pinned;
+
+    /**
+     * @param readyTime null to keep it
+     * @param priority null to keep it
+     * @param pinned null to keep it, only an assigned task can be pinned
+     */
+    public ChangeTaskProblemFactChange(long taskId, Integer readyTime, Priority priority, Boolean pinned) {
+        this.taskId = taskId;
+        this.readyTime = readyTime;
+        this.priority = priority;
+        this.pinned = pinned;
+    }
+
+    @Override
+    public void doChange(ScoreDirector<TaskAssigningSolution> scoreDirector) {
+        Task task = new Task();
+        task.setId(taskId);
+        Task workingTask = scoreDirector.lookUpWorkingObjectOrReturnNull(task);
+        if (workingTask == null) {
+            return;
+        }
+        scoreDirector.beforeProblemPropertyChanged(workingTask);
+        if (readyTime != null) {
+            workingTask.setReadyTime(readyTime);
+        }
+        if (priority != null) {
+            workingTask.setPriority(priority);
+        }
+        if (pinned != null) {
+            if (pinned && workingTask.getPreviousTaskOrEmployee() == null) {
+                logger.warn("Task ({}) is not pinned because it is not assigned.", taskId);
+            } else {
+                workingTask.setPinned(pinned);
+            }
+        }
+        scoreDirector.afterProblemPropertyChanged(workingTask);
+        if ((readyTime != null || priority != null) && workingTask.getPreviousTaskOrEmployee() != null) {
+            // The start and end times and the chain aggregates are shadow variables, so only their listeners update them
+            scoreDirector.beforeVariableChanged(workingTask, "previousTaskOrEmployee");
+            scoreDirector.afterVariableChanged(workingTask, "previousTaskOrEmployee");
+        }
+        scoreDirector.triggerVariableListeners();
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.springboottaskassigning.domain.solver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+import org.optaplanner.core.impl.solver.ProblemFactChange;
+import org.optaplanner.springboottaskassigning.domain.Employee;
+import org.optaplanner.springboottaskassigning.domain.Task;
+import org.optaplanner.springboottaskassigning.domain.TaskAssigningSolution;
+
+/**
+ * Removes an employee and unassigns all of its tasks, so the solver assigns them to the others.
+ * Does nothing if the employee does not exist.
+ */
+public class RemoveEmployeeProblemFactChange implements ProblemFactChange<TaskAssigningSolution> {
+
+    private final long employeeId;
+
+    public RemoveEmployeeProblemFactChange(long employeeId) {
+        this.employeeId = employeeId;
+    }
+
+    @Override
+    public void doChange(ScoreDirector<TaskAssigningSolution> scoreDirector) {
+        Employee employee = new Employee();
+        employee.setId(employeeId);
+        Employee workingEmployee = scoreDirector.lookUpWorkingObjectOrReturnNull(employee);
+        if (workingEmployee == null) {
+            return;
+        }
+        // From the tail of the chain to the head, so every task is the last one of the chain when it's unassigned
+        List<Task> chainTaskList = new ArrayList<>();
+        for (Task task = workingEmployee.getNextTask(); task != null; task = task.getNextTask()) {
+            chainTaskList.add(task);
+        }
+        for (int i = chainTaskList.size() - 1; i >= 0; i--) {
+            Task task = chainTaskList.get(i);
+            if (task.isPinned()) {
+                // An unassigned task can't stay pinned
+                scoreDirector.beforeProblemPropertyChanged(task);
+                task.setPinned(false);
+                scoreDirector.afterProblemPropertyChanged(task);
+            }
+            scoreDirector.beforeVariableChanged(task, "previousTaskOrEmployee");
+            task.setPreviousTaskOrEmployee(null);
+            scoreDirector.afterVariableChanged(task, "previousTaskOrEmployee");
+        }
+        // Before it's removed, so its chain aggregates are empty by then
+        scoreDirector.triggerVariableListeners();
+        TaskAssigningSolution solution = scoreDirector.getWorkingSolution();
+        // Shallow copy, so the best solution clones don't change too
+        List<Employee> employeeList = new ArrayList<>(solution.getEmployeeList());
+        scoreDirector.beforeProblemFactRemoved(workingEmployee);
+        employeeList.remove(workingEmployee);
+        solution.setEmployeeList(employeeList);
+        solution.buildIndex();
+        scoreDirector.afterProblemFactRemoved(workingEmployee);
+        scoreDirector.triggerVariableListeners();
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.springboottaskassigning.domain.solver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+import org.optaplanner.core.impl.solver.ProblemFactChange;
+import org.optaplanner.springboottaskassigning.domain.Task;
+import org.optaplanner.springboottaskassigning.domain.TaskAssigningSolution;
+
+/**
+ * Removes a task and closes the gap it leaves in its chain. Does nothing if the task does not exist.
+ */
+public class RemoveTaskProblemFactChange implements ProblemFactChange<TaskAssigningSolution> {
+
+    private final long taskId;
+
+    public RemoveTaskProblemFactChange(long taskId) {
+        this.taskId = taskId;
+    }
+
+    @Override
+    public void doChange(ScoreDirector<TaskAssigningSolution> scoreDirector) {
+        Task task = new Task();
+        task.setId(taskId);
+        Task workingTask = scoreDirector.lookUpWorkingObjectOrReturnNull(task);
+        if (workingTask == null) {
+            return;
+        }
+        Task nextTask = workingTask.getNextTask();
+        if (nextTask != null) {
+            scoreDirector.beforeVariableChanged(nextTask, "previousTaskOrEmployee");
+            nextTask.setPreviousTaskOrEmployee(workingTask.getPreviousTaskOrEmployee());
+            scoreDirector.afterVariableChanged(nextTask, "previousTaskOrEmployee");
+        }
+        TaskAssigningSolution solution = scoreDirector.getWorkingSolution();
+        // Shallow copy, so the best solution clones don't change too
+        List<Task> taskList = new ArrayList<>(solution.getTaskList());
+        scoreDirector.beforeEntityRemoved(workingTask);
+        taskList.remove(workingTask);
+        solution.setTaskList(taskList);
+        scoreDirector.afterEntityRemoved(workingTask);
+        scoreDirector.triggerVariableListeners();
+    }
+}
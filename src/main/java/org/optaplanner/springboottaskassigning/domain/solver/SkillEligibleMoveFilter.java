@@ -0,0 +1,63 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.springboottaskassigning.domain.solver;
+
+import org.optaplanner.core.impl.heuristic.move.Move;
+import org.optaplanner.core.impl.heuristic.selector.common.decorator.SelectionFilter;
+import org.optaplanner.core.impl.heuristic.selector.move.generic.ChangeMove;
+import org.optaplanner.core.impl.heuristic.selector.move.generic.SwapMove;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+import org.optaplanner.springboottaskassigning.domain.Employee;
+import org.optaplanner.springboottaskassigning.domain.Task;
+import org.optaplanner.springboottaskassigning.domain.TaskAssigningSolution;
+import org.optaplanner.springboottaskassigning.domain.TaskOrEmployee;
+import org.optaplanner.springboottaskassigning.domain.TaskType;
+
+/**
+ * Skips the change and swap moves that put a task in the chain of an employee who lacks a required skill,
+ * see {@link TaskType#isEligible(Employee)}.
+ * Those moves only make the hard score worse, unless no employee has all the skills.
+ * Other moves are always accepted.
+ */
+public class SkillEligibleMoveFilter implements SelectionFilter<TaskAssigningSolution, Move<TaskAssigningSolution>> {
+
+    @Override
+    public boolean accept(ScoreDirector<TaskAssigningSolution> scoreDirector, Move<TaskAssigningSolution> move) {
+        if (move instanceof ChangeMove) {
+            ChangeMove<TaskAssigningSolution> changeMove = (ChangeMove<TaskAssigningSolution>) move;
+            Task task = (Task) changeMove.getEntity();
+            TaskOrEmployee toPreviousTaskOrEmployee = (TaskOrEmployee) changeMove.getToPlanningValue();
+            return isEligible(task, toPreviousTaskOrEmployee.getEmployee());
+        } else if (move instanceof SwapMove) {
+            SwapMove<TaskAssigningSolution> swapMove = (SwapMove<TaskAssigningSolution>) move;
+            Task leftTask = (Task) swapMove.getLeftEntity();
+            Task rightTask = (Task) swapMove.getRightEntity();
+            Employee leftEmployee = leftTask.getEmployee();
+            Employee rightEmployee = rightTask.getEmployee();
+            if (leftEmployee == rightEmployee) {
+                return true;
+            }
+            return isEligible(leftTask, rightEmployee) && isEligible(rightTask, leftEmployee);
+        }
+        return true;
+    }
+
+    private static boolean isEligible(Task task, Employee employee) {
+        // Null during construction, when the destination isn't assigned yet itself
+        return employee == null || task.getTaskType().isEligible(employee);
+    }
+}
@@ -16,8 +16,6 @@
 
 package org.optaplanner.springboottaskassigning.domain.solver;
 
-import java.util.Objects;
-
 import org.optaplanner.core.impl.domain.variable.listener.VariableListener;
 import org.optaplanner.core.impl.score.director.ScoreDirector;
 import org.optaplanner.springboottaskassigning.domain.Task;
@@ -55,36 +53,40 @@ public class StartAndEndTimeUpdatingVariableListener implements VariableListener
         // Do nothing
     }
 
+    /**
+     * Walks down the chain until a task keeps its start and end time.
+     * Primitive only, so it allocates nothing per task.
+     */
     protected void updateStartAndEndTime(ScoreDirector scoreDirector, Task sourceTask) {
         TaskOrEmployee previous = sourceTask.getPreviousTaskOrEmployee();
         Task shadowTask = sourceTask;
-        Integer previousEndTime = (previous == null ? null : previous.getEndTime());
-        Integer startTime = calculateStartTime(shadowTask, previousEndTime);
-        Integer endTime = calculateEndTime(shadowTask, startTime);
-        while (shadowTask != null && !Objects.equals(shadowTask.getStartTime(), startTime)) {
+        int startTime = previous == null ? Task.UNASSIGNED_TIME : calculateStartTime(shadowTask, previous.getEndTime());
+        int endTime = calculateEndTime(shadowTask, startTime);
+        // The end time too, because a task that changed employee can start at the same time with another duration
+        while (shadowTask != null
+                && (shadowTask.getStartTimeValue() != startTime || shadowTask.getEndTimeValue() != endTime)) {
             scoreDirector.beforeVariableChanged(shadowTask, "startTime");
-            shadowTask.setStartTime(startTime);
+            shadowTask.setStartTimeValue(startTime);
             scoreDirector.afterVariableChanged(shadowTask, "startTime");
 
             scoreDirector.beforeVariableChanged(shadowTask, "endTime");
-            shadowTask.setEndTime(endTime);
+            shadowTask.setEndTimeValue(endTime);
             scoreDirector.afterVariableChanged(shadowTask, "endTime");
 
-            previousEndTime = shadowTask.getEndTime();
             shadowTask = shadowTask.getNextTask();
-            startTime = calculateStartTime(shadowTask, previousEndTime);
-            endTime = calculateEndTime(shadowTask, startTime);
+            if (shadowTask != null) {
+                startTime = endTime == Task.UNASSIGNED_TIME ? Task.UNASSIGNED_TIME
+                        : calculateStartTime(shadowTask, endTime);
+                endTime = calculateEndTime(shadowTask, startTime);
+            }
         }
     }
 
-    private Integer calculateStartTime(Task task, Integer previousEndTime) {
-        if (task == null || previousEndTime == null) {
-            return null;
-        }
+    private int calculateStartTime(Task task, int previousEndTime) {
         return Math.max(task.getReadyTime(), previousEndTime);
     }
 
-    private Integer calculateEndTime(Task shadowTask, Integer startTime) {
-        return startTime == null || shadowTask == null ? 0 : startTime + shadowTask.getDuration();
+    private int calculateEndTime(Task task, int startTime) {
+        return startTime == Task.UNASSIGNED_TIME ? Task.UNASSIGNED_TIME : startTime + task.getDuration();
     }
 }
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.springboottaskassigning.domain.solver;
+
+import org.optaplanner.core.api.score.buildin.bendable.BendableScore;
+import org.optaplanner.core.impl.score.director.incremental.IncrementalScoreCalculator;
+import org.optaplanner.springboottaskassigning.domain.Employee;
+import org.optaplanner.springboottaskassigning.domain.Task;
+import org.optaplanner.springboottaskassigning.domain.TaskAssigningSolution;
+
+/**
+ * Calculates the same score as taskAssigningScoreRules.drl, without the Drools overhead.
+ * Every change retracts the old contribution of that task or employee and inserts the new one.
+ * The hard level sums the missing skills of every task,
+ * the soft levels sum the chain aggregates of every employee, so a move costs only the employees it changed.
+ */
+public class TaskAssigningIncrementalScoreCalculator implements IncrementalScoreCalculator<TaskAssigningSolution> {
+
+    private int hardScore;
+    private int criticalEndTimeScore;
+    private int makespanScore;
+    private int majorEndTimeScore;
+    private int minorEndTimeScore;
+
+    @Override
+    public void resetWorkingSolution(TaskAssigningSolution solution) {
+        hardScore = 0;
+        criticalEndTimeScore = 0;
+        makespanScore = 0;
+        majorEndTimeScore = 0;
+        minorEndTimeScore = 0;
+        for (Task task : solution.getTaskList()) {
+            insertTask(task);
+        }
+        for (Employee employee : solution.getEmployeeList()) {
+            insertEmployee(employee);
+        }
+    }
+
+    @Override
+    public void beforeEntityAdded(Object entity) {
+        // Do nothing
+    }
+
+    @Override
+    public void afterEntityAdded(Object entity) {
+        if (entity instanceof Task) {
+            insertTask((Task) entity);
+        }
+    }
+
+    @Override
+    public void beforeVariableChanged(Object entity, String variableName) {
+        if (entity instanceof Task) {
+            retractTask((Task) entity);
+        } else if (entity instanceof Employee) {
+            retractEmployee((Employee) entity);
+        }
+    }
+
+    @Override
+    public void afterVariableChanged(Object entity, String variableName) {
+        if (entity instanceof Task) {
+            insertTask((Task) entity);
+        } else if (entity instanceof Employee) {
+            insertEmployee((Employee) entity);
+        }
+    }
+
+    @Override
+    public void beforeEntityRemoved(Object entity) {
+        if (entity instanceof Task) {
+            retractTask((Task) entity);
+        }
+    }
+
+    @Override
+    public void afterEntityRemoved(Object entity) {
+        // Do nothing
+    }
+
+    private void insertTask(Task task) {
+        hardScore -= task.getMissingSkillCount();
+    }
+
+    private void retractTask(Task task) {
+        hardScore += task.getMissingSkillCount();
+    }
+
+    private void insertEmployee(Employee employee) {
+        addEmployee(employee, 1);
+    }
+
+    private void retractEmployee(Employee employee) {
+        addEmployee(employee, -1);
+    }
+
+    private void addEmployee(Employee employee, int sign) {
+        criticalEndTimeScore -= sign * employee.getCriticalEndTimeSum();
+        // Fairness and load balancing trick (see docs): squared to assure correctness in corner cases
+        int lastEndTime = employee.getLastEndTime();
+        makespanScore -= sign * (lastEndTime * lastEndTime);
+        majorEndTimeScore -= sign * employee.getMajorEndTimeSum();
+        minorEndTimeScore -= sign * employee.getMinorEndTimeSum();
+    }
+
+    @Override
+    public BendableScore calculateScore() {
+        return BendableScore.of(new int[]{hardScore},
+                new int[]{criticalEndTimeScore, makespanScore, majorEndTimeScore, minorEndTimeScore});
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.optaplanner.springboottaskassigning.domain.solver;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.optaplanner.core.impl.partitionedsearch.partitioner.SolutionPartitioner;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+import org.optaplanner.springboottaskassigning.domain.Affinity;
+import org.optaplanner.springboottaskassigning.domain.Employee;
+import org.optaplanner.springboottaskassigning.domain.Skill;
+import org.optaplanner.springboottaskassigning.domain.Task;
+import org.optaplanner.springboottaskassigning.domain.TaskAssigningSolution;
+import org.optaplanner.springboottaskassigning.domain.TaskOrEmployee;
+
+/**
+ * Splits the employees into skill clusters and gives every cluster the tasks it's best skilled for,
+ * so the partitions rarely need a move across partitions.
+ * Employees with the same skills end up in the same partition,
+ * unless there are fewer different skill sets than partitions.
+ * An unassigned task goes to the partition that covers most of its required skills,
+ * then to the one with the most employees with an affinity for its customer,
+ * while every partition gets a share of the tasks in proportion to its number of employees.
+ * An assigned task stays with its employee, so no chain is ever split.
+ */
+public class TaskAssigningSolutionPartitioner implements SolutionPartitioner<TaskAssigningSolution> {
+
+    public static final int DEFAULT_MINIMUM_TASK_COUNT_PER_PART = 500;
+
+    /**
+     * Null to make a partition for every runnable part thread.
+     */
+    private Integer partCount = null;
+    /**
+     * Smaller problems get fewer partitions, a problem with less than twice this number isn't split.
+     */
+    private int minimumTaskCountPerPart = DEFAULT_MINIMUM_TASK_COUNT_PER_PART;
+
+    public void setPartCount(int partCount) {
+        this.partCount = partCount;
+    }
+
+    public void setMinimumTaskCountPerPart(int minimumTaskCountPerPart) {
+        this.minimumTaskCountPerPart = minimumTaskCountPerPart;
+    }
+
+    @Override
+    public List<TaskAssigningSolution> splitWorkingSolution(ScoreDirector<TaskAssigningSolution> scoreDirector,
+                                                            Integer runnablePartThreadLimit) {
+        TaskAssigningSolution originalSolution = scoreDirector.getWorkingSolution();
+        List<Employee> originalEmployeeList = originalSolution.getEmployeeList();
+        List<Task> originalTaskList = originalSolution.getTaskList();
+        int resolvedPartCount = resolvePartCount(runnablePartThreadLimit, originalEmployeeList.size(),
+                originalTaskList.size());
+
+        // Sorted by skill set, so the employees with the same skills are contiguous
+        List<Employee> sortedEmployeeList = new ArrayList<>(originalEmployeeList);
+        sortedEmployeeList.sort(Comparator.comparing(TaskAssigningSolutionPartitioner::getSkillKey)
+                .thenComparing(Employee::getId));
+        List<List<Employee>> skillGroupList = groupBySkills(sortedEmployeeList, resolvedPartCount);
+        List<Part> partList = new ArrayList<>(resolvedPartCount);
+        Map<Employee, Part> employeeToPartMap = new IdentityHashMap<>(sortedEmployeeList.size());
+        List<Employee> partEmployeeList = new ArrayList<>();
+        int cutEmployeeCount = 0;
+        for (int groupIndex = 0; groupIndex < skillGroupList.size(); groupIndex++) {
+            List<Employee> skillGroup = skillGroupList.get(groupIndex);
+            if (!partEmployeeList.isEmpty() && partList.size() < resolvedPartCount - 1) {
+                int remainingGroupCount = skillGroupList.size() - groupIndex;
+                int remainingPartCount = resolvedPartCount - partList.size() - 1;
+                int targetEmployeeCount = (partList.size() + 1) * sortedEmployeeList.size() / resolvedPartCount;
+                int employeeCount = cutEmployeeCount + partEmployeeList.size();
+                // Cut before this group if that's closer to the target size than after it
+                if (remainingGroupCount <= remainingPartCount
+                        || 2 * employeeCount + skillGroup.size() >= 2 * targetEmployeeCount) {
+                    partList.add(createPart(partEmployeeList, originalTaskList.size(), sortedEmployeeList.size(),
+                            employeeToPartMap));
+                    cutEmployeeCount = employeeCount;
+                    partEmployeeList = new ArrayList<>();
+                }
+            }
+            partEmployeeList.addAll(skillGroup);
+        }
+        partList.add(createPart(partEmployeeList, originalTaskList.size(), sortedEmployeeList.size(),
+                employeeToPartMap));
+
+        List<Task> unassignedTaskList = new ArrayList<>(originalTaskList.size());
+        for (Task task : originalTaskList) {
+            if (task.getEmployee() != null) {
+                employeeToPartMap.get(task.getEmployee()).taskList.add(task);
+            } else {
+                unassignedTaskList.add(task);
+            }
+        }
+        // Grouped by task type and customer, so similar tasks fill the same partition
+        unassignedTaskList.sort(Comparator.comparing((Task task) -> task.getTaskType().getId())
+                .thenComparing(task -> task.getCustomer().getId())
+                .thenComparing(Task::getId));
+        for (Task task : unassignedTaskList) {
+            pickPart(partList, task).taskList.add(task);
+        }
+
+        List<TaskAssigningSolution> partSolutionList = new ArrayList<>(partList.size());
+        for (Part part : partList) {
+            partSolutionList.add(part.createPartSolution(originalSolution));
+        }
+        return partSolutionList;
+    }
+
+    private int resolvePartCount(Integer runnablePartThreadLimit, int employeeCount, int taskCount) {
+        int resolvedPartCount;
+        if (partCount != null) {
+            resolvedPartCount = partCount;
+        } else if (runnablePartThreadLimit != null) {
+            resolvedPartCount = runnablePartThreadLimit;
+        } else {
+            resolvedPartCount = Runtime.getRuntime().availableProcessors();
+        }
+        resolvedPartCount = Math.min(resolvedPartCount, taskCount / Math.max(1, minimumTaskCountPerPart));
+        // Every partition needs an employee to assign its tasks to
+        return Math.max(1, Math.min(resolvedPartCount, employeeCount));
+    }
+
+    /**
+     * @param sortedEmployeeList sorted by skill key
+     * @return at least partCount groups, the largest groups are halved if there are fewer skill sets
+     */
+    private static List<List<Employee>> groupBySkills(List<Employee> sortedEmployeeList, int partCount) {
+        List<List<Employee>> skillGroupList = new ArrayList<>();
+        String previousSkillKey = null;
+        for (Employee employee : sortedEmployeeList) {
+            String skillKey = getSkillKey(employee);
+            if (!skillKey.equals(previousSkillKey)) {
+                skillGroupList.add(new ArrayList<>());
+                previousSkillKey = skillKey;
+            }
+            skillGroupList.get(skillGroupList.size() - 1).add(employee);
+        }
+        while (skillGroupList.size() < partCount) {
+            int largestGroupIndex = 0;
+            for (int groupIndex = 1; groupIndex < skillGroupList.size(); groupIndex++) {
+                if (skillGroupList.get(groupIndex).size() > skillGroupList.get(largestGroupIndex).size()) {
+                    largestGroupIndex = groupIndex;
+                }
+            }
+            List<Employee> largestGroup = skillGroupList.get(largestGroupIndex);
+            int halfSize = largestGroup.size() / 2;
+            skillGroupList.set(largestGroupIndex, new ArrayList<>(largestGroup.subList(0, halfSize)));
+            skillGroupList.add(largestGroupIndex + 1,
+                    new ArrayList<>(largestGroup.subList(halfSize, largestGroup.size())));
+        }
+        return skillGroupList;
+    }
+
+    /**
+     * @return a partition with a share of the tasks in proportion to its number of employees
+     */
+    private static Part createPart(List<Employee> partEmployeeList, int taskCount, int employeeCount,
+                                   Map<Employee, Part> employeeToPartMap) {
+        Part part = new Part(partEmployeeList,
+                (taskCount * partEmployeeList.size() + employeeCount - 1) / employeeCount);
+        for (Employee employee : partEmployeeList) {
+            employeeToPartMap.put(employee, part);
+        }
+        return part;
+    }
+
+    private static String getSkillKey(Employee employee) {
+        StringBuilder skillKey = new StringBuilder();
+        employee.getSkillSet().stream().map(Skill::getId).sorted()
+                .forEach(skillId -> skillKey.append(skillId).append(','));
+        return skillKey.toString();
+    }
+
+    /**
+     * @return the full partition that fits best, if they're all full
+     */
+    private static Part pickPart(List<Part> partList, Task task) {
+        Part bestPart = null;
+        boolean bestPartFull = true;
+        int bestSkillCoverage = -1;
+        int bestAffinityCount = -1;
+        for (Part part : partList) {
+            boolean partFull = part.taskList.size() >= part.taskCapacity;
+            if (partFull && !bestPartFull) {
+                continue;
+            }
+            int skillCoverage = part.countCoveredSkills(task.getTaskType().getRequiredSkillSet());
+            int affinityCount = part.countAffinities(task.getCustomer().getId());
+            if (bestPart == null || (!partFull && bestPartFull)
+                    || skillCoverage > bestSkillCoverage
+                    || (skillCoverage == bestSkillCoverage && affinityCount > bestAffinityCount)) {
+                bestPart = part;
+                bestPartFull = partFull;
+                bestSkillCoverage = skillCoverage;
+                bestAffinityCount = affinityCount;
+            }
+        }
+        return bestPart;
+    }
+
+    private static class Part {
+
+        private final List<Employee> employeeList;
+        private final int taskCapacity;
+        private final List<Task> taskList = new ArrayList<>();
+        private final Map<Skill, Integer> skillToEmployeeCountMap = new HashMap<>();
+        private final Map<Long, Integer> customerIdToAffinityCountMap = new HashMap<>();
+
+        private Part(List<Employee> employeeList, int taskCapacity) {
+            this.employeeList = employeeList;
+            this.taskCapacity = taskCapacity;
+            for (Employee employee : employeeList) {
+                for (Skill skill : employee.getSkillSet()) {
+                    skillToEmployeeCountMap.merge(skill, 1, Integer::sum);
+                }
+                employee.getCustomerIdToAffinityMap().forEach((customerId, affinity) -> {
+                    if (affinity != Affinity.NONE) {
+                        customerIdToAffinityCountMap.merge(customerId, 1, Integer::sum);
+                    }
+                });
+            }
+        }
+
+        private int countCoveredSkills(Set<Skill> requiredSkillSet) {
+            int count = 0;
+            for (Skill skill : requiredSkillSet) {
+                if (skillToEmployeeCountMap.containsKey(skill)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        private int countAffinities(Long customerId) {
+            return customerIdToAffinityCountMap.getOrDefault(customerId, 0);
+        }
+
+        /**
+         * Partition clones the employees and tasks, the other problem facts are shared.
+         */
+        private TaskAssigningSolution createPartSolution(TaskAssigningSolution originalSolution) {
+            Map<TaskOrEmployee, TaskOrEmployee> originalToCloneMap =
+                    new IdentityHashMap<>(employeeList.size() + taskList.size());
+            List<Employee> employeeCloneList = new ArrayList<>(employeeList.size());
+            for (Employee employee : employeeList) {
+                Employee employeeClone = new Employee(employee.getId(), employee.getTenantId(),
+                        employee.getFullName());
+                employeeClone.setSkillSet(employee.getSkillSet());
+                employeeClone.setCustomerIdToAffinityMap(employee.getCustomerIdToAffinityMap());
+                // The task types and customers of every part share the index of the original solution
+                employeeClone.setIndex(employee.getIndex());
+                employeeClone.setSkillBits(employee.getSkillBits());
+                employeeClone.setCustomerIndexToAffinity(employee.getCustomerIndexToAffinity());
+                originalToCloneMap.put(employee, employeeClone);
+                employeeCloneList.add(employeeClone);
+            }
+            List<Task> taskCloneList = new ArrayList<>(taskList.size());
+            for (Task task : taskList) {
+                Task taskClone = new Task(task.getId(), task.getTenantId(), task.getTaskType(),
+                        task.getIndexInTaskType(), task.getCustomer(), task.getReadyTime(), task.getPriority());
+                taskClone.setPinned(task.isPinned());
+                originalToCloneMap.put(task, taskClone);
+                taskCloneList.add(taskClone);
+            }
+            for (Task task : taskList) {
+                Task taskClone = (Task) originalToCloneMap.get(task);
+                TaskOrEmployee previousTaskOrEmployee = task.getPreviousTaskOrEmployee();
+                if (previousTaskOrEmployee != null) {
+                    taskClone.setPreviousTaskOrEmployee(originalToCloneMap.get(previousTaskOrEmployee));
+                    taskClone.setEmployee((Employee) originalToCloneMap.get(task.getEmployee()));
+                    taskClone.setStartTimeValue(task.getStartTimeValue());
+                    taskClone.setEndTimeValue(task.getEndTimeValue());
+                    originalToCloneMap.get(previousTaskOrEmployee).setNextTask(taskClone);
+                }
+            }
+            // Setters instead of the constructor, because a problem that was never saved has no id
+            TaskAssigningSolution partSolution = new TaskAssigningSolution();
+            partSolution.setId(originalSolution.getId());
+            partSolution.setTenantId(originalSolution.getTenantId());
+            partSolution.setSkillList(originalSolution.getSkillList());
+            partSolution.setTaskTypeList(originalSolution.getTaskTypeList());
+            partSolution.setCustomerList(originalSolution.getCustomerList());
+            partSolution.setEmployeeList(employeeCloneList);
+            partSolution.setTaskList(taskCloneList);
+            partSolution.setFrozenCutoff(originalSolution.getFrozenCutoff());
+            partSolution.resetChainAggregates();
+            return partSolution;
+        }
+    }
+}
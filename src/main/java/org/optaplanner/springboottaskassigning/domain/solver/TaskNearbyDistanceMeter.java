@@ -0,0 +1,57 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.springboottaskassigning.domain.solver;
+
+import org.optaplanner.core.impl.heuristic.selector.common.nearby.NearbyDistanceMeter;
+import org.optaplanner.springboottaskassigning.domain.Affinity;
+import org.optaplanner.springboottaskassigning.domain.Customer;
+import org.optaplanner.springboottaskassigning.domain.Employee;
+import org.optaplanner.springboottaskassigning.domain.Task;
+import org.optaplanner.springboottaskassigning.domain.TaskAssigningSolution;
+import org.optaplanner.springboottaskassigning.domain.TaskOrEmployee;
+import org.optaplanner.springboottaskassigning.domain.TaskType;
+
+/**
+ * Ranks the destinations of a task by missing skills first and by affinity with its customer second.
+ * An employee is near if it has the required skills and a high affinity with the customer.
+ * A task is near if its task type requires the same skills and it's for the same customer,
+ * because its employee is then likely to have those skills and that affinity too.
+ * Only uses what doesn't change during solving, so the nearby distance matrix stays valid,
+ * and the lookups of {@link TaskAssigningSolution#buildIndex()}, so building it is cheap for big tenants.
+ */
+public class TaskNearbyDistanceMeter implements NearbyDistanceMeter<Task, TaskOrEmployee> {
+
+    private static final int MAXIMUM_AFFINITY_DISTANCE = Affinity.NONE.getDurationMultiplier() - 1;
+
+    @Override
+    public double getNearbyDistance(Task origin, TaskOrEmployee destination) {
+        TaskType taskType = origin.getTaskType();
+        Customer customer = origin.getCustomer();
+        int skillDistance;
+        int affinityDistance;
+        if (destination instanceof Employee) {
+            Employee employee = (Employee) destination;
+            skillDistance = taskType.getMissingSkillCount(employee);
+            affinityDistance = employee.getAffinity(customer).getDurationMultiplier() - 1;
+        } else {
+            Task task = (Task) destination;
+            skillDistance = taskType.getMissingSkillCount(task.getTaskType());
+            affinityDistance = task.getCustomer() == customer ? 0 : MAXIMUM_AFFINITY_DISTANCE;
+        }
+        return skillDistance * (MAXIMUM_AFFINITY_DISTANCE + 1) + affinityDistance;
+    }
+}
@@ -16,9 +16,50 @@
 
 package org.optaplanner.springboottaskassigning.repository;
 
+import java.util.List;
+import java.util.Optional;
+
 import org.optaplanner.springboottaskassigning.domain.TaskAssigningSolution;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface TaskAssigningSolutionRepository extends JpaRepository<TaskAssigningSolution, Long> {
     boolean existsByTenantId(Long tenantId);
+
+    /**
+     * A tenant that was evicted and submitted again has several solutions, the newest one counts.
+     */
+    Optional<TaskAssigningSolution> findFirstByTenantIdOrderByIdDesc(Long tenantId);
+
+    /**
+     * @return the tenants whose solution didn't finish solving, so they still need a node to solve them
+     */
+    @Query("select distinct s.tenantId from TaskAssigningSolution s where s.solverStatus is null")
+    List<Long> findUnfinishedTenantIds();
+
+    @Query("select distinct s.tenantId from TaskAssigningSolution s")
+    List<Long> findTenantIds();
+
+    /**
+     * Only the ids, so the solutions can be read one at a time.
+     * @param afterId only bigger ids, so the next page doesn't shift when solutions are deleted meanwhile
+     * @return the solutions that a shutdown interrupted, by id
+     */
+    @Query("select s.id from TaskAssigningSolution s where s.id > :afterId and s.solverStatus is null"
+            + " and s.interruptedAtMillis is not null order by s.id")
+    List<Long> findInterruptedIds(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * @param afterId only bigger ids, so the next page doesn't shift when solutions are deleted meanwhile
+     * @param finishedIncluded false to skip the solutions that finished solving
+     * @return the solutions that no shutdown interrupted, by id
+     */
+    @Query("select s.id from TaskAssigningSolution s where s.id > :afterId and s.interruptedAtMillis is null"
+            + " and (s.solverStatus is null or :finishedIncluded = true) order by s.id")
+    List<Long> findNotInterruptedIds(@Param("afterId") Long afterId,
+                                     @Param("finishedIncluded") boolean finishedIncluded, Pageable pageable);
+
+    long countBySolverStatusIsNotNull();
 }
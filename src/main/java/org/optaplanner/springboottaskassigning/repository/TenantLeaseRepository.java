@@ -0,0 +1,80 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.optaplanner.springboottaskassigning.repository;
+
+import java.util.List;
+
+import org.optaplanner.springboottaskassigning.domain.TenantLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+/**
+ * Every lease change is a single conditional statement, so 2 nodes never both win the same tenant.
+ */
+public interface TenantLeaseRepository extends JpaRepository<TenantLease, Long> {
+
+    /**
+     * @return 1 if the lease was free, expired or already owned by that node, 0 if it doesn't exist
+     * or another node owns it
+     */
+    @Modifying
+    @Query("update TenantLease l set l.ownerNodeId = :nodeId, l.expiresAtMillis = :expiresAtMillis"
+            + " where l.tenantId = :tenantId and (l.ownerNodeId = :nodeId or l.expiresAtMillis < :nowMillis)")
+    int claim(@Param("tenantId") Long tenantId, @Param("nodeId") String nodeId,
+              @Param("nowMillis") long nowMillis, @Param("expiresAtMillis") long expiresAtMillis);
+
+    /**
+     * Fails with a duplicate key if the lease already exists.
+     */
+    @Modifying
+    @Query(value = "insert into tenant_lease (tenant_id, owner_node_id, expires_at_millis)"
+            + " values (:tenantId, :nodeId, :expiresAtMillis)", nativeQuery = true)
+    void insert(@Param("tenantId") Long tenantId, @Param("nodeId") String nodeId,
+                @Param("expiresAtMillis") long expiresAtMillis);
+
+    /**
+     * Leases that already expired are not renewed, another node might have claimed them meanwhile.
+     */
+    @Modifying
+    @Query("update TenantLease l set l.expiresAtMillis = :expiresAtMillis"
+            + " where l.ownerNodeId = :nodeId and l.expiresAtMillis >= :nowMillis")
+    int renewAll(@Param("nodeId") String nodeId, @Param("nowMillis") long nowMillis,
+                 @Param("expiresAtMillis") long expiresAtMillis);
+
+    /**
+     * Writes the lease without changing it, so another node can't claim it until the transaction ends.
+     * @return 1 if that node still owns the lease, 0 otherwise
+     */
+    @Modifying
+    @Query("update TenantLease l set l.expiresAtMillis = l.expiresAtMillis"
+            + " where l.tenantId = :tenantId and l.ownerNodeId = :nodeId and l.expiresAtMillis >= :nowMillis")
+    int lock(@Param("tenantId") Long tenantId, @Param("nodeId") String nodeId, @Param("nowMillis") long nowMillis);
+
+    @Modifying
+    @Query("delete from TenantLease l where l.tenantId = :tenantId and l.ownerNodeId = :nodeId")
+    int release(@Param("tenantId") Long tenantId, @Param("nodeId") String nodeId);
+
+    @Modifying
+    @Query("delete from TenantLease l where l.ownerNodeId = :nodeId")
+    int releaseAll(@Param("nodeId") String nodeId);
+
+    @Query("select l.tenantId from TenantLease l where l.ownerNodeId = :nodeId and l.expiresAtMillis >= :nowMillis")
+    List<Long> findOwnedTenantIds(@Param("nodeId") String nodeId, @Param("nowMillis") long nowMillis);
+}
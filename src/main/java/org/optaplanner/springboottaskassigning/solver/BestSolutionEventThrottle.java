@@ -0,0 +1,132 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.springboottaskassigning.solver;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Coalesces the best solutions of one problem, so the consumer only sees the newest one
+ * and is called at most once per minimum interval.
+ * Best solutions that arrive while a call is pending replace the pending one instead of queueing up.
+ * The first initialized best solution is delivered right away, so a usable solution is never delayed.
+ */
+public class BestSolutionEventThrottle<Solution_> {
+
+    private static final Logger logger = LoggerFactory.getLogger(BestSolutionEventThrottle.class);
+
+    private final Object problemId;
+    private final long minIntervalMillis;
+    private final Executor eventExecutor;
+    private final ScheduledExecutorService delayExecutorService;
+    private final Consumer<Solution_> onBestSolutionChangedEvent;
+
+    private final AtomicReference<Solution_> pendingBestSolution = new AtomicReference<>();
+    private final AtomicBoolean dispatchScheduled = new AtomicBoolean(false);
+    private volatile long lastDispatchMillis = Long.MIN_VALUE;
+    // Only accessed by the solver thread
+    private boolean initializedBestSolutionSeen = false;
+
+    /**
+     * @param problemId never null
+     * @param minIntervalMillis {@code >= 0}, 0 to only coalesce the best solutions that arrive while the consumer is busy
+     * @param eventExecutor never null, executes the consumer
+     * @param delayExecutorService never null, only used to wait for the minimum interval
+     * @param onBestSolutionChangedEvent never null
+     */
+    public BestSolutionEventThrottle(Object problemId, long minIntervalMillis, Executor eventExecutor,
+                                     ScheduledExecutorService delayExecutorService,
+                                     Consumer<Solution_> onBestSolutionChangedEvent) {
+        this.problemId = problemId;
+        this.minIntervalMillis = minIntervalMillis;
+        this.eventExecutor = eventExecutor;
+        this.delayExecutorService = delayExecutorService;
+        this.onBestSolutionChangedEvent = onBestSolutionChangedEvent;
+    }
+
+    /**
+     * Called by the solver thread, never blocks.
+     * @param newBestSolution never null
+     * @param solutionInitialized true if all planning variables of the newBestSolution are initialized
+     */
+    public void bestSolutionChanged(Solution_ newBestSolution, boolean solutionInitialized) {
+        pendingBestSolution.set(newBestSolution);
+        if (solutionInitialized && !initializedBestSolutionSeen) {
+            initializedBestSolutionSeen = true;
+            dispatchScheduled.set(true);
+            submitDispatch();
+        } else if (dispatchScheduled.compareAndSet(false, true)) {
+            long delayMillis = lastDispatchMillis == Long.MIN_VALUE ? 0L
+                    : lastDispatchMillis + minIntervalMillis - System.currentTimeMillis();
+            if (delayMillis <= 0L) {
+                submitDispatch();
+            } else {
+                try {
+                    delayExecutorService.schedule(this::submitDispatch, delayMillis, TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException e) {
+                    logger.debug("Dropping best solution of problem ({}) because the solver manager is shut down.",
+                            problemId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Delivers the pending best solution, if any, without waiting for the minimum interval.
+     * Call it before the solving ended event is handed to the same serial event executor,
+     * so the consumer is guaranteed to see the final best solution first.
+     */
+    public void flush() {
+        try {
+            eventExecutor.execute(this::dispatch);
+        } catch (RejectedExecutionException e) {
+            // Shut down, so the serial event executor runs nothing anymore and the order is kept on this thread
+            dispatch();
+        }
+    }
+
+    private void submitDispatch() {
+        try {
+            eventExecutor.execute(this::dispatch);
+        } catch (RejectedExecutionException e) {
+            logger.debug("Dropping best solution of problem ({}) because the solver manager is shut down.",
+                    problemId);
+        }
+    }
+
+    private void dispatch() {
+        // Reset before taking the solution, so a best solution that arrives meanwhile schedules a new dispatch
+        dispatchScheduled.set(false);
+        Solution_ bestSolution = pendingBestSolution.getAndSet(null);
+        if (bestSolution != null) {
+            lastDispatchMillis = System.currentTimeMillis();
+            try {
+                onBestSolutionChangedEvent.accept(bestSolution);
+            } catch (RuntimeException e) {
+                logger.error("Exception in onBestSolutionChangedEvent of problem (" + problemId + ").", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.optaplanner.springboottaskassigning.solver;
+
+import org.optaplanner.core.api.score.Score;
+
+/**
+ * A best solution with its score, as published by the solver. Never changes after it's published:
+ * the solver only works on its own clone of the best solution, so readers can use it without locking.
+ */
+public class BestSolutionSnapshot<Solution_> {
+
+    private final Solution_ bestSolution;
+    private final Score<?> bestScore;
+    private final long sequence;
+
+    /**
+     * @param bestSolution never null
+     * @param bestScore null if the problem never started solving
+     * @param sequence {@code >= 0}, 0 for the submitted planning problem
+     */
+    public BestSolutionSnapshot(Solution_ bestSolution, Score<?> bestScore, long sequence) {
+        this.bestSolution = bestSolution;
+        this.bestScore = bestScore;
+        this.sequence = sequence;
+    }
+
+    public Solution_ getBestSolution() {
+        return bestSolution;
+    }
+
+    public Score<?> getBestScore() {
+        return bestScore;
+    }
+
+    /**
+     * @return increases by 1 for every new best solution of the same problem,
+     * so a reader can tell if the best solution changed since it last looked
+     */
+    public long getSequence() {
+        return sequence;
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.optaplanner.springboottaskassigning.solver;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * One subscriber of the improving best solutions of a {@link SolverJob}.
+ * The best solutions wait in a bounded buffer until the subscriber takes them.
+ * If the subscriber can't keep up, the oldest buffered best solution is dropped,
+ * so a slow subscriber never blocks the solver and never grows an unbounded queue.
+ */
+public class BestSolutionSubscription<Solution_> {
+
+    private static final Logger logger = LoggerFactory.getLogger(BestSolutionSubscription.class);
+
+    private final Object problemId;
+    private final int bufferCapacity;
+    private final Executor executor;
+    private final Consumer<Solution_> onBestSolution;
+
+    // Guarded by this
+    private final Deque<BestSolutionSnapshot<Solution_>> buffer;
+    private long lastSequence = -1L;
+    private boolean drainScheduled = false;
+    private boolean cancelled = false;
+    private long droppedCount = 0L;
+
+    /**
+     * @param problemId never null
+     * @param bufferCapacity {@code >= 1}
+     * @param executor never null, runs the onBestSolution calls one at a time
+     * @param onBestSolution never null
+     */
+    public BestSolutionSubscription(Object problemId, int bufferCapacity, Executor executor,
+                                    Consumer<Solution_> onBestSolution) {
+        if (bufferCapacity < 1) {
+            throw new IllegalArgumentException("The bufferCapacity (" + bufferCapacity + ") must be at least 1.");
+        }
+        this.problemId = problemId;
+        this.bufferCapacity = bufferCapacity;
+        this.executor = executor;
+        this.onBestSolution = onBestSolution;
+        buffer = new ArrayDeque<>(bufferCapacity);
+    }
+
+    /**
+     * Called by the solver thread, never blocks.
+     * A snapshot that is not newer than the last offered one is ignored,
+     * so the subscriber never goes back to an older best solution.
+     * @param bestSolutionSnapshot never null
+     */
+    public void offer(BestSolutionSnapshot<Solution_> bestSolutionSnapshot) {
+        synchronized (this) {
+            if (cancelled || bestSolutionSnapshot.getSequence() <= lastSequence) {
+                return;
+            }
+            lastSequence = bestSolutionSnapshot.getSequence();
+            if (buffer.size() == bufferCapacity) {
+                buffer.pollFirst();
+                droppedCount++;
+            }
+            buffer.addLast(bestSolutionSnapshot);
+            if (drainScheduled) {
+                return;
+            }
+            drainScheduled = true;
+        }
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            synchronized (this) {
+                drainScheduled = false;
+            }
+            logger.debug("Dropping best solution of problem ({}) because the solver manager is shut down.",
+                    problemId);
+        }
+    }
+
+    private void drain() {
+        // Gives the thread back after a full buffer, so a busy subscriber doesn't hog the shared pool
+        for (int drainedCount = 0; drainedCount < bufferCapacity; drainedCount++) {
+            BestSolutionSnapshot<Solution_> bestSolutionSnapshot;
+            synchronized (this) {
+                bestSolutionSnapshot = cancelled ? null : buffer.pollFirst();
+                if (bestSolutionSnapshot == null) {
+                    drainScheduled = false;
+                    return;
+                }
+            }
+            try {
+                onBestSolution.accept(bestSolutionSnapshot.getBestSolution());
+            } catch (RuntimeException e) {
+                logger.error("Exception in a best solution subscriber of problem (" + problemId + ").", e);
+            }
+        }
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            synchronized (this) {
+                drainScheduled = false;
+            }
+        }
+    }
+
+    /**
+     * Stops the delivery of best solutions, the buffered ones are dropped.
+     * A call that is already running isn't interrupted.
+     */
+    public synchronized void cancel() {
+        cancelled = true;
+        buffer.clear();
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return number of best solutions that were dropped because the buffer was full
+     */
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * @return number of best solutions that wait for the subscriber
+     */
+    public synchronized int getBufferedCount() {
+        return buffer.size();
+    }
+}
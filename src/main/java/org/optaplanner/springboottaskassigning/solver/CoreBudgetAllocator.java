@@ -0,0 +1,137 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.optaplanner.springboottaskassigning.solver;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Splits a fixed number of cores across the problems that are solving, in proportion to their problem scale.
+ * The fair shares change whenever a problem starts or stops solving,
+ * but a solving problem keeps its cores until it asks for them again at its next time slice,
+ * so {@link #isRebalanceNeeded(Object)} tells it when its share changed.
+ * The budget is never oversubscribed: a problem that finds no free core waits until another problem releases one.
+ */
+public class CoreBudgetAllocator {
+
+    private final int coreBudget;
+    private final Map<Object, Long> problemIdToScaleMap = new HashMap<>();
+    private final Map<Object, Integer> problemIdToMaximumCoreCountMap = new HashMap<>();
+    private final Map<Object, Integer> problemIdToCoreCountMap = new HashMap<>();
+    private int allocatedCoreCount = 0;
+    private int waitingProblemCount = 0;
+
+    /**
+     * @param coreBudget {@code >= 1}
+     */
+    public CoreBudgetAllocator(int coreBudget) {
+        this.coreBudget = coreBudget;
+    }
+
+    /**
+     * Waits at most the wait time for a free core.
+     * The problem counts for the fair shares of the others until it's released, also if no core was free.
+     * @param problemId never null
+     * @param problemScale {@code >= 1}
+     * @param maximumCoreCount null if the problem has no limit of its own
+     * @param waitMillis {@code >= 1}
+     * @return {@code >= 0}, the number of cores allocated to that problem until {@link #release(Object)},
+     * 0 if no core became free within the wait time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized int allocate(Object problemId, long problemScale, Integer maximumCoreCount, long waitMillis)
+            throws InterruptedException {
+        if (problemIdToCoreCountMap.containsKey(problemId)) {
+            throw new IllegalStateException("Problem (" + problemId + ") already has cores allocated.");
+        }
+        problemIdToScaleMap.put(problemId, problemScale);
+        if (maximumCoreCount != null) {
+            problemIdToMaximumCoreCountMap.put(problemId, maximumCoreCount);
+        }
+        long deadlineMillis = System.currentTimeMillis() + waitMillis;
+        int coreCount = Math.min(getFairCoreCount(problemId), coreBudget - allocatedCoreCount);
+        while (coreCount < 1) {
+            long remainingWaitMillis = deadlineMillis - System.currentTimeMillis();
+            if (remainingWaitMillis <= 0L) {
+                return 0;
+            }
+            waitingProblemCount++;
+            try {
+                wait(remainingWaitMillis);
+            } finally {
+                waitingProblemCount--;
+            }
+            coreCount = Math.min(getFairCoreCount(problemId), coreBudget - allocatedCoreCount);
+        }
+        problemIdToCoreCountMap.put(problemId, coreCount);
+        allocatedCoreCount += coreCount;
+        return coreCount;
+    }
+
+    /**
+     * @param problemId never null
+     * @return true if the problem holds more cores than its fair share, or fewer while cores are free,
+     * or if another problem waits for a core
+     */
+    public synchronized boolean isRebalanceNeeded(Object problemId) {
+        Integer coreCount = problemIdToCoreCountMap.get(problemId);
+        if (coreCount == null) {
+            return false;
+        }
+        if (waitingProblemCount > 0) {
+            return true;
+        }
+        int fairCoreCount = getFairCoreCount(problemId);
+        return coreCount > fairCoreCount || (coreCount < fairCoreCount && allocatedCoreCount < coreBudget);
+    }
+
+    private int getFairCoreCount(Object problemId) {
+        long totalScale = problemIdToScaleMap.values().stream().mapToLong(Long::longValue).sum();
+        int fairCoreCount = (int) (coreBudget * problemIdToScaleMap.get(problemId) / totalScale);
+        Integer maximumCoreCount = problemIdToMaximumCoreCountMap.get(problemId);
+        if (maximumCoreCount != null) {
+            fairCoreCount = Math.min(fairCoreCount, maximumCoreCount);
+        }
+        // Even if the other problems hold every core for now
+        return Math.max(1, fairCoreCount);
+    }
+
+    /**
+     * Also wakes up the problems that wait for a core.
+     * @param problemId never null
+     */
+    public synchronized void release(Object problemId) {
+        problemIdToScaleMap.remove(problemId);
+        problemIdToMaximumCoreCountMap.remove(problemId);
+        Integer coreCount = problemIdToCoreCountMap.remove(problemId);
+        if (coreCount != null) {
+            allocatedCoreCount -= coreCount;
+        }
+        notifyAll();
+    }
+
+    /**
+     * @param problemId never null
+     * @return 0 if the problem is not solving
+     */
+    public synchronized int getAllocatedCoreCount(Object problemId) {
+        return problemIdToCoreCountMap.getOrDefault(problemId, 0);
+    }
+
+    public int getCoreBudget() {
+        return coreBudget;
+    }
+}
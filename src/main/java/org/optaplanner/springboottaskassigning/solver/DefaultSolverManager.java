@@ -16,16 +16,56 @@
 
 package org.optaplanner.springboottaskassigning.solver;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.optaplanner.core.api.score.FeasibilityScore;
 import org.optaplanner.core.api.score.Score;
+import org.optaplanner.core.api.solver.Solver;
 import org.optaplanner.core.api.solver.SolverFactory;
+import org.optaplanner.core.api.solver.event.BestSolutionChangedEvent;
+import org.optaplanner.core.api.solver.event.SolverEventListener;
+import org.optaplanner.core.config.localsearch.LocalSearchPhaseConfig;
+import org.optaplanner.core.config.partitionedsearch.PartitionedSearchPhaseConfig;
+import org.optaplanner.core.config.phase.PhaseConfig;
+import org.optaplanner.core.config.score.director.ScoreDirectorFactoryConfig;
+import org.optaplanner.core.config.solver.SolverConfig;
+import org.optaplanner.core.config.solver.termination.TerminationConfig;
+import org.optaplanner.core.impl.partitionedsearch.partitioner.SolutionPartitioner;
+import org.optaplanner.core.impl.score.definition.ScoreDefinition;
+import org.optaplanner.core.impl.score.director.InnerScoreDirectorFactory;
+import org.optaplanner.core.impl.score.director.drools.LegacyDroolsScoreDirectorFactory;
+import org.optaplanner.core.impl.solver.DefaultSolver;
+import org.optaplanner.core.impl.solver.ProblemFactChange;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -33,10 +73,48 @@ public class DefaultSolverManager<Solution_> implements SolverManager<Solution_>
 
     private static final Logger logger = LoggerFactory.getLogger(DefaultSolverManager.class);
 
-    private ExecutorService solverExecutorService;
-    private ExecutorService eventHandlerExecutorService;
+    /**
+     * Share of the time spent limit of a partitioned problem that its partitions solve separately.
+     */
+    private static final long PARTITIONED_SEARCH_TIME_PERCENTAGE = 75L;
+
+    private final int parallelSolverCount;
+    private final int queueCapacity;
+    private final long bestSolutionEventIntervalMillis;
+    private final long warmUpMillis;
+    private final long timeSliceMillis;
+    private final long problemFactChangeBatchMillis;
+    private final long terminationMillisPerProblemScale;
+    private final long minimumTerminationMillis;
+    private final long unimprovedTerminationMillis;
+    private final long partitionedSearchProblemScale;
+    private final Class<? extends SolutionPartitioner<?>> solutionPartitionerClass;
+    private final long shutdownTimeoutMillis;
+    private ThreadPoolExecutor solverExecutorService;
+    private SerialEventDispatcher eventDispatcher;
+    private ScheduledExecutorService eventDelayExecutorService;
     private SolverFactory<Solution_> solverFactory;
+    // Finished problems are moved to the finishedSolverTaskCache, so their solving state can be garbage collected
     private ConcurrentMap<Object, SolverTask<Solution_>> problemIdToSolverTaskMap;
+    private final FinishedSolverTaskCache<Solution_> finishedSolverTaskCache;
+    // Null if evicted problems are forgotten
+    private volatile SolverTaskArchive<Solution_> solverTaskArchive = null;
+    // Only holds the problems that haven't ended yet
+    private final ConcurrentMap<Object, SolverTaskRunnable> problemIdToSolverTaskRunnableMap =
+            new ConcurrentHashMap<>();
+    // Idle solvers, reused instead of building a new one for every problem
+    private final BlockingQueue<Solver<Solution_>> solverPool;
+    private final int solverPoolSize;
+    private volatile boolean scoreRulesShared = false;
+    // Null if every problem solves on a single thread
+    private final CoreBudgetAllocator coreBudgetAllocator;
+
+    // Used to estimate how long a queued problem waits for a solver thread
+    private final AtomicLong solvedProblemCount = new AtomicLong(0L);
+    private final AtomicLong totalSolvingMillis = new AtomicLong(0L);
+
+    // Without children every meter is a no-op, until bindTo() is called
+    private volatile MeterRegistry meterRegistry = new CompositeMeterRegistry();
 
     public DefaultSolverManager(String solverConfigResource) {
         this(solverConfigResource, null, null);
@@ -51,6 +129,12 @@ public class DefaultSolverManager<Solution_> implements SolverManager<Solution_>
     }
 
     public DefaultSolverManager(String solverConfigResource, ClassLoader classLoader, ThreadFactory threadFactory) {
+        this(solverConfigResource, classLoader, threadFactory, new SolverManagerConfig());
+    }
+
+    public DefaultSolverManager(String solverConfigResource, ClassLoader classLoader, ThreadFactory threadFactory,
+                                SolverManagerConfig solverManagerConfig) {
+        solverManagerConfig.validate();
         if (classLoader != null) {
             solverFactory = SolverFactory.createFromXmlResource(solverConfigResource, classLoader);
         } else {
@@ -59,18 +143,101 @@ public class DefaultSolverManager<Solution_> implements SolverManager<Solution_>
 
         problemIdToSolverTaskMap = new ConcurrentHashMap<>();
         int numAvailableProcessors = Runtime.getRuntime().availableProcessors();
-        logger.info("Number of available processors: {}.", numAvailableProcessors);
+        parallelSolverCount = solverManagerConfig.getParallelSolverCount();
+        queueCapacity = solverManagerConfig.getQueueCapacity();
+        bestSolutionEventIntervalMillis = solverManagerConfig.getBestSolutionEventIntervalMillis();
+        warmUpMillis = solverManagerConfig.getWarmUpMillis();
+        timeSliceMillis = solverManagerConfig.getTimeSliceMillis();
+        problemFactChangeBatchMillis = solverManagerConfig.getProblemFactChangeBatchMillis();
+        terminationMillisPerProblemScale = solverManagerConfig.getTerminationMillisPerProblemScale();
+        minimumTerminationMillis = solverManagerConfig.getMinimumTerminationMillis();
+        unimprovedTerminationMillis = solverManagerConfig.getUnimprovedTerminationMillis();
+        partitionedSearchProblemScale = solverManagerConfig.getPartitionedSearchProblemScale();
+        solutionPartitionerClass = solverManagerConfig.getSolutionPartitionerClass();
+        shutdownTimeoutMillis = solverManagerConfig.getShutdownTimeoutMillis();
+        solverPoolSize = solverManagerConfig.getSolverPoolSize();
+        solverPool = solverPoolSize == 0 ? null : new ArrayBlockingQueue<>(solverPoolSize);
+        coreBudgetAllocator = solverManagerConfig.getCoreBudget() == 0 ? null
+                : new CoreBudgetAllocator(solverManagerConfig.getCoreBudget());
+        long finishedProblemIdleMillis = solverManagerConfig.getFinishedProblemIdleMillis();
+        finishedSolverTaskCache = new FinishedSolverTaskCache<>(solverManagerConfig.getFinishedProblemCacheSize(),
+                finishedProblemIdleMillis);
+        int eventHandlerThreadCount = solverManagerConfig.resolveEventHandlerThreadCount();
+        logger.info("Number of available processors: {}, parallel solvers: {}, solver queue capacity: {},"
+                            + " event handler threads: {}, core budget: {}, time slice: {} ms.",
+                numAvailableProcessors, parallelSolverCount, queueCapacity, eventHandlerThreadCount,
+                solverManagerConfig.getCoreBudget(), timeSliceMillis);
 
+        // Bounded, so that a burst of submissions is rejected instead of piling up on the heap
+        BlockingQueue<Runnable> solverQueue = queueCapacity == 0 ? new SynchronousQueue<>()
+                : new LinkedBlockingQueue<>(queueCapacity);
         if (threadFactory != null) {
             solverFactory.getSolverConfig().setThreadFactoryClass(threadFactory.getClass());
-            solverExecutorService = Executors.newFixedThreadPool(numAvailableProcessors - 1, threadFactory);
-            eventHandlerExecutorService = Executors.newSingleThreadExecutor(threadFactory);
+            solverExecutorService = new ThreadPoolExecutor(parallelSolverCount, parallelSolverCount,
+                    0L, TimeUnit.MILLISECONDS, solverQueue, threadFactory);
+            eventDispatcher = new SerialEventDispatcher(
+                    Executors.newFixedThreadPool(eventHandlerThreadCount, threadFactory));
+            eventDelayExecutorService = Executors.newSingleThreadScheduledExecutor(threadFactory);
         } else {
-            solverExecutorService = Executors.newFixedThreadPool(numAvailableProcessors - 1);
-            eventHandlerExecutorService = Executors.newSingleThreadExecutor();
+            solverExecutorService = new ThreadPoolExecutor(parallelSolverCount, parallelSolverCount,
+                    0L, TimeUnit.MILLISECONDS, solverQueue);
+            eventDispatcher = new SerialEventDispatcher(Executors.newFixedThreadPool(eventHandlerThreadCount));
+            eventDelayExecutorService = Executors.newSingleThreadScheduledExecutor();
+        }
+        if (finishedProblemIdleMillis > 0L) {
+            // Also frees the memory of idle problems when nobody reads any finished problem
+            eventDelayExecutorService.scheduleWithFixedDelay(finishedSolverTaskCache::evictIdle,
+                    finishedProblemIdleMillis, finishedProblemIdleMillis, TimeUnit.MILLISECONDS);
         }
     }
 
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        Gauge.builder("solver.threads.active", solverExecutorService, ThreadPoolExecutor::getActiveCount)
+                .description("Number of problems that are solving right now")
+                .register(meterRegistry);
+        Gauge.builder("solver.threads.max", this, solverManager -> parallelSolverCount)
+                .description("Number of problems that can solve at the same time")
+                .register(meterRegistry);
+        Gauge.builder("solver.queue.size", this, DefaultSolverManager::getQueueSize)
+                .description("Number of problems that wait for a solver thread")
+                .register(meterRegistry);
+        Gauge.builder("solver.queue.capacity", this, solverManager -> queueCapacity)
+                .description("Number of problems that can wait for a solver thread before new ones are rejected")
+                .register(meterRegistry);
+        Gauge.builder("solver.pool.idle", this, solverManager -> solverPool == null ? 0 : solverPool.size())
+                .description("Number of built solvers that wait to be reused")
+                .register(meterRegistry);
+        Gauge.builder("solver.problems.live", problemIdToSolverTaskMap, Map::size)
+                .description("Number of problems that are queued, solving or paused")
+                .register(meterRegistry);
+        Gauge.builder("solver.events.queued", this, solverManager -> getEventQueueDepthMap().values().stream()
+                .mapToInt(Integer::intValue).sum())
+                .description("Number of event handlers that wait or run, over all problems")
+                .register(meterRegistry);
+        Gauge.builder("solver.finished.cache.size", this, DefaultSolverManager::getFinishedProblemCacheSize)
+                .description("Number of finished problems that are kept in memory")
+                .register(meterRegistry);
+        FunctionCounter.builder("solver.finished.cache.hits", this,
+                DefaultSolverManager::getFinishedProblemCacheHitCount)
+                .description("Number of finished problem lookups that were answered from memory")
+                .register(meterRegistry);
+        FunctionCounter.builder("solver.finished.cache.misses", this,
+                DefaultSolverManager::getFinishedProblemCacheMissCount)
+                .description("Number of finished problem lookups that had to read the problem from the archive")
+                .register(meterRegistry);
+        eventDispatcher.setDispatchLagTimer(Timer.builder("solver.events.dispatch.lag")
+                .description("Time an event handler waited for its problem's earlier event handlers and a free thread")
+                .register(meterRegistry));
+        // Only applies to the problems submitted afterwards
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void setSolverTaskArchive(SolverTaskArchive<Solution_> solverTaskArchive) {
+        this.solverTaskArchive = solverTaskArchive;
+    }
+
     @Override
     public void solve(Object problemId,
                       Solution_ planningProblem,
@@ -85,97 +252,663 @@ public class DefaultSolverManager<Solution_> implements SolverManager<Solution_>
                       Consumer<Solution_> onBestSolutionChangedEvent,
                       Consumer<Solution_> onSolvingEnded,
                       Consumer<Throwable> onException) {
-        SolverTask<Solution_> newSolverTask;
-        synchronized (this) {
-            if (isProblemSubmitted(problemId)) {
-                throw new IllegalArgumentException("Problem (" + problemId + ") already exists.");
+        solve(problemId, planningProblem, new SolverTaskConfig(), onBestSolutionChangedEvent, onSolvingEnded,
+                onException);
+    }
+
+    @Override
+    public void solve(Object problemId,
+                      Solution_ planningProblem,
+                      SolverTaskConfig solverTaskConfig,
+                      Consumer<Solution_> onBestSolutionChangedEvent,
+                      Consumer<Solution_> onSolvingEnded,
+                      Consumer<Throwable> onException) {
+        submit(problemId, planningProblem, solverTaskConfig, onBestSolutionChangedEvent, onSolvingEnded, onException);
+    }
+
+    @Override
+    public SolverJob<Solution_> submit(Object problemId, Solution_ planningProblem) {
+        return submit(problemId, planningProblem, new SolverTaskConfig());
+    }
+
+    @Override
+    public SolverJob<Solution_> submit(Object problemId, Solution_ planningProblem,
+                                       SolverTaskConfig solverTaskConfig) {
+        return submit(problemId, planningProblem, solverTaskConfig, null, null, null);
+    }
+
+    private SolverJob<Solution_> submit(Object problemId,
+                                        Solution_ planningProblem,
+                                        SolverTaskConfig solverTaskConfig,
+                                        Consumer<Solution_> onBestSolutionChangedEvent,
+                                        Consumer<Solution_> onSolvingEnded,
+                                        Consumer<Throwable> onException) {
+        solverTaskConfig.validate();
+        // Registered as a placeholder first, so the duplicate check is atomic without holding a lock
+        // while the solver is built, and problems with a different problemId are registered in parallel
+        SolverTask<Solution_> newSolverTask = new SolverTask<>(problemId, planningProblem,
+                solverTaskConfig.getPreviousTimeMillisSpent());
+        if (finishedSolverTaskCache.contains(problemId)
+                || problemIdToSolverTaskMap.putIfAbsent(problemId, newSolverTask) != null) {
+            throw new IllegalArgumentException("Problem (" + problemId + ") already exists.");
+        }
+        TerminationConfig terminationConfig;
+        try {
+            Solver<Solution_> solver = acquireSolver();
+            try {
+                terminationConfig = resolveTerminationConfig(solver, solverTaskConfig);
+            } catch (RuntimeException e) {
+                offerToSolverPool(solver);
+                throw e;
             }
-            newSolverTask = new SolverTask<>(problemId, solverFactory.buildSolver(), planningProblem);
-            problemIdToSolverTaskMap.put(problemId, newSolverTask);
-            logger.info("A new solver task was created with problemId ({}).", problemId);
+            newSolverTask.attachSolver(solver);
+        } catch (RuntimeException e) {
+            problemIdToSolverTaskMap.remove(problemId, newSolverTask);
+            throw e;
         }
+        logger.info("A new solver task was created with problemId ({}).", problemId);
 
-        // TODO implement throttling
+        // All event handlers of this problem run in order on the same lane
+        Executor eventLane = eventDispatcher.getLane(problemId);
+        BestSolutionEventThrottle<Solution_> bestSolutionEventThrottle;
         if (onBestSolutionChangedEvent != null) {
+            bestSolutionEventThrottle = new BestSolutionEventThrottle<>(problemId, bestSolutionEventIntervalMillis,
+                    eventLane, eventDelayExecutorService, onBestSolutionChangedEvent);
             newSolverTask.addEventListener(
                     bestSolutionChangedEvent ->
-                            eventHandlerExecutorService.submit(
-                                    () -> onBestSolutionChangedEvent.accept(bestSolutionChangedEvent.getNewBestSolution())));
+                            bestSolutionEventThrottle.bestSolutionChanged(bestSolutionChangedEvent.getNewBestSolution(),
+                                    bestSolutionChangedEvent.getNewBestScore().isSolutionInitialized()));
+        } else {
+            bestSolutionEventThrottle = null;
         }
+        SolverJob<Solution_> solverJob = new SolverJob<>(problemId, newSolverTask, this, eventLane);
+        newSolverTask.addEventListener(bestSolutionChangedEvent -> solverJob.publishBestSolution());
+        MeterRegistry meterRegistry = this.meterRegistry;
+        newSolverTask.addEventListener(new BestScoreMetricsListener(newSolverTask, meterRegistry));
+        // Tagged per problem, so it's removed when solving ends
+        FunctionCounter scoreCalculationCounter = FunctionCounter.builder("solver.score.calculations", newSolverTask,
+                SolverTask::getScoreCalculationCount)
+                .tag("problemId", String.valueOf(problemId))
+                .description("Number of score calculations of a problem that is queued, solving or paused")
+                .register(meterRegistry);
 
-        CompletableFuture<Solution_> solverFuture = CompletableFuture.supplyAsync(newSolverTask::startSolving, solverExecutorService);
+        CompletableFuture<Solution_> solverFuture = new CompletableFuture<>();
+        SolverTaskRunnable solverTaskRunnable = new SolverTaskRunnable(newSolverTask, solverTaskConfig,
+                terminationConfig, solverFuture, solverJob);
+        problemIdToSolverTaskRunnableMap.put(problemId, solverTaskRunnable);
+        try {
+            solverExecutorService.execute(solverTaskRunnable);
+        } catch (RejectedExecutionException e) {
+            problemIdToSolverTaskRunnableMap.remove(problemId, solverTaskRunnable);
+            problemIdToSolverTaskMap.remove(problemId, newSolverTask);
+            releaseSolver(newSolverTask, true);
+            eventDispatcher.removeLane(problemId);
+            meterRegistry.remove(scoreCalculationCounter);
+            if (solverExecutorService.isShutdown()) {
+                throw new RejectedExecutionException("Problem (" + problemId
+                                                             + ") was rejected because the solver manager is shut down.", e);
+            }
+            logger.warn("Problem ({}) was rejected because the solver queue is full.", problemId);
+            throw new RejectedExecutionException("Problem (" + problemId + ") was rejected because the solver queue"
+                                                         + " is full (" + queueCapacity + " queued problems).", e);
+        }
         solverFuture.handle((solution_, throwable) -> {
+            problemIdToSolverTaskRunnableMap.remove(problemId, solverTaskRunnable);
+            releaseSolver(newSolverTask, throwable == null && solverTaskRunnable.isSolverReusable()
+                    && newSolverTask.isSolverReusable());
+            archive(newSolverTask);
+            meterRegistry.remove(scoreCalculationCounter);
+            // Completed on the event lane, so its dependents never run on the solver thread
+            executeOnLane(problemId, eventLane, () -> solverJob.complete(solution_,
+                    throwable == null ? null : throwable.getCause()));
+            if (bestSolutionEventThrottle != null) {
+                bestSolutionEventThrottle.flush();
+            }
             if (throwable != null) {
                 logger.error("Exception while solving problem (" + problemId + ").", throwable.getCause());
                 if (onException != null) {
-                    eventHandlerExecutorService.submit(() -> onException.accept(throwable.getCause()));
+                    executeOnLane(problemId, eventLane, () -> onException.accept(throwable.getCause()));
                 }
             }
-            return eventHandlerExecutorService.submit(() -> onSolvingEnded.accept(solution_));
+            if (onSolvingEnded != null) {
+                executeOnLane(problemId, eventLane, () -> onSolvingEnded.accept(solution_));
+            }
+            eventDispatcher.removeLane(problemId);
+            return null;
         });
+        return solverJob;
+    }
+
+    /**
+     * Runs it on the event lane of the problem, or on the calling thread once the shutdown rejects it,
+     * so a solver job always completes and the solving ended handlers always run.
+     */
+    private void executeOnLane(Object problemId, Executor eventLane, Runnable runnable) {
+        try {
+            eventLane.execute(runnable);
+        } catch (RejectedExecutionException e) {
+            try {
+                runnable.run();
+            } catch (RuntimeException handlerException) {
+                logger.error("Exception in an event handler of problem (" + problemId + ").", handlerException);
+            }
+        }
+    }
+
+    @Override
+    public void warmUp(Solution_ warmUpProblem) {
+        long warmUpStartedMillis = System.currentTimeMillis();
+        // The first solver compiles the score rules, the next ones reuse them
+        Solver<Solution_> solver = buildSolver();
+        if (solverPool != null) {
+            solverPool.offer(solver);
+            for (int i = solverPool.size(); i < solverPoolSize; i++) {
+                solverPool.offer(buildSolver());
+            }
+        }
+        SolverFactory<Solution_> warmUpSolverFactory = solverFactory.cloneSolverFactory();
+        warmUpSolverFactory.getSolverConfig().setTerminationConfig(
+                new TerminationConfig().withMillisecondsSpentLimit(warmUpMillis));
+        warmUpSolverFactory.buildSolver().solve(warmUpProblem);
+        logger.info("Warm-up took {} ms, solver pool size: {}.",
+                System.currentTimeMillis() - warmUpStartedMillis, solverPool == null ? 0 : solverPool.size());
+    }
+
+    private Solver<Solution_> acquireSolver() {
+        Solver<Solution_> solver = solverPool == null ? null : solverPool.poll();
+        return solver == null ? buildSolver() : solver;
+    }
+
+    private void releaseSolver(SolverTask<Solution_> solverTask, boolean reusable) {
+        Solver<Solution_> solver = solverTask.releaseSolver();
+        // A solver that threw an exception might be in an inconsistent state
+        if (reusable) {
+            offerToSolverPool(solver);
+        }
+    }
+
+    /**
+     * Moves a released problem out of the live problems, so only its final best solution, score and status
+     * stay in memory, until the cache evicts them.
+     */
+    private void archive(SolverTask<Solution_> solverTask) {
+        Object problemId = solverTask.getProblemId();
+        FinishedSolverTask<Solution_> finishedSolverTask = new FinishedSolverTask<>(problemId,
+                solverTask.getBestSolution(), solverTask.getBestScore(), solverTask.getSolverStatus(),
+                solverTask.getTimeMillisSpent());
+        SolverTaskArchive<Solution_> solverTaskArchive = this.solverTaskArchive;
+        // Stopped by the shutdown, so it didn't really finish
+        if (solverTaskArchive != null && !solverExecutorService.isShutdown()) {
+            try {
+                solverTaskArchive.archive(finishedSolverTask);
+            } catch (RuntimeException e) {
+                logger.error("Problem (" + problemId + ") was not archived, it's forgotten once it's evicted.", e);
+            }
+        }
+        // Cached before it's removed, so it's never missing in between
+        finishedSolverTaskCache.put(finishedSolverTask);
+        problemIdToSolverTaskMap.remove(problemId, solverTask);
+    }
+
+    /**
+     * @return null if the problem is neither in the cache nor in the archive
+     */
+    private FinishedSolverTask<Solution_> getFinishedSolverTask(Object problemId) {
+        return finishedSolverTaskCache.get(problemId, solverTaskArchive);
+    }
+
+    /**
+     * @param solver null is ignored
+     */
+    private void offerToSolverPool(Solver<Solution_> solver) {
+        if (solver != null && solverPool != null && !solverExecutorService.isShutdown()) {
+            solverPool.offer(solver);
+        }
+    }
+
+    /**
+     * Not pooled, the pool only holds solvers with the solver config as is.
+     * @param coreCount {@code >= 2} for multithreaded solving, otherwise ignored
+     * @param terminationConfig null to keep the termination of the solver config
+     * @param timeMillisSpentLimit null to keep the time spent limit of the termination
+     * @param partitioned true to solve partitions on the cores instead of multithreaded moves
+     */
+    private Solver<Solution_> buildCustomSolver(int coreCount, TerminationConfig terminationConfig,
+                                                Long timeMillisSpentLimit, boolean partitioned) {
+        // Cloned after the score rules are shared, so the clones reuse them too
+        SolverFactory<Solution_> customSolverFactory = solverFactory.cloneSolverFactory();
+        SolverConfig customSolverConfig = customSolverFactory.getSolverConfig();
+        if (coreCount > 1 && !partitioned) {
+            customSolverConfig.setMoveThreadCount(Integer.toString(coreCount));
+        }
+        if (terminationConfig != null) {
+            // Copied, because shortening the time spent limit changes it
+            TerminationConfig customTerminationConfig = new TerminationConfig();
+            customTerminationConfig.inherit(terminationConfig);
+            customSolverConfig.setTerminationConfig(customTerminationConfig);
+        }
+        if (timeMillisSpentLimit != null) {
+            if (customSolverConfig.getTerminationConfig() == null) {
+                customSolverConfig.setTerminationConfig(new TerminationConfig());
+            }
+            customSolverConfig.getTerminationConfig().shortenTimeMillisSpentLimit(timeMillisSpentLimit);
+        }
+        if (partitioned) {
+            customSolverConfig.setPhaseConfigList(buildPartitionedPhaseConfigList(customSolverConfig, coreCount));
+        }
+        return customSolverFactory.buildSolver();
+    }
+
+    /**
+     * The partitions are solved with the phases of the solver config,
+     * then a local search over the merged solution does the moves across partitions.
+     * @param coreCount number of partitions that solve at the same time, ignored without a core budget
+     */
+    private List<PhaseConfig> buildPartitionedPhaseConfigList(SolverConfig customSolverConfig, int coreCount) {
+        PartitionedSearchPhaseConfig partitionedSearchPhaseConfig = new PartitionedSearchPhaseConfig();
+        partitionedSearchPhaseConfig.setSolutionPartitionerClass(solutionPartitionerClass);
+        partitionedSearchPhaseConfig.setPhaseConfigList(customSolverConfig.getPhaseConfigList());
+        partitionedSearchPhaseConfig.setRunnablePartThreadLimit(coreBudgetAllocator == null
+                ? PartitionedSearchPhaseConfig.ACTIVE_THREAD_COUNT_AUTO : Integer.toString(coreCount));
+        Long timeMillisSpentLimit = customSolverConfig.getTerminationConfig() == null ? null
+                : customSolverConfig.getTerminationConfig().calculateTimeMillisSpentLimit();
+        if (timeMillisSpentLimit != null) {
+            // The rest of the time spent limit is for the local search across partitions
+            partitionedSearchPhaseConfig.setTerminationConfig(new TerminationConfig()
+                    .withMillisecondsSpentLimit(timeMillisSpentLimit * PARTITIONED_SEARCH_TIME_PERCENTAGE / 100L));
+        }
+        return Arrays.asList(partitionedSearchPhaseConfig, new LocalSearchPhaseConfig());
+    }
+
+    private boolean isPartitioned(SolverTaskConfig solverTaskConfig) {
+        return partitionedSearchProblemScale > 0L && solverTaskConfig.getProblemScale() >= partitionedSearchProblemScale;
+    }
+
+    /**
+     * @return null if the solver config has no time spent limit
+     */
+    private Long getTimeMillisSpentLimit() {
+        TerminationConfig terminationConfig = solverFactory.getSolverConfig().getTerminationConfig();
+        return terminationConfig == null ? null : terminationConfig.calculateTimeMillisSpentLimit();
+    }
+
+    /**
+     * The termination of the problem wins, otherwise the default termination that scales with the problem scale.
+     * The time spent limit of the solver config applies to every problem that doesn't have its own.
+     * @param solver never null, only used to parse the score limits, so an invalid one is rejected right away
+     * @return null if the problem solves with the termination of the solver config as is
+     * @throws IllegalArgumentException if a score limit can't be parsed
+     */
+    private TerminationConfig resolveTerminationConfig(Solver<Solution_> solver, SolverTaskConfig solverTaskConfig) {
+        Long solverConfigTimeMillisSpentLimit = getTimeMillisSpentLimit();
+        TerminationConfig terminationConfig = new TerminationConfig();
+        if (solverTaskConfig.getTerminationConfig() != null) {
+            terminationConfig.inherit(solverTaskConfig.getTerminationConfig());
+            if (terminationConfig.calculateTimeMillisSpentLimit() == null && solverConfigTimeMillisSpentLimit != null) {
+                terminationConfig.setMillisecondsSpentLimit(solverConfigTimeMillisSpentLimit);
+            }
+            validateScoreLimits(solver, terminationConfig);
+            return terminationConfig;
+        }
+        if (terminationMillisPerProblemScale == 0L && unimprovedTerminationMillis == 0L) {
+            return null;
+        }
+        if (solverFactory.getSolverConfig().getTerminationConfig() != null) {
+            terminationConfig.inherit(solverFactory.getSolverConfig().getTerminationConfig());
+        }
+        if (terminationMillisPerProblemScale > 0L) {
+            long problemScale = solverTaskConfig.getProblemScale();
+            long scaledTimeMillisSpentLimit = problemScale > Long.MAX_VALUE / terminationMillisPerProblemScale
+                    ? Long.MAX_VALUE : problemScale * terminationMillisPerProblemScale;
+            // Only shortens, so the solver config stays the maximum
+            terminationConfig.shortenTimeMillisSpentLimit(Math.max(minimumTerminationMillis, scaledTimeMillisSpentLimit));
+        }
+        if (unimprovedTerminationMillis > 0L && terminationConfig.calculateUnimprovedTimeMillisSpentLimit() == null) {
+            terminationConfig.setUnimprovedMillisecondsSpentLimit(unimprovedTerminationMillis);
+        }
+        return terminationConfig;
+    }
+
+    private void validateScoreLimits(Solver<Solution_> solver, TerminationConfig terminationConfig) {
+        if (!(solver instanceof DefaultSolver)) {
+            return;
+        }
+        ScoreDefinition<?> scoreDefinition =
+                ((DefaultSolver<Solution_>) solver).getScoreDirectorFactory().getScoreDefinition();
+        for (String scoreString : new String[]{terminationConfig.getBestScoreLimit(),
+                terminationConfig.getUnimprovedScoreDifferenceThreshold()}) {
+            if (scoreString != null) {
+                // Throws an IllegalArgumentException if it doesn't match the score definition
+                scoreDefinition.parseScore(scoreString);
+            }
+        }
+    }
+
+    /**
+     * Thread-safe, only the very first solvers wait for each other, until the score rules are compiled.
+     */
+    private Solver<Solution_> buildSolver() {
+        if (!scoreRulesShared) {
+            synchronized (solverFactory) {
+                if (!scoreRulesShared) {
+                    Solver<Solution_> solver = solverFactory.buildSolver();
+                    shareScoreRules(solver);
+                    scoreRulesShared = true;
+                    return solver;
+                }
+            }
+        }
+        return solverFactory.buildSolver();
+    }
+
+    /**
+     * Every {@link SolverFactory#buildSolver()} compiles the score DRL again,
+     * so the KieBase compiled for the first solver is handed to the solver config for all the next solvers.
+     */
+    @SuppressWarnings("deprecation")
+    private void shareScoreRules(Solver<Solution_> solver) {
+        if (!(solver instanceof DefaultSolver)) {
+            return;
+        }
+        InnerScoreDirectorFactory<Solution_> scoreDirectorFactory =
+                ((DefaultSolver<Solution_>) solver).getScoreDirectorFactory();
+        ScoreDirectorFactoryConfig scoreDirectorFactoryConfig =
+                solverFactory.getSolverConfig().getScoreDirectorFactoryConfig();
+        // A KieBase can't be combined with KieBase configuration properties and generated Drools tests need the DRL
+        if (scoreDirectorFactory instanceof LegacyDroolsScoreDirectorFactory
+                && scoreDirectorFactoryConfig.getKieBaseConfigurationProperties() == null
+                && !Boolean.TRUE.equals(scoreDirectorFactoryConfig.isGenerateDroolsTestOnError())) {
+            scoreDirectorFactoryConfig.setScoreDrlList(null);
+            scoreDirectorFactoryConfig.setScoreDrlFileList(null);
+            scoreDirectorFactoryConfig.setKieBase(
+                    ((LegacyDroolsScoreDirectorFactory<Solution_>) scoreDirectorFactory).getKieBase());
+            logger.debug("The compiled score rules are shared by all the next solvers.");
+        }
     }
 
     @Override
     public void stopSolver(Object problemId) {
         logger.debug("Stopping solver of problemId ({}).", problemId);
-        SolverTask<Solution_> solverTask;
-        synchronized (this) {
-            if (!isProblemSubmitted(problemId)) {
-                throw new IllegalArgumentException("Problem (" + problemId + ") was not submitted.");
+        SolverTask<Solution_> solverTask = problemIdToSolverTaskMap.get(problemId);
+        if (solverTask == null) {
+            if (getFinishedSolverTask(problemId) != null) {
+                // Already ended
+                return;
             }
-            solverTask = problemIdToSolverTaskMap.get(problemId);
+            throw new IllegalArgumentException("Problem (" + problemId + ") was not submitted.");
         }
-        if (solverTask != null) {
-            solverTask.stopSolver();
+        // Also works for a placeholder whose solver is still being built
+        solverTask.stopSolver();
+        SolverTaskRunnable solverTaskRunnable = problemIdToSolverTaskRunnableMap.get(problemId);
+        if (solverTaskRunnable != null && solverTask.resume()) {
+            // Paused, so no solver thread will end it
+            solverTaskRunnable.complete();
+        }
+    }
+
+    @Override
+    public void pauseSolver(Object problemId) {
+        logger.debug("Pausing solver of problemId ({}).", problemId);
+        SolverTaskRunnable solverTaskRunnable = getSolverTaskRunnable(problemId);
+        SolverTask<Solution_> solverTask = solverTaskRunnable.getSolverTask();
+        if (solverExecutorService.remove(solverTaskRunnable)) {
+            solverTask.pauseQueued();
+        } else if (!solverTask.requestPause(false)) {
+            throw new IllegalStateException("Problem (" + problemId + ") is already paused or stopping.");
+        }
+    }
+
+    @Override
+    public void resumeSolver(Object problemId) {
+        logger.debug("Resuming solver of problemId ({}).", problemId);
+        SolverTaskRunnable solverTaskRunnable = getSolverTaskRunnable(problemId);
+        SolverTask<Solution_> solverTask = solverTaskRunnable.getSolverTask();
+        if (!solverTask.resume()) {
+            throw new IllegalStateException("Problem (" + problemId + ") is not paused.");
+        }
+        try {
+            solverExecutorService.execute(solverTaskRunnable);
+        } catch (RejectedExecutionException e) {
+            solverTask.pauseQueued();
+            throw new RejectedExecutionException("Problem (" + problemId + ") was not resumed because the solver"
+                                                         + " queue is full (" + queueCapacity + " queued problems).", e);
+        }
+    }
+
+    @Override
+    public void addProblemFactChanges(Object problemId, List<ProblemFactChange<Solution_>> problemFactChangeList) {
+        logger.debug("Adding {} problem fact changes to problemId ({}).", problemFactChangeList.size(), problemId);
+        SolverTaskRunnable solverTaskRunnable = getSolverTaskRunnable(problemId);
+        solverTaskRunnable.getSolverTask().addProblemFactChanges(problemFactChangeList);
+        solverTaskRunnable.scheduleProblemFactChangeFlush();
+    }
+
+    private SolverTaskRunnable getSolverTaskRunnable(Object problemId) {
+        SolverTaskRunnable solverTaskRunnable = problemIdToSolverTaskRunnableMap.get(problemId);
+        if (solverTaskRunnable == null) {
+            if (problemIdToSolverTaskMap.containsKey(problemId) || getFinishedSolverTask(problemId) != null) {
+                throw new IllegalStateException("Problem (" + problemId + ") has already ended.");
+            }
+            throw new IllegalArgumentException("Problem (" + problemId + ") was not submitted.");
         }
+        return solverTaskRunnable;
     }
 
     @Override
     public boolean isProblemSubmitted(Object problemId) {
-        return problemIdToSolverTaskMap.containsKey(problemId);
+        return problemIdToSolverTaskMap.containsKey(problemId) || finishedSolverTaskCache.contains(problemId);
+    }
+
+    @Override
+    public SolverQueuePosition getQueuePosition(Object problemId) {
+        SolverTask<Solution_> solverTask = problemIdToSolverTaskMap.get(problemId);
+        if (solverTask == null || !solverTask.isQueued()) {
+            return null;
+        }
+        int position = 0;
+        for (Runnable queuedRunnable : solverExecutorService.getQueue()) {
+            if (((SolverTaskRunnable) queuedRunnable).getSolverTask() == solverTask) {
+                return new SolverQueuePosition(position, solverExecutorService.getQueue().size(),
+                        estimateWaitMillis(position));
+            }
+            position++;
+        }
+        // Taken off the queue in the meantime
+        return null;
+    }
+
+    @Override
+    public int getQueueSize() {
+        return solverExecutorService.getQueue().size();
+    }
+
+    private long estimateWaitMillis(int position) {
+        long solvedCount = solvedProblemCount.get();
+        if (solvedCount == 0L) {
+            return -1L;
+        }
+        long averageSolvingMillis = totalSolvingMillis.get() / solvedCount;
+        // Every solver thread takes one queued problem when it becomes free
+        return (position / parallelSolverCount + 1) * averageSolvingMillis;
+    }
+
+    private void recordSolvingDuration(SolverTask<Solution_> solverTask) {
+        long solvingStartedMillis = solverTask.getSolvingStartedMillis();
+        if (solvingStartedMillis >= 0L) {
+            totalSolvingMillis.addAndGet(System.currentTimeMillis() - solvingStartedMillis);
+            solvedProblemCount.incrementAndGet();
+        }
+    }
+
+    @Override
+    public int getEventQueueDepth(Object problemId) {
+        return eventDispatcher.getQueueDepth(problemId);
+    }
+
+    @Override
+    public Map<Object, Integer> getEventQueueDepthMap() {
+        return eventDispatcher.getQueueDepthMap();
+    }
+
+    @Override
+    public int getAllocatedCoreCount(Object problemId) {
+        if (coreBudgetAllocator == null) {
+            SolverTask<Solution_> solverTask = problemIdToSolverTaskMap.get(problemId);
+            return solverTask != null && solverTask.getSolverStatus() == SolverStatus.SOLVING ? 1 : 0;
+        }
+        return coreBudgetAllocator.getAllocatedCoreCount(problemId);
     }
 
     @Override
     public Solution_ getBestSolution(Object problemId) {
         logger.debug("Getting best solution of problemId ({}).", problemId);
         SolverTask<Solution_> solverTask = problemIdToSolverTaskMap.get(problemId);
-        if (solverTask == null) {
+        if (solverTask != null) {
+            return solverTask.getBestSolution();
+        }
+        FinishedSolverTask<Solution_> finishedSolverTask = getFinishedSolverTask(problemId);
+        if (finishedSolverTask == null) {
             logger.error("Problem (" + problemId + ") was not submitted.");
             return null;
         }
-        return solverTask.getBestSolution();
+        return finishedSolverTask.getBestSolution();
     }
 
     @Override
     public Score<?> getBestScore(Object problemId) {
         logger.debug("Getting best score of problemId ({}).", problemId);
         SolverTask<Solution_> solverTask = problemIdToSolverTaskMap.get(problemId);
-        if (solverTask == null) {
+        if (solverTask != null) {
+            return solverTask.getBestScore();
+        }
+        FinishedSolverTask<Solution_> finishedSolverTask = getFinishedSolverTask(problemId);
+        if (finishedSolverTask == null) {
             logger.error("Problem (" + problemId + ") was not submitted.");
             return null;
         }
-        return solverTask.getBestScore();
+        return finishedSolverTask.getBestScore();
     }
 
     @Override
     public SolverStatus getSolverStatus(Object problemId) {
         logger.debug("Getting solver status of problemId ({}).", problemId);
         SolverTask<Solution_> solverTask = problemIdToSolverTaskMap.get(problemId);
-        if (solverTask == null) {
+        if (solverTask != null) {
+            return solverTask.getSolverStatus();
+        }
+        FinishedSolverTask<Solution_> finishedSolverTask = getFinishedSolverTask(problemId);
+        if (finishedSolverTask == null) {
             logger.error("Problem (" + problemId + ") was not submitted.");
             return null;
         }
-        return solverTask.getSolverStatus();
+        return finishedSolverTask.getSolverStatus();
+    }
+
+    @Override
+    public int getFinishedProblemCacheSize() {
+        return finishedSolverTaskCache.size();
+    }
+
+    @Override
+    public long getFinishedProblemCacheHitCount() {
+        return finishedSolverTaskCache.getHitCount();
+    }
+
+    @Override
+    public long getFinishedProblemCacheMissCount() {
+        return finishedSolverTaskCache.getMissCount();
     }
 
     @Override
     public void shutdown() {
         logger.info("Shutting down {}.", DefaultSolverManager.class.getName());
+        // Taken off the queue first, so they don't start solving when a solver thread becomes free
+        List<Runnable> queuedRunnableList = new ArrayList<>();
+        solverExecutorService.getQueue().drainTo(queuedRunnableList);
+        // Their status and time spent before the shutdown stops them
+        Map<SolverTask<Solution_>, FinishedSolverTask<Solution_>> interruptedSolverTaskMap = new LinkedHashMap<>();
+        for (SolverTask<Solution_> solverTask : problemIdToSolverTaskMap.values()) {
+            interruptedSolverTaskMap.put(solverTask, new FinishedSolverTask<>(solverTask.getProblemId(), null, null,
+                    solverTask.getSolverStatus(), solverTask.getTimeMillisSpent()));
+        }
+        if (shutdownTimeoutMillis > 0L) {
+            awaitFinalBestSolutions();
+        }
         // Shutting down executor services before stopping solvers so that queued up solver tasks don't start solving.
         // TODO consider using org.optaplanner.core.impl.solver.thread.ThreadUtils
-        solverExecutorService.shutdownNow();
-        eventHandlerExecutorService.shutdownNow();
+        queuedRunnableList.addAll(solverExecutorService.shutdownNow());
+        eventDispatcher.shutdownNow();
+        eventDelayExecutorService.shutdownNow();
         stopSolvers(); // TODO is this necessary?
+        for (Runnable queuedRunnable : queuedRunnableList) {
+            if (queuedRunnable instanceof DefaultSolverManager.SolverTaskRunnable) {
+                SolverTaskRunnable solverTaskRunnable = (SolverTaskRunnable) queuedRunnable;
+                Object problemId = solverTaskRunnable.getSolverTask().getProblemId();
+                solverTaskRunnable.getSolverJob().complete(null, new CancellationException(
+                        "Problem (" + problemId + ") was not solved because the solver manager is shut down."));
+            }
+        }
+        if (solverPool != null) {
+            solverPool.clear();
+        }
+        checkpoint(interruptedSolverTaskMap);
+    }
+
+    /**
+     * Rejects new problems, terminates the solvers early and waits until the final best solution of every problem
+     * has been handed to its event handlers and they ran, at most for the shutdown timeout.
+     */
+    private void awaitFinalBestSolutions() {
+        long deadlineMillis = System.currentTimeMillis() + shutdownTimeoutMillis;
+        solverExecutorService.shutdown();
+        for (Object problemId : new ArrayList<>(problemIdToSolverTaskMap.keySet())) {
+            try {
+                // Also ends the paused problems, so their final best solution is flushed too
+                stopSolver(problemId);
+            } catch (IllegalArgumentException e) {
+                logger.trace("Problem ({}) ended in the meantime.", problemId);
+            }
+        }
+        try {
+            if (!solverExecutorService.awaitTermination(shutdownTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                logger.warn("Some solvers didn't terminate within the shutdown timeout ({} ms),"
+                                    + " their final best solutions are lost.", shutdownTimeoutMillis);
+                return;
+            }
+            // Solving ended flushes the pending best solutions, so the delayed ones can go
+            eventDelayExecutorService.shutdownNow();
+            if (!eventDispatcher.awaitIdle(Math.max(0L, deadlineMillis - System.currentTimeMillis()))) {
+                logger.warn("Some event handlers didn't run within the shutdown timeout ({} ms): {}.",
+                        shutdownTimeoutMillis, eventDispatcher.getQueueDepthMap());
+            }
+        } catch (InterruptedException e) {
+            logger.warn("Interrupted while waiting for the final best solutions.");
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Records the problems that were queued, solving or paused, so they can be resumed after a restart.
+     */
+    private void checkpoint(Map<SolverTask<Solution_>, FinishedSolverTask<Solution_>> interruptedSolverTaskMap) {
+        if (interruptedSolverTaskMap.isEmpty()) {
+            return;
+        }
+        logger.info("Shutdown interrupted {} problems.", interruptedSolverTaskMap.size());
+        SolverTaskArchive<Solution_> solverTaskArchive = this.solverTaskArchive;
+        if (solverTaskArchive == null) {
+            return;
+        }
+        interruptedSolverTaskMap.forEach((solverTask, interruptedState) -> {
+            try {
+                // With the final best solution
+                solverTaskArchive.checkpoint(new FinishedSolverTask<>(solverTask.getProblemId(),
+                        solverTask.getBestSolution(), solverTask.getBestScore(), interruptedState.getSolverStatus(),
+                        interruptedState.getTimeMillisSpent()));
+            } catch (RuntimeException e) {
+                logger.error("Problem (" + solverTask.getProblemId() + ") was not checkpointed.", e);
+            }
+        });
     }
 
     private void stopSolvers() {
@@ -183,4 +916,265 @@ public class DefaultSolverManager<Solution_> implements SolverManager<Solution_>
             solverTask.stopSolver();
         }
     }
+
+    /**
+     * Queued in the solver executor instead of an anonymous {@link Runnable},
+     * so the queue can be searched for a {@link SolverTask}.
+     * Queued again for every time slice of the same problem.
+     */
+    private class SolverTaskRunnable implements Runnable {
+
+        private final SolverTask<Solution_> solverTask;
+        private final SolverTaskConfig solverTaskConfig;
+        // Null to solve with the termination of the solver config
+        private final TerminationConfig terminationConfig;
+        private final CompletableFuture<Solution_> solverFuture;
+        private final SolverJob<Solution_> solverJob;
+        private volatile boolean solverReusable = true;
+        private final AtomicBoolean problemFactChangeFlushScheduled = new AtomicBoolean(false);
+
+        private SolverTaskRunnable(SolverTask<Solution_> solverTask, SolverTaskConfig solverTaskConfig,
+                                   TerminationConfig terminationConfig, CompletableFuture<Solution_> solverFuture,
+                                   SolverJob<Solution_> solverJob) {
+            this.solverTask = solverTask;
+            this.solverTaskConfig = solverTaskConfig;
+            this.terminationConfig = terminationConfig;
+            this.solverFuture = solverFuture;
+            this.solverJob = solverJob;
+        }
+
+        public SolverTask<Solution_> getSolverTask() {
+            return solverTask;
+        }
+
+        public SolverJob<Solution_> getSolverJob() {
+            return solverJob;
+        }
+
+        public boolean isSolverReusable() {
+            return solverReusable;
+        }
+
+        public void complete() {
+            solverFuture.complete(solverTask.getBestSolution());
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    if (!prepareTimeSlice()) {
+                        complete();
+                        return;
+                    }
+                    Solution_ bestSolution;
+                    ScheduledFuture<?> timeSliceFuture = scheduleTimeSlice();
+                    try {
+                        bestSolution = solverTask.startSolving();
+                    } finally {
+                        if (timeSliceFuture != null) {
+                            timeSliceFuture.cancel(false);
+                        }
+                        recordSolvingDuration(solverTask);
+                        if (coreBudgetAllocator != null) {
+                            coreBudgetAllocator.release(solverTask.getProblemId());
+                        }
+                    }
+                    if (!solverTask.isPauseRequested() || solverTask.isTerminateEarlyRequested()) {
+                        solverFuture.complete(bestSolution);
+                        return;
+                    }
+                    boolean resumeAfterPause = solverTask.isResumeAfterPause();
+                    boolean reusable = solverReusable && solverTask.isSolverReusable();
+                    Solver<Solution_> solver = solverTask.detachSolver(!resumeAfterPause);
+                    if (reusable) {
+                        offerToSolverPool(solver);
+                    }
+                    if (!resumeAfterPause) {
+                        logger.info("Problem ({}) is paused.", solverTask.getProblemId());
+                        // A stopSolver() in the meantime didn't see it paused yet
+                        if (solverTask.isTerminateEarlyRequested() && solverTask.resume()) {
+                            complete();
+                        }
+                        return;
+                    }
+                    try {
+                        // Back of the queue, so every waiting problem gets a time slice first
+                        solverExecutorService.execute(this);
+                        return;
+                    } catch (RejectedExecutionException e) {
+                        logger.debug("Problem ({}) keeps solving because the solver queue is full.",
+                                solverTask.getProblemId());
+                    }
+                }
+            } catch (Throwable throwable) {
+                // Wrapped the same way as CompletableFuture.supplyAsync() does
+                solverFuture.completeExceptionally(new CompletionException(throwable));
+            }
+        }
+
+        /**
+         * The move thread count of a solver can't change while it solves,
+         * so the share of the core budget is decided for every time slice.
+         * A resumed problem only gets the rest of the time spent limit, unless it has new problem fact changes.
+         * @return false if the time spent limit is already reached or it was stopped while it waited for a core
+         */
+        private boolean prepareTimeSlice() {
+            Long timeMillisSpentLimit = null;
+            long timeMillisSpent = solverTask.getTimeMillisSpent();
+            // Pending problem fact changes restart the time spent when they're handed to the solver
+            if (timeMillisSpent > 0L && solverTask.getPendingProblemFactChangeCount() == 0) {
+                timeMillisSpentLimit = terminationConfig == null ? getTimeMillisSpentLimit()
+                        : terminationConfig.calculateTimeMillisSpentLimit();
+                if (timeMillisSpentLimit != null) {
+                    timeMillisSpentLimit -= timeMillisSpent;
+                    if (timeMillisSpentLimit <= 0L) {
+                        logger.info("Problem ({}) has no time left to solve.", solverTask.getProblemId());
+                        return false;
+                    }
+                }
+            }
+            int coreCount = 1;
+            if (coreBudgetAllocator != null) {
+                coreCount = allocateCores();
+                if (coreCount == 0) {
+                    return false;
+                }
+                logger.debug("Problem ({}) solves on {} cores.", solverTask.getProblemId(), coreCount);
+            }
+            boolean partitioned = isPartitioned(solverTaskConfig);
+            if (coreCount <= 1 && terminationConfig == null && timeMillisSpentLimit == null && !partitioned) {
+                solverReusable = true;
+                if (!solverTask.hasSolver()) {
+                    solverTask.attachSolver(acquireSolver());
+                }
+            } else {
+                solverReusable = false;
+                Solver<Solution_> customSolver = buildCustomSolver(coreCount, terminationConfig, timeMillisSpentLimit,
+                        partitioned);
+                if (solverTask.hasSolver()) {
+                    offerToSolverPool(solverTask.replaceSolver(customSolver));
+                } else {
+                    solverTask.attachSolver(customSolver);
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Holds on to its solver thread while it waits, so it doesn't lose its turn to problems queued after it.
+         * @return 0 if it was stopped or interrupted while it waited for a core
+         */
+        private int allocateCores() {
+            Object problemId = solverTask.getProblemId();
+            try {
+                while (true) {
+                    int coreCount = coreBudgetAllocator.allocate(problemId, solverTaskConfig.getProblemScale(),
+                            solverTaskConfig.getMoveThreadCount(), timeSliceMillis);
+                    if (coreCount > 0) {
+                        return coreCount;
+                    }
+                    if (solverTask.isTerminateEarlyRequested()) {
+                        logger.info("Problem ({}) was stopped while it waited for a core.", problemId);
+                        coreBudgetAllocator.release(problemId);
+                        return 0;
+                    }
+                    logger.debug("Problem ({}) waits for a core.", problemId);
+                }
+            } catch (InterruptedException e) {
+                logger.info("Problem ({}) was interrupted while it waited for a core.", problemId);
+                coreBudgetAllocator.release(problemId);
+                Thread.currentThread().interrupt();
+                return 0;
+            }
+        }
+
+        /**
+         * Waits for the batch interval, so all the changes that arrive meanwhile restart the solver only once.
+         */
+        public void scheduleProblemFactChangeFlush() {
+            if (!problemFactChangeFlushScheduled.compareAndSet(false, true)) {
+                return;
+            }
+            Runnable flush = () -> {
+                // Reset before flushing, so a change that arrives meanwhile schedules a new flush
+                problemFactChangeFlushScheduled.set(false);
+                solverTask.flushProblemFactChanges();
+            };
+            if (problemFactChangeBatchMillis == 0L) {
+                flush.run();
+                return;
+            }
+            try {
+                eventDelayExecutorService.schedule(flush, problemFactChangeBatchMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                problemFactChangeFlushScheduled.set(false);
+                logger.debug("Problem fact changes of problem ({}) are not flushed because the solver manager"
+                                     + " is shut down.", solverTask.getProblemId());
+            }
+        }
+
+        /**
+         * Only yields the solver thread if another problem waits for one,
+         * or its cores if its share of the core budget changed or another problem waits for a core.
+         * @return null if time slicing is off
+         */
+        private ScheduledFuture<?> scheduleTimeSlice() {
+            if (timeSliceMillis == 0L) {
+                return null;
+            }
+            try {
+                return eventDelayExecutorService.scheduleWithFixedDelay(() -> {
+                    if (!solverExecutorService.getQueue().isEmpty() || (coreBudgetAllocator != null
+                            && coreBudgetAllocator.isRebalanceNeeded(solverTask.getProblemId()))) {
+                        solverTask.requestPause(true);
+                    }
+                }, timeSliceMillis, timeSliceMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Called by the solver thread of the problem, so its state needs no synchronization.
+     */
+    private class BestScoreMetricsListener implements SolverEventListener<Solution_> {
+
+        private final SolverTask<Solution_> solverTask;
+        private final Counter bestScoreImprovementCounter;
+        private final Timer firstInitializedScoreTimer;
+        private final Timer firstFeasibleScoreTimer;
+        private boolean initializedScoreSeen = false;
+        private boolean feasibleScoreSeen = false;
+
+        private BestScoreMetricsListener(SolverTask<Solution_> solverTask, MeterRegistry meterRegistry) {
+            this.solverTask = solverTask;
+            bestScoreImprovementCounter = Counter.builder("solver.best.score.improvements")
+                    .description("Number of new best solutions, over all problems")
+                    .register(meterRegistry);
+            firstInitializedScoreTimer = Timer.builder("solver.best.score.first.initialized")
+                    .description("Time from the start of solving to the first best solution without unassigned tasks")
+                    .register(meterRegistry);
+            firstFeasibleScoreTimer = Timer.builder("solver.best.score.first.feasible")
+                    .description("Time from the start of solving to the first feasible best solution")
+                    .register(meterRegistry);
+        }
+
+        @Override
+        public void bestSolutionChanged(BestSolutionChangedEvent<Solution_> event) {
+            bestScoreImprovementCounter.increment();
+            Score<?> newBestScore = event.getNewBestScore();
+            long millisSinceStart = System.currentTimeMillis() - solverTask.getFirstSolvingStartedMillis();
+            if (!initializedScoreSeen && newBestScore.isSolutionInitialized()) {
+                initializedScoreSeen = true;
+                firstInitializedScoreTimer.record(millisSinceStart, TimeUnit.MILLISECONDS);
+            }
+            if (!feasibleScoreSeen && newBestScore instanceof FeasibilityScore
+                    && ((FeasibilityScore<?>) newBestScore).isFeasible()) {
+                feasibleScoreSeen = true;
+                firstFeasibleScoreTimer.record(millisSinceStart, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
 }
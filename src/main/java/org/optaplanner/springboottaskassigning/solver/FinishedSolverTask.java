@@ -0,0 +1,78 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.optaplanner.springboottaskassigning.solver;
+
+import org.optaplanner.core.api.score.Score;
+
+/**
+ * What is kept of a problem after solving ended: its final best solution, score and status, without the solver.
+ */
+public class FinishedSolverTask<Solution_> {
+
+    private final Object problemId;
+    private final Solution_ bestSolution;
+    private final Score<?> bestScore;
+    private final SolverStatus solverStatus;
+    private final long timeMillisSpent;
+
+    /**
+     * @param problemId never null
+     * @param bestSolution sometimes null
+     * @param bestScore null if the problem never started solving
+     * @param solverStatus never null, {@link SolverStatus#STOPPED} or {@link SolverStatus#TERMINATED_EARLY}
+     */
+    public FinishedSolverTask(Object problemId, Solution_ bestSolution, Score<?> bestScore,
+                              SolverStatus solverStatus) {
+        this(problemId, bestSolution, bestScore, solverStatus, 0L);
+    }
+
+    /**
+     * @param timeMillisSpent {@code >= 0}, time spent solving since the last problem fact changes
+     */
+    public FinishedSolverTask(Object problemId, Solution_ bestSolution, Score<?> bestScore,
+                              SolverStatus solverStatus, long timeMillisSpent) {
+        this.problemId = problemId;
+        this.bestSolution = bestSolution;
+        this.bestScore = bestScore;
+        this.solverStatus = solverStatus;
+        this.timeMillisSpent = timeMillisSpent;
+    }
+
+    public Object getProblemId() {
+        return problemId;
+    }
+
+    public Solution_ getBestSolution() {
+        return bestSolution;
+    }
+
+    public Score<?> getBestScore() {
+        return bestScore;
+    }
+
+    public SolverStatus getSolverStatus() {
+        return solverStatus;
+    }
+
+    /**
+     * @return 0 if unknown, for example if it was read back from a {@link SolverTaskArchive}
+     */
+    public long getTimeMillisSpent() {
+        return timeMillisSpent;
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.optaplanner.springboottaskassigning.solver;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Least recently used cache of the finished problems, bounded in size and in idle time.
+ * A problem that is not in the cache is read through from the {@link SolverTaskArchive}, if there is one.
+ * A problem that isn't in the archive either is remembered as absent for {@link #ABSENT_MILLIS},
+ * so polling an unknown problem doesn't read the archive every time.
+ */
+public class FinishedSolverTaskCache<Solution_> {
+
+    /**
+     * Short, because another node can archive the problem meanwhile.
+     */
+    public static final long ABSENT_MILLIS = 1000L;
+
+    private static final Logger logger = LoggerFactory.getLogger(FinishedSolverTaskCache.class);
+
+    private final int maximumSize;
+    private final long idleMillis;
+
+    // Access ordered, so the eldest entry is the least recently used one
+    private final LinkedHashMap<Object, CacheEntry<Solution_>> problemIdToEntryMap =
+            new LinkedHashMap<>(16, 0.75f, true);
+    // Insertion ordered, so the eldest entry expires first
+    private final LinkedHashMap<Object, Long> absentProblemIdToMillisMap = new LinkedHashMap<>();
+    private final AtomicLong hitCount = new AtomicLong(0L);
+    private final AtomicLong missCount = new AtomicLong(0L);
+
+    /**
+     * @param maximumSize {@code >= 0}, 0 to read every finished problem from the archive
+     * @param idleMillis {@code >= 0}, 0 to only evict when the cache is full
+     */
+    public FinishedSolverTaskCache(int maximumSize, long idleMillis) {
+        this.maximumSize = maximumSize;
+        this.idleMillis = idleMillis;
+    }
+
+    /**
+     * @param finishedSolverTask never null
+     */
+    public void put(FinishedSolverTask<Solution_> finishedSolverTask) {
+        long nowMillis = System.currentTimeMillis();
+        synchronized (problemIdToEntryMap) {
+            absentProblemIdToMillisMap.remove(finishedSolverTask.getProblemId());
+            if (maximumSize == 0) {
+                return;
+            }
+            problemIdToEntryMap.put(finishedSolverTask.getProblemId(), new CacheEntry<>(finishedSolverTask, nowMillis));
+            evict(nowMillis);
+        }
+    }
+
+    /**
+     * Unlike {@link #put(FinishedSolverTask)}, it never replaces a problem that was put meanwhile,
+     * because that one is newer than what the archive returned.
+     * @param finishedSolverTask never null
+     * @return never null, the one in the cache
+     */
+    private FinishedSolverTask<Solution_> putIfAbsent(FinishedSolverTask<Solution_> finishedSolverTask) {
+        if (maximumSize == 0) {
+            return finishedSolverTask;
+        }
+        long nowMillis = System.currentTimeMillis();
+        synchronized (problemIdToEntryMap) {
+            CacheEntry<Solution_> entry = problemIdToEntryMap.get(finishedSolverTask.getProblemId());
+            if (entry != null) {
+                return entry.finishedSolverTask;
+            }
+            problemIdToEntryMap.put(finishedSolverTask.getProblemId(), new CacheEntry<>(finishedSolverTask, nowMillis));
+            evict(nowMillis);
+            return finishedSolverTask;
+        }
+    }
+
+    /**
+     * @param problemId never null
+     * @param archive null to only look in the cache
+     * @return null if the problem is neither in the cache nor in the archive
+     */
+    public FinishedSolverTask<Solution_> get(Object problemId, SolverTaskArchive<Solution_> archive) {
+        long nowMillis = System.currentTimeMillis();
+        synchronized (problemIdToEntryMap) {
+            evict(nowMillis);
+            CacheEntry<Solution_> entry = problemIdToEntryMap.get(problemId);
+            if (entry != null) {
+                entry.lastAccessMillis = nowMillis;
+                hitCount.incrementAndGet();
+                return entry.finishedSolverTask;
+            }
+            if (absentProblemIdToMillisMap.containsKey(problemId)) {
+                hitCount.incrementAndGet();
+                return null;
+            }
+        }
+        missCount.incrementAndGet();
+        if (archive == null) {
+            return null;
+        }
+        // Not under the lock, so a slow archive doesn't block the hits of other problems
+        FinishedSolverTask<Solution_> finishedSolverTask = archive.load(problemId);
+        if (finishedSolverTask == null) {
+            synchronized (problemIdToEntryMap) {
+                // Unless it was put meanwhile
+                CacheEntry<Solution_> entry = problemIdToEntryMap.get(problemId);
+                if (entry != null) {
+                    return entry.finishedSolverTask;
+                }
+                absentProblemIdToMillisMap.put(problemId, nowMillis);
+            }
+            return null;
+        }
+        logger.debug("Finished problem ({}) was loaded from the archive.", problemId);
+        // A problem that was archived while the archive was read is newer, that one wins
+        return putIfAbsent(finishedSolverTask);
+    }
+
+    /**
+     * Only looks in memory, doesn't count as a hit or a miss and doesn't make the problem recently used.
+     * @param problemId never null
+     * @return true if the problem is in the cache
+     */
+    public boolean contains(Object problemId) {
+        synchronized (problemIdToEntryMap) {
+            evict(System.currentTimeMillis());
+            // Unlike get(), containsKey() doesn't change the access order
+            return problemIdToEntryMap.containsKey(problemId);
+        }
+    }
+
+    /**
+     * Evicts the problems that have been idle for too long, even if the cache is not accessed.
+     */
+    public void evictIdle() {
+        synchronized (problemIdToEntryMap) {
+            evict(System.currentTimeMillis());
+        }
+    }
+
+    private void evict(long nowMillis) {
+        Iterator<Map.Entry<Object, Long>> absentIt = absentProblemIdToMillisMap.entrySet().iterator();
+        while (absentIt.hasNext()) {
+            Map.Entry<Object, Long> eldest = absentIt.next();
+            if (absentProblemIdToMillisMap.size() <= maximumSize && nowMillis - eldest.getValue() < ABSENT_MILLIS) {
+                break;
+            }
+            absentIt.remove();
+        }
+        Iterator<Map.Entry<Object, CacheEntry<Solution_>>> it = problemIdToEntryMap.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Object, CacheEntry<Solution_>> eldest = it.next();
+            boolean full = problemIdToEntryMap.size() > maximumSize;
+            boolean idle = idleMillis > 0L && nowMillis - eldest.getValue().lastAccessMillis >= idleMillis;
+            if (!full && !idle) {
+                // Every next entry was accessed more recently
+                return;
+            }
+            logger.debug("Evicting finished problem ({}) from memory.", eldest.getKey());
+            it.remove();
+        }
+    }
+
+    /**
+     * @return number of finished problems that are in memory
+     */
+    public int size() {
+        synchronized (problemIdToEntryMap) {
+            return problemIdToEntryMap.size();
+        }
+    }
+
+    /**
+     * @return number of lookups that were answered from memory, including those of problems known to be absent
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * @return number of lookups that had to go to the archive, including those of problems that don't exist
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    private static class CacheEntry<Solution_> {
+
+        private final FinishedSolverTask<Solution_> finishedSolverTask;
+        private long lastAccessMillis;
+
+        private CacheEntry(FinishedSolverTask<Solution_> finishedSolverTask, long lastAccessMillis) {
+            this.finishedSolverTask = finishedSolverTask;
+            this.lastAccessMillis = lastAccessMillis;
+        }
+    }
+}
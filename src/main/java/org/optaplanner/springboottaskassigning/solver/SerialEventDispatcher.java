@@ -0,0 +1,192 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.springboottaskassigning.solver;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the event handlers of each problem in submission order, one at a time,
+ * while the event handlers of different problems run in parallel on a shared, bounded thread pool.
+ * So one slow consumer only delays the events of its own problem.
+ */
+public class SerialEventDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(SerialEventDispatcher.class);
+
+    /**
+     * A busy lane gives its thread back after this many runnables, so other problems get their turn.
+     */
+    private static final int DRAIN_BATCH_SIZE = 16;
+    private static final long IDLE_POLL_MILLIS = 10L;
+
+    private final ExecutorService executorService;
+    private final ConcurrentMap<Object, Lane> problemIdToLaneMap = new ConcurrentHashMap<>();
+    private volatile Timer dispatchLagTimer = null;
+
+    /**
+     * @param executorService never null, its thread count bounds how many problems handle events at the same time
+     */
+    public SerialEventDispatcher(ExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    /**
+     * @param problemId never null
+     * @return never null, executes the runnables of that problem one by one, in order
+     */
+    public Executor getLane(Object problemId) {
+        return problemIdToLaneMap.computeIfAbsent(problemId, Lane::new);
+    }
+
+    /**
+     * Forgets the lane once its pending runnables are done.
+     * Runnables that are handed to the removed lane afterwards still run in order,
+     * but they no longer show up in the queue depth metrics.
+     * @param problemId never null
+     */
+    public void removeLane(Object problemId) {
+        Lane lane = problemIdToLaneMap.get(problemId);
+        if (lane != null) {
+            lane.execute(() -> problemIdToLaneMap.remove(problemId, lane));
+        }
+    }
+
+    /**
+     * @param problemId never null
+     * @return number of runnables of that problem that wait or run, 0 if it has no lane
+     */
+    public int getQueueDepth(Object problemId) {
+        Lane lane = problemIdToLaneMap.get(problemId);
+        return lane == null ? 0 : lane.queueDepth.get();
+    }
+
+    /**
+     * @return never null, the queue depth of every lane with a pending runnable
+     */
+    public Map<Object, Integer> getQueueDepthMap() {
+        Map<Object, Integer> queueDepthMap = new LinkedHashMap<>(problemIdToLaneMap.size());
+        problemIdToLaneMap.forEach((problemId, lane) -> {
+            int queueDepth = lane.queueDepth.get();
+            if (queueDepth > 0) {
+                queueDepthMap.put(problemId, queueDepth);
+            }
+        });
+        return queueDepthMap;
+    }
+
+    /**
+     * @param dispatchLagTimer null to stop recording, otherwise records how long each runnable waited
+     * before it started running, applies to the runnables handed over afterwards
+     */
+    public void setDispatchLagTimer(Timer dispatchLagTimer) {
+        this.dispatchLagTimer = dispatchLagTimer;
+    }
+
+    /**
+     * Waits until every lane ran its pending runnables, including the runnables they hand to each other meanwhile.
+     * @param timeoutMillis {@code >= 0}
+     * @return false if some runnables were still pending at the timeout
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitIdle(long timeoutMillis) throws InterruptedException {
+        long deadlineMillis = System.currentTimeMillis() + timeoutMillis;
+        while (!getQueueDepthMap().isEmpty()) {
+            if (System.currentTimeMillis() >= deadlineMillis) {
+                return false;
+            }
+            Thread.sleep(IDLE_POLL_MILLIS);
+        }
+        return true;
+    }
+
+    public void shutdownNow() {
+        executorService.shutdownNow();
+        problemIdToLaneMap.clear();
+    }
+
+    private class Lane implements Executor {
+
+        private final Object problemId;
+        private final Queue<Runnable> runnableQueue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queueDepth = new AtomicInteger(0);
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+        private Lane(Object problemId) {
+            this.problemId = problemId;
+        }
+
+        @Override
+        public void execute(Runnable runnable) {
+            if (executorService.isShutdown()) {
+                throw new RejectedExecutionException("The event handlers of problem (" + problemId
+                                                             + ") cannot run because the dispatcher is shut down.");
+            }
+            Timer dispatchLagTimer = SerialEventDispatcher.this.dispatchLagTimer;
+            if (dispatchLagTimer != null) {
+                long enqueuedNanos = System.nanoTime();
+                Runnable untimedRunnable = runnable;
+                runnable = () -> {
+                    dispatchLagTimer.record(System.nanoTime() - enqueuedNanos, TimeUnit.NANOSECONDS);
+                    untimedRunnable.run();
+                };
+            }
+            queueDepth.incrementAndGet();
+            runnableQueue.add(runnable);
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (scheduled.compareAndSet(false, true)) {
+                executorService.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            Runnable runnable;
+            int drainedCount = 0;
+            while (drainedCount++ < DRAIN_BATCH_SIZE && (runnable = runnableQueue.poll()) != null) {
+                try {
+                    runnable.run();
+                } catch (RuntimeException e) {
+                    logger.error("Exception in an event handler of problem (" + problemId + ").", e);
+                } finally {
+                    queueDepth.decrementAndGet();
+                }
+            }
+            scheduled.set(false);
+            // Also reschedules a runnable added between the last poll() and the reset
+            if (!runnableQueue.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.optaplanner.springboottaskassigning.solver;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Handle of a submitted problem, to compose and await its solving without callbacks.
+ * The final best solution comes through a {@link CompletableFuture},
+ * the improving best solutions before it through {@link #subscribe(int, Consumer)}.
+ * Both run their dependents on the event handler threads of the problem, never on the solver thread.
+ */
+public class SolverJob<Solution_> {
+
+    private final Object problemId;
+    private final SolverTask<Solution_> solverTask;
+    private final SolverManager<Solution_> solverManager;
+    private final Executor eventLane;
+    private final CompletableFuture<Solution_> finalBestSolutionFuture = new CompletableFuture<>();
+    private final List<BestSolutionSubscription<Solution_>> subscriptionList = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param problemId never null
+     * @param solverTask never null
+     * @param solverManager never null, the one that solves the problem
+     * @param eventLane never null, runs the event handlers of this problem one at a time
+     */
+    public SolverJob(Object problemId, SolverTask<Solution_> solverTask, SolverManager<Solution_> solverManager,
+                     Executor eventLane) {
+        this.problemId = problemId;
+        this.solverTask = solverTask;
+        this.solverManager = solverManager;
+        this.eventLane = eventLane;
+    }
+
+    public Object getProblemId() {
+        return problemId;
+    }
+
+    /**
+     * Completes with the final best solution when solving ends, also if it was stopped early.
+     * Completes exceptionally with the exception of the solver,
+     * or with a {@link java.util.concurrent.CancellationException}
+     * if the solver manager shut down before the problem started solving.
+     * @return never null
+     */
+    public CompletableFuture<Solution_> getFinalBestSolution() {
+        return finalBestSolutionFuture;
+    }
+
+    /**
+     * Delivers every new best solution to the onBestSolution consumer, in order, starting with the current one.
+     * The consumer is never called at the same time as another event handler of the same problem.
+     * If it can't keep up, the oldest buffered best solutions are dropped, the newest one never is.
+     * @param bufferCapacity {@code >= 1}, number of best solutions that wait for a slow consumer
+     * @param onBestSolution never null
+     * @return never null, to cancel the subscription
+     */
+    public BestSolutionSubscription<Solution_> subscribe(int bufferCapacity, Consumer<Solution_> onBestSolution) {
+        BestSolutionSubscription<Solution_> subscription = new BestSolutionSubscription<>(problemId, bufferCapacity,
+                eventLane, onBestSolution);
+        subscriptionList.add(subscription);
+        // Offered after registering, so a best solution that arrives meanwhile isn't missed
+        BestSolutionSnapshot<Solution_> bestSolutionSnapshot = solverTask.getBestSolutionSnapshot();
+        if (bestSolutionSnapshot.getBestScore() != null) {
+            subscription.offer(bestSolutionSnapshot);
+        }
+        return subscription;
+    }
+
+    /**
+     * Unlike {@link SolverManager#getSolverStatus(Object)}, it keeps answering after the problem is evicted.
+     * @return never null
+     */
+    public SolverStatus getSolverStatus() {
+        return solverTask.getSolverStatus();
+    }
+
+    /**
+     * @see SolverManager#stopSolver(Object)
+     */
+    public void terminateEarly() {
+        solverManager.stopSolver(problemId);
+    }
+
+    /**
+     * Called by the solver thread.
+     */
+    void publishBestSolution() {
+        if (subscriptionList.isEmpty()) {
+            return;
+        }
+        BestSolutionSnapshot<Solution_> bestSolutionSnapshot = solverTask.getBestSolutionSnapshot();
+        for (BestSolutionSubscription<Solution_> subscription : subscriptionList) {
+            if (subscription.isCancelled()) {
+                subscriptionList.remove(subscription);
+            } else {
+                subscription.offer(bestSolutionSnapshot);
+            }
+        }
+    }
+
+    void complete(Solution_ finalBestSolution, Throwable throwable) {
+        if (throwable == null) {
+            finalBestSolutionFuture.complete(finalBestSolution);
+        } else {
+            finalBestSolutionFuture.completeExceptionally(throwable);
+        }
+    }
+}
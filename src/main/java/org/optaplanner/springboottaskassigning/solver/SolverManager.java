@@ -16,12 +16,19 @@
 
 package org.optaplanner.springboottaskassigning.solver;
 
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ThreadFactory;
 import java.util.function.Consumer;
 
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.optaplanner.core.api.score.Score;
+import org.optaplanner.core.impl.solver.ProblemFactChange;
 
-public interface SolverManager<Solution_> {
+/**
+ * Its metrics are only recorded once it's bound to a meter registry, see {@link MeterBinder#bindTo}.
+ */
+public interface SolverManager<Solution_> extends MeterBinder {
 
     static <Solution_> SolverManager<Solution_> createFromXmlResource(String solverConfigResource) {
         return new DefaultSolverManager<>(solverConfigResource);
@@ -40,26 +47,175 @@ public interface SolverManager<Solution_> {
         return new DefaultSolverManager<>(solverConfigResource, classLoader, threadFactory);
     }
 
+    static <Solution_> SolverManager<Solution_> createFromXmlResource(String solverConfigResource,
+                                                                      ClassLoader classLoader, ThreadFactory threadFactory,
+                                                                      SolverManagerConfig solverManagerConfig) {
+        return new DefaultSolverManager<>(solverConfigResource, classLoader, threadFactory, solverManagerConfig);
+    }
+
+    /**
+     * Finished problems are archived when solving ends, so they can be evicted from memory
+     * and still be read afterwards. Without an archive, evicted problems are forgotten.
+     * Set it before the first problem is submitted.
+     * @param solverTaskArchive null to forget evicted problems
+     */
+    void setSolverTaskArchive(SolverTaskArchive<Solution_> solverTaskArchive);
+
+    /**
+     * Compiles the score rules, fills the solver pool and solves the warmUpProblem for a short time,
+     * so the first submitted problems don't pay for the cold start. Blocks until the warm-up is done.
+     * @param warmUpProblem never null, a small problem that is thrown away afterwards
+     */
+    void warmUp(Solution_ warmUpProblem);
+
+    /**
+     * @throws IllegalArgumentException if a problem with the same problemId is already submitted
+     * @throws java.util.concurrent.RejectedExecutionException if the solver queue is full
+     */
     void solve(Object problemId,
                Solution_ planningProblem,
                Consumer<Solution_> onBestSolutionChangedEvent,
                Consumer<Solution_> onSolvingEnded);
 
+    /**
+     * @throws IllegalArgumentException if a problem with the same problemId is already submitted
+     * @throws java.util.concurrent.RejectedExecutionException if the solver queue is full
+     */
     void solve(Object problemId,
                Solution_ planningProblem,
                Consumer<Solution_> onBestSolutionChangedEvent,
                Consumer<Solution_> onSolvingEnded,
                Consumer<Throwable> onException);
 
+    /**
+     * @param solverTaskConfig never null, the options of this problem only
+     * @throws IllegalArgumentException if a problem with the same problemId is already submitted
+     * @throws java.util.concurrent.RejectedExecutionException if the solver queue is full
+     */
+    void solve(Object problemId,
+               Solution_ planningProblem,
+               SolverTaskConfig solverTaskConfig,
+               Consumer<Solution_> onBestSolutionChangedEvent,
+               Consumer<Solution_> onSolvingEnded,
+               Consumer<Throwable> onException);
+
+    /**
+     * Like {@link #solve(Object, Object, Consumer, Consumer)}, but returns a handle to compose and await the solving
+     * instead of taking callbacks.
+     * @return never null
+     * @throws IllegalArgumentException if a problem with the same problemId is already submitted
+     * @throws java.util.concurrent.RejectedExecutionException if the solver queue is full
+     */
+    SolverJob<Solution_> submit(Object problemId, Solution_ planningProblem);
+
+    /**
+     * @param solverTaskConfig never null, the options of this problem only
+     * @return never null
+     * @throws IllegalArgumentException if a problem with the same problemId is already submitted
+     * @throws java.util.concurrent.RejectedExecutionException if the solver queue is full
+     * @see #submit(Object, Object)
+     */
+    SolverJob<Solution_> submit(Object problemId, Solution_ planningProblem, SolverTaskConfig solverTaskConfig);
+
     void stopSolver(Object problemId);
 
+    /**
+     * Gives the solver thread of the problem to the next queued problem.
+     * A solving problem keeps its status until it notices the pause, which usually takes a few milliseconds.
+     * @throws IllegalArgumentException if the problem was not submitted
+     * @throws IllegalStateException if the problem has ended or is already paused
+     */
+    void pauseSolver(Object problemId);
+
+    /**
+     * Queues a paused problem again, it continues from its best solution with the rest of its time spent limit.
+     * @throws IllegalArgumentException if the problem was not submitted
+     * @throws IllegalStateException if the problem is not paused
+     * @throws java.util.concurrent.RejectedExecutionException if the solver queue is full
+     */
+    void resumeSolver(Object problemId);
+
+    /**
+     * Changes the problem while it's queued, solving or paused, without losing the solving progress.
+     * The changes that arrive within the batch interval restart the solver only once.
+     * A queued or paused problem gets them when it starts solving again.
+     * Like any solver restart, the changes give the problem its full termination again.
+     * @param problemFactChangeList never null, every change must be idempotent,
+     * because a change the solver didn't process before a pause is done again after it
+     * @throws IllegalArgumentException if the problem was not submitted
+     * @throws IllegalStateException if the problem has ended
+     */
+    void addProblemFactChanges(Object problemId, List<ProblemFactChange<Solution_>> problemFactChangeList);
+
+    /**
+     * @return true if the problem hasn't ended yet or it's still in the finished problem cache.
+     * A problem that was evicted from that cache can be submitted again.
+     */
     boolean isProblemSubmitted(Object problemId);
 
+    /**
+     * @return null if the problem is not waiting in the solver queue
+     */
+    SolverQueuePosition getQueuePosition(Object problemId);
+
+    /**
+     * @return number of submitted problems that wait for a solver thread
+     */
+    int getQueueSize();
+
+    /**
+     * A growing queue depth means the event handlers of that problem can't keep up.
+     * @return number of event handler calls of that problem that wait or run
+     */
+    int getEventQueueDepth(Object problemId);
+
+    /**
+     * @return never null, the event queue depth of every problem with pending event handler calls
+     */
+    Map<Object, Integer> getEventQueueDepthMap();
+
+    /**
+     * @return number of cores the problem solves on, 0 if it's not solving
+     */
+    int getAllocatedCoreCount(Object problemId);
+
+    /**
+     * A finished problem that was evicted from memory is read from the {@link SolverTaskArchive}.
+     * @return null if the problem was not submitted
+     */
     Solution_ getBestSolution(Object problemId);
 
+    /**
+     * @return null if the problem was not submitted or never started solving
+     * @see #getBestSolution(Object)
+     */
     Score<?> getBestScore(Object problemId);
 
+    /**
+     * @return null if the problem was not submitted
+     * @see #getBestSolution(Object)
+     */
     SolverStatus getSolverStatus(Object problemId);
 
+    /**
+     * @return number of finished problems that are kept in memory
+     */
+    int getFinishedProblemCacheSize();
+
+    /**
+     * @return number of finished problem lookups that were answered from memory
+     */
+    long getFinishedProblemCacheHitCount();
+
+    /**
+     * @return number of finished problem lookups that had to read the {@link SolverTaskArchive}
+     */
+    long getFinishedProblemCacheMissCount();
+
+    /**
+     * Rejects new problems and terminates every solver early. Within the shutdown timeout, the final best solution
+     * of every problem still reaches its event handlers. The problems that didn't finish are
+     * {@link SolverTaskArchive#checkpoint(FinishedSolverTask) checkpointed} instead of archived.
+     */
     void shutdown();
 }
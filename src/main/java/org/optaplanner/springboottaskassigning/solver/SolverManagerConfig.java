@@ -0,0 +1,495 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.springboottaskassigning.solver;
+
+import org.optaplanner.core.impl.partitionedsearch.partitioner.SolutionPartitioner;
+
+public class SolverManagerConfig {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 100;
+    public static final long DEFAULT_BEST_SOLUTION_EVENT_INTERVAL_MILLIS = 1000L;
+    public static final long DEFAULT_WARM_UP_MILLIS = 1000L;
+    public static final long DEFAULT_PROBLEM_FACT_CHANGE_BATCH_MILLIS = 500L;
+    public static final int DEFAULT_FINISHED_PROBLEM_CACHE_SIZE = 100;
+    public static final long DEFAULT_FINISHED_PROBLEM_IDLE_MILLIS = 600_000L;
+    public static final long DEFAULT_SHUTDOWN_TIMEOUT_MILLIS = 10_000L;
+    public static final int DEFAULT_STARTUP_PAGE_SIZE = 100;
+
+    /**
+     * Number of problems that are solved at the same time, the other submitted problems wait in the queue.
+     */
+    private int parallelSolverCount = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    /**
+     * Number of submitted problems that can wait for a free solver thread before new submissions are rejected.
+     */
+    private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+    /**
+     * Number of problems whose event handlers run at the same time, defaults to the parallelSolverCount.
+     * The event handlers of one problem always run one at a time, in order.
+     */
+    private Integer eventHandlerThreadCount = null;
+    /**
+     * Minimum time between 2 onBestSolutionChangedEvent calls of the same problem,
+     * the best solutions in between are coalesced into the newest one.
+     */
+    private long bestSolutionEventIntervalMillis = DEFAULT_BEST_SOLUTION_EVENT_INTERVAL_MILLIS;
+    /**
+     * Number of idle solvers that are kept to be reused by the next submitted problems, 0 to build a new solver
+     * for every problem.
+     */
+    private int solverPoolSize = 0;
+    /**
+     * If true, the score rules are compiled, the solver pool is filled and a small problem is solved at startup,
+     * so the first submitted problem doesn't pay for it.
+     */
+    private boolean warmUp = false;
+    /**
+     * How long the warm-up problem is solved.
+     */
+    private long warmUpMillis = DEFAULT_WARM_UP_MILLIS;
+    /**
+     * Number of cores that the solving problems share through multithreaded solving,
+     * 0 to solve every problem on a single thread.
+     * Needs a time slice, because a problem only changes its share of the cores between 2 time slices.
+     */
+    private int coreBudget = 0;
+    /**
+     * How long a problem solves before it gives its solver thread to a problem that waits in the queue,
+     * or its cores to a problem that waits for a core of the core budget,
+     * 0 to solve every problem until its termination.
+     * A problem that gives up its thread continues from its best solution when it's at the front of the queue again.
+     */
+    private long timeSliceMillis = 0L;
+    /**
+     * How long problem fact changes are collected before they are handed to the solver,
+     * so a burst of changes restarts the solver only once. 0 to hand every change over right away.
+     */
+    private long problemFactChangeBatchMillis = DEFAULT_PROBLEM_FACT_CHANGE_BATCH_MILLIS;
+    /**
+     * Number of finished problems whose best solution, score and status are kept in memory.
+     * The least recently used ones are evicted first and are then only read from the {@link SolverTaskArchive}.
+     */
+    private int finishedProblemCacheSize = DEFAULT_FINISHED_PROBLEM_CACHE_SIZE;
+    /**
+     * How long a finished problem stays in memory without being read, 0 to only evict when the cache is full.
+     */
+    private long finishedProblemIdleMillis = DEFAULT_FINISHED_PROBLEM_IDLE_MILLIS;
+    /**
+     * Default time spent limit per unit of problem scale, so small problems stop long before big ones.
+     * 0 to give every problem the time spent limit of the solver config.
+     * The time spent limit of the solver config stays the maximum.
+     * Only used for the problems without a terminationConfig of their own.
+     */
+    private long terminationMillisPerProblemScale = 0L;
+    /**
+     * Lower bound of the default time spent limit that scales with the problem scale.
+     */
+    private long minimumTerminationMillis = 0L;
+    /**
+     * Default time spent without a better best solution after which a problem stops, 0 to never stop early.
+     * Only used for the problems without a terminationConfig of their own.
+     */
+    private long unimprovedTerminationMillis = 0L;
+    /**
+     * Problems with at least this problem scale are split into partitions that are solved in parallel
+     * and then merged, followed by a local search across the partitions. 0 to never partition.
+     * Requires a solutionPartitionerClass.
+     */
+    private long partitionedSearchProblemScale = 0L;
+    /**
+     * Splits the problems that are big enough for partitioned search.
+     */
+    private Class<? extends SolutionPartitioner<?>> solutionPartitionerClass = null;
+    /**
+     * How long a shutdown waits for the solvers to terminate early and for the final best solution of every problem
+     * to be handed to its event handlers, 0 to stop everything right away and drop the pending events.
+     */
+    private long shutdownTimeoutMillis = DEFAULT_SHUTDOWN_TIMEOUT_MILLIS;
+    /**
+     * If true, the problems that are loaded again at startup skip the ones that already finished
+     * and only solve for the rest of their time spent limit, from their last saved best solution.
+     */
+    private boolean resumeWithRemainingTime = false;
+    /**
+     * Number of problem ids that are read at once when the saved problems are loaded at startup,
+     * each problem itself is only read right before it's submitted.
+     */
+    private int startupPageSize = DEFAULT_STARTUP_PAGE_SIZE;
+    /**
+     * Pause between 2 saved problems that are submitted at startup, so they don't all start at once.
+     */
+    private long startupStaggerMillis = 0L;
+
+    public int getParallelSolverCount() {
+        return parallelSolverCount;
+    }
+
+    public void setParallelSolverCount(int parallelSolverCount) {
+        this.parallelSolverCount = parallelSolverCount;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public Integer getEventHandlerThreadCount() {
+        return eventHandlerThreadCount;
+    }
+
+    public void setEventHandlerThreadCount(Integer eventHandlerThreadCount) {
+        this.eventHandlerThreadCount = eventHandlerThreadCount;
+    }
+
+    public long getBestSolutionEventIntervalMillis() {
+        return bestSolutionEventIntervalMillis;
+    }
+
+    public void setBestSolutionEventIntervalMillis(long bestSolutionEventIntervalMillis) {
+        this.bestSolutionEventIntervalMillis = bestSolutionEventIntervalMillis;
+    }
+
+    public int getSolverPoolSize() {
+        return solverPoolSize;
+    }
+
+    public void setSolverPoolSize(int solverPoolSize) {
+        this.solverPoolSize = solverPoolSize;
+    }
+
+    public boolean isWarmUp() {
+        return warmUp;
+    }
+
+    public void setWarmUp(boolean warmUp) {
+        this.warmUp = warmUp;
+    }
+
+    public long getWarmUpMillis() {
+        return warmUpMillis;
+    }
+
+    public void setWarmUpMillis(long warmUpMillis) {
+        this.warmUpMillis = warmUpMillis;
+    }
+
+    public int getCoreBudget() {
+        return coreBudget;
+    }
+
+    public void setCoreBudget(int coreBudget) {
+        this.coreBudget = coreBudget;
+    }
+
+    public long getTimeSliceMillis() {
+        return timeSliceMillis;
+    }
+
+    public void setTimeSliceMillis(long timeSliceMillis) {
+        this.timeSliceMillis = timeSliceMillis;
+    }
+
+    public long getProblemFactChangeBatchMillis() {
+        return problemFactChangeBatchMillis;
+    }
+
+    public void setProblemFactChangeBatchMillis(long problemFactChangeBatchMillis) {
+        this.problemFactChangeBatchMillis = problemFactChangeBatchMillis;
+    }
+
+    public int getFinishedProblemCacheSize() {
+        return finishedProblemCacheSize;
+    }
+
+    public void setFinishedProblemCacheSize(int finishedProblemCacheSize) {
+        this.finishedProblemCacheSize = finishedProblemCacheSize;
+    }
+
+    public long getFinishedProblemIdleMillis() {
+        return finishedProblemIdleMillis;
+    }
+
+    public void setFinishedProblemIdleMillis(long finishedProblemIdleMillis) {
+        this.finishedProblemIdleMillis = finishedProblemIdleMillis;
+    }
+
+    public long getTerminationMillisPerProblemScale() {
+        return terminationMillisPerProblemScale;
+    }
+
+    public void setTerminationMillisPerProblemScale(long terminationMillisPerProblemScale) {
+        this.terminationMillisPerProblemScale = terminationMillisPerProblemScale;
+    }
+
+    public long getMinimumTerminationMillis() {
+        return minimumTerminationMillis;
+    }
+
+    public void setMinimumTerminationMillis(long minimumTerminationMillis) {
+        this.minimumTerminationMillis = minimumTerminationMillis;
+    }
+
+    public long getUnimprovedTerminationMillis() {
+        return unimprovedTerminationMillis;
+    }
+
+    public void setUnimprovedTerminationMillis(long unimprovedTerminationMillis) {
+        this.unimprovedTerminationMillis = unimprovedTerminationMillis;
+    }
+
+    public long getPartitionedSearchProblemScale() {
+        return partitionedSearchProblemScale;
+    }
+
+    public void setPartitionedSearchProblemScale(long partitionedSearchProblemScale) {
+        this.partitionedSearchProblemScale = partitionedSearchProblemScale;
+    }
+
+    public Class<? extends SolutionPartitioner<?>> getSolutionPartitionerClass() {
+        return solutionPartitionerClass;
+    }
+
+    public void setSolutionPartitionerClass(Class<? extends SolutionPartitioner<?>> solutionPartitionerClass) {
+        this.solutionPartitionerClass = solutionPartitionerClass;
+    }
+
+    public long getShutdownTimeoutMillis() {
+        return shutdownTimeoutMillis;
+    }
+
+    public void setShutdownTimeoutMillis(long shutdownTimeoutMillis) {
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+    }
+
+    public boolean isResumeWithRemainingTime() {
+        return resumeWithRemainingTime;
+    }
+
+    public void setResumeWithRemainingTime(boolean resumeWithRemainingTime) {
+        this.resumeWithRemainingTime = resumeWithRemainingTime;
+    }
+
+    public int getStartupPageSize() {
+        return startupPageSize;
+    }
+
+    public void setStartupPageSize(int startupPageSize) {
+        this.startupPageSize = startupPageSize;
+    }
+
+    public long getStartupStaggerMillis() {
+        return startupStaggerMillis;
+    }
+
+    public void setStartupStaggerMillis(long startupStaggerMillis) {
+        this.startupStaggerMillis = startupStaggerMillis;
+    }
+
+    // ************************************************************************
+    // With methods
+    // ************************************************************************
+
+    public SolverManagerConfig withParallelSolverCount(int parallelSolverCount) {
+        this.parallelSolverCount = parallelSolverCount;
+        return this;
+    }
+
+    public SolverManagerConfig withQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    public SolverManagerConfig withEventHandlerThreadCount(Integer eventHandlerThreadCount) {
+        this.eventHandlerThreadCount = eventHandlerThreadCount;
+        return this;
+    }
+
+    public SolverManagerConfig withBestSolutionEventIntervalMillis(long bestSolutionEventIntervalMillis) {
+        this.bestSolutionEventIntervalMillis = bestSolutionEventIntervalMillis;
+        return this;
+    }
+
+    public SolverManagerConfig withSolverPoolSize(int solverPoolSize) {
+        this.solverPoolSize = solverPoolSize;
+        return this;
+    }
+
+    public SolverManagerConfig withWarmUp(boolean warmUp) {
+        this.warmUp = warmUp;
+        return this;
+    }
+
+    public SolverManagerConfig withWarmUpMillis(long warmUpMillis) {
+        this.warmUpMillis = warmUpMillis;
+        return this;
+    }
+
+    public SolverManagerConfig withCoreBudget(int coreBudget) {
+        this.coreBudget = coreBudget;
+        return this;
+    }
+
+    public SolverManagerConfig withTimeSliceMillis(long timeSliceMillis) {
+        this.timeSliceMillis = timeSliceMillis;
+        return this;
+    }
+
+    public SolverManagerConfig withProblemFactChangeBatchMillis(long problemFactChangeBatchMillis) {
+        this.problemFactChangeBatchMillis = problemFactChangeBatchMillis;
+        return this;
+    }
+
+    public SolverManagerConfig withFinishedProblemCacheSize(int finishedProblemCacheSize) {
+        this.finishedProblemCacheSize = finishedProblemCacheSize;
+        return this;
+    }
+
+    public SolverManagerConfig withFinishedProblemIdleMillis(long finishedProblemIdleMillis) {
+        this.finishedProblemIdleMillis = finishedProblemIdleMillis;
+        return this;
+    }
+
+    public SolverManagerConfig withTerminationMillisPerProblemScale(long terminationMillisPerProblemScale) {
+        this.terminationMillisPerProblemScale = terminationMillisPerProblemScale;
+        return this;
+    }
+
+    public SolverManagerConfig withMinimumTerminationMillis(long minimumTerminationMillis) {
+        this.minimumTerminationMillis = minimumTerminationMillis;
+        return this;
+    }
+
+    public SolverManagerConfig withUnimprovedTerminationMillis(long unimprovedTerminationMillis) {
+        this.unimprovedTerminationMillis = unimprovedTerminationMillis;
+        return this;
+    }
+
+    public SolverManagerConfig withPartitionedSearchProblemScale(long partitionedSearchProblemScale) {
+        this.partitionedSearchProblemScale = partitionedSearchProblemScale;
+        return this;
+    }
+
+    public SolverManagerConfig withSolutionPartitionerClass(
+            Class<? extends SolutionPartitioner<?>> solutionPartitionerClass) {
+        this.solutionPartitionerClass = solutionPartitionerClass;
+        return this;
+    }
+
+    public SolverManagerConfig withShutdownTimeoutMillis(long shutdownTimeoutMillis) {
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+        return this;
+    }
+
+    public SolverManagerConfig withResumeWithRemainingTime(boolean resumeWithRemainingTime) {
+        this.resumeWithRemainingTime = resumeWithRemainingTime;
+        return this;
+    }
+
+    public SolverManagerConfig withStartupPageSize(int startupPageSize) {
+        this.startupPageSize = startupPageSize;
+        return this;
+    }
+
+    public SolverManagerConfig withStartupStaggerMillis(long startupStaggerMillis) {
+        this.startupStaggerMillis = startupStaggerMillis;
+        return this;
+    }
+
+    public int resolveEventHandlerThreadCount() {
+        return eventHandlerThreadCount == null ? parallelSolverCount : eventHandlerThreadCount;
+    }
+
+    public void validate() {
+        if (parallelSolverCount < 1) {
+            throw new IllegalArgumentException("The parallelSolverCount (" + parallelSolverCount
+                                                       + ") must be at least 1.");
+        }
+        if (eventHandlerThreadCount != null && eventHandlerThreadCount < 1) {
+            throw new IllegalArgumentException("The eventHandlerThreadCount (" + eventHandlerThreadCount
+                                                       + ") must be at least 1.");
+        }
+        if (queueCapacity < 0) {
+            throw new IllegalArgumentException("The queueCapacity (" + queueCapacity + ") cannot be negative.");
+        }
+        if (bestSolutionEventIntervalMillis < 0L) {
+            throw new IllegalArgumentException("The bestSolutionEventIntervalMillis (" + bestSolutionEventIntervalMillis
+                                                       + ") cannot be negative.");
+        }
+        if (solverPoolSize < 0) {
+            throw new IllegalArgumentException("The solverPoolSize (" + solverPoolSize + ") cannot be negative.");
+        }
+        if (coreBudget < 0) {
+            throw new IllegalArgumentException("The coreBudget (" + coreBudget + ") cannot be negative.");
+        }
+        if (timeSliceMillis < 0L) {
+            throw new IllegalArgumentException("The timeSliceMillis (" + timeSliceMillis + ") cannot be negative.");
+        }
+        if (coreBudget > 0 && timeSliceMillis == 0L) {
+            throw new IllegalArgumentException("The coreBudget (" + coreBudget + ") needs a timeSliceMillis ("
+                                                       + timeSliceMillis + ") to rebalance the cores.");
+        }
+        if (problemFactChangeBatchMillis < 0L) {
+            throw new IllegalArgumentException("The problemFactChangeBatchMillis (" + problemFactChangeBatchMillis
+                                                       + ") cannot be negative.");
+        }
+        if (finishedProblemCacheSize < 0) {
+            throw new IllegalArgumentException("The finishedProblemCacheSize (" + finishedProblemCacheSize
+                                                       + ") cannot be negative.");
+        }
+        if (finishedProblemIdleMillis < 0L) {
+            throw new IllegalArgumentException("The finishedProblemIdleMillis (" + finishedProblemIdleMillis
+                                                       + ") cannot be negative.");
+        }
+        if (terminationMillisPerProblemScale < 0L) {
+            throw new IllegalArgumentException("The terminationMillisPerProblemScale ("
+                                                       + terminationMillisPerProblemScale + ") cannot be negative.");
+        }
+        if (minimumTerminationMillis < 0L) {
+            throw new IllegalArgumentException("The minimumTerminationMillis (" + minimumTerminationMillis
+                                                       + ") cannot be negative.");
+        }
+        if (unimprovedTerminationMillis < 0L) {
+            throw new IllegalArgumentException("The unimprovedTerminationMillis (" + unimprovedTerminationMillis
+                                                       + ") cannot be negative.");
+        }
+        if (partitionedSearchProblemScale < 0L) {
+            throw new IllegalArgumentException("The partitionedSearchProblemScale (" + partitionedSearchProblemScale
+                                                       + ") cannot be negative.");
+        }
+        if (partitionedSearchProblemScale > 0L && solutionPartitionerClass == null) {
+            throw new IllegalArgumentException("The partitionedSearchProblemScale (" + partitionedSearchProblemScale
+                                                       + ") requires a solutionPartitionerClass.");
+        }
+        if (warmUpMillis < 0L) {
+            throw new IllegalArgumentException("The warmUpMillis (" + warmUpMillis + ") cannot be negative.");
+        }
+        if (shutdownTimeoutMillis < 0L) {
+            throw new IllegalArgumentException("The shutdownTimeoutMillis (" + shutdownTimeoutMillis
+                                                       + ") cannot be negative.");
+        }
+        if (startupPageSize < 1) {
+            throw new IllegalArgumentException("The startupPageSize (" + startupPageSize + ") must be at least 1.");
+        }
+        if (startupStaggerMillis < 0L) {
+            throw new IllegalArgumentException("The startupStaggerMillis (" + startupStaggerMillis
+                                                       + ") cannot be negative.");
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.springboottaskassigning.solver;
+
+/**
+ * Immutable view of where a submitted problem waits in the solver queue.
+ */
+public class SolverQueuePosition {
+
+    private final int position;
+    private final int queueSize;
+    private final long estimatedWaitMillis;
+
+    public SolverQueuePosition(int position, int queueSize, long estimatedWaitMillis) {
+        this.position = position;
+        this.queueSize = queueSize;
+        this.estimatedWaitMillis = estimatedWaitMillis;
+    }
+
+    /**
+     * @return 0 for the problem that starts solving next
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    /**
+     * @return -1 if no solving duration has been measured yet
+     */
+    public long getEstimatedWaitMillis() {
+        return estimatedWaitMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "position " + position + " of " + queueSize + " (~" + estimatedWaitMillis + " ms)";
+    }
+}
@@ -17,7 +17,12 @@
 package org.optaplanner.springboottaskassigning.solver;
 
 public enum SolverStatus {
+    QUEUED,
     SOLVING,
+    /**
+     * Waits for a resume, the best solution so far is the warm start of the next time slice.
+     */
+    PAUSED,
     STOPPED,
     TERMINATED_EARLY
 }
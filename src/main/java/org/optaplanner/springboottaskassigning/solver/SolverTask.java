@@ -16,9 +16,16 @@
 
 package org.optaplanner.springboottaskassigning.solver;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.optaplanner.core.api.score.Score;
 import org.optaplanner.core.api.solver.Solver;
+import org.optaplanner.core.api.solver.event.BestSolutionChangedEvent;
 import org.optaplanner.core.api.solver.event.SolverEventListener;
+import org.optaplanner.core.impl.solver.DefaultSolver;
+import org.optaplanner.core.impl.solver.ProblemFactChange;
+import org.optaplanner.core.impl.solver.scope.DefaultSolverScope;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -27,49 +34,433 @@ public class SolverTask<Solution_> {
     private static final Logger logger = LoggerFactory.getLogger(SolverTask.class);
 
     private final Object problemId;
-    private Solver<Solution_> solver;
-    private Solution_ planningProblem;
+    // Null until attached, while paused or queued between 2 time slices, and after it's released
+    private volatile Solver<Solution_> solver = null;
+    private volatile boolean released = false;
+    // Replaced for every new best solution, so readers never lock and never see a solution the solver changes.
+    // Also the warm start after a pause.
+    private volatile BestSolutionSnapshot<Solution_> bestSolutionSnapshot;
+    private final SolverEventListener<Solution_> bestSolutionSnapshotPublisher = this::publishBestSolutionSnapshot;
+    private volatile long solvingStartedMillis = -1L;
+    private volatile long firstSolvingStartedMillis = -1L;
+    // Of the solvers that were detached, for example between 2 time slices
+    private volatile long previousSolversScoreCalculationCount = 0L;
+    private volatile long previousSlicesTimeMillisSpent = 0L;
+    // Problem fact changes restart the solver with its full termination, so the time spent starts over too
+    private volatile long restartedMillis = -1L;
+    private volatile boolean terminateEarlyRequested = false;
+    private volatile boolean pauseRequested = false;
+    private volatile boolean resumeAfterPause = false;
+    private volatile boolean paused = false;
+    private final List<SolverEventListener<Solution_>> eventListenerList = new ArrayList<>();
+    // Not handed to a solver yet
+    private final List<ProblemFactChange<Solution_>> pendingProblemFactChangeList = new ArrayList<>();
+    // Handed to the current solver, but maybe not processed yet
+    private final List<ProblemFactChange<Solution_>> inFlightProblemFactChangeList = new ArrayList<>();
+    // From the moment the changes are handed to solve() until the time slice ends, later changes go straight to it
+    private boolean solveStarted = false;
+    // A solver that got problem fact changes might still hold some in its queue, so it isn't reused
+    private boolean solverChanged = false;
 
-    public SolverTask(Object problemId, Solver<Solution_> solver, Solution_ planningProblem) {
+    // Written before released, so the readers that see released also see it
+    private boolean finalTerminatedEarly = false;
+
+    /**
+     * Creates a placeholder, so the problemId can be registered before the (expensive) solver is built.
+     * @see #attachSolver(Solver)
+     */
+    public SolverTask(Object problemId, Solution_ planningProblem) {
+        this(problemId, planningProblem, 0L);
+    }
+
+    /**
+     * @param previousTimeMillisSpent {@code >= 0}, time spent solving the planning problem before it was submitted,
+     * it counts towards the time spent limit
+     */
+    public SolverTask(Object problemId, Solution_ planningProblem, long previousTimeMillisSpent) {
         this.problemId = problemId;
+        bestSolutionSnapshot = new BestSolutionSnapshot<>(planningProblem, null, 0L);
+        previousSlicesTimeMillisSpent = previousTimeMillisSpent;
+    }
+
+    public SolverTask(Object problemId, Solver<Solution_> solver, Solution_ planningProblem) {
+        this(problemId, planningProblem);
+        attachSolver(solver);
+    }
+
+    /**
+     * Also registers the event listeners and the stop request that arrived before the solver.
+     * @param solver never null
+     */
+    public synchronized void attachSolver(Solver<Solution_> solver) {
+        if (this.solver != null || released) {
+            throw new IllegalStateException("The problem (" + problemId + ") already has a solver.");
+        }
         this.solver = solver;
-        this.planningProblem = planningProblem;
+        // Before the other listeners, so they see the new best solution in getBestSolution() too
+        solver.addEventListener(bestSolutionSnapshotPublisher);
+        for (SolverEventListener<Solution_> eventListener : eventListenerList) {
+            solver.addEventListener(eventListener);
+        }
+        if (terminateEarlyRequested) {
+            solver.terminateEarly();
+        }
+    }
+
+    public synchronized boolean hasSolver() {
+        return solver != null;
+    }
+
+    /**
+     * Swaps the solver before solving starts, for example for one with a different move thread count.
+     * The event listeners and a stop request move along to the new solver.
+     * @param solver never null
+     * @return never null, the previous solver
+     */
+    public synchronized Solver<Solution_> replaceSolver(Solver<Solution_> solver) {
+        if (this.solver == null || !isQueued()) {
+            throw new IllegalStateException("The solver of problem (" + problemId
+                                                    + ") can only be replaced before solving starts.");
+        }
+        Solver<Solution_> previousSolver = detachEventListeners();
+        attachSolver(solver);
+        return previousSolver;
     }
 
     public Solution_ startSolving() {
+        Solver<Solution_> solver = this.solver;
+        Solution_ planningProblem = bestSolutionSnapshot.getBestSolution();
+        if (solver == null) {
+            throw new IllegalStateException("The problem (" + problemId + ") has no solver.");
+        }
+        solvingStartedMillis = System.currentTimeMillis();
+        if (firstSolvingStartedMillis < 0L) {
+            firstSolvingStartedMillis = solvingStartedMillis;
+        }
+        // Solver.solve() resets an earlier terminateEarly(), so a problem that is stopped in the queue never starts
+        if (terminateEarlyRequested || pauseRequested) {
+            logger.info("Skipping solverTask for problemId ({}) because it was stopped or paused.", problemId);
+            return planningProblem;
+        }
+        Solution_ startingSolution = cloneSolution(solver, planningProblem);
+        synchronized (this) {
+            // The solver processes them right after it starts, before the construction heuristic runs
+            solveStarted = true;
+            handOverProblemFactChanges();
+        }
         logger.info("Running solverTask for problemId ({}).", problemId);
-        return solver.solve(planningProblem);
+        return solver.solve(startingSolution);
+    }
+
+    /**
+     * The solver sets the score of the solution it starts from, so it gets a clone instead of the published snapshot.
+     */
+    private Solution_ cloneSolution(Solver<Solution_> solver, Solution_ solution) {
+        if (!(solver instanceof DefaultSolver)) {
+            return solution;
+        }
+        return ((DefaultSolver<Solution_>) solver).getScoreDirectorFactory().getSolutionDescriptor()
+                .getSolutionCloner().cloneSolution(solution);
     }
 
     public Object getProblemId() {
         return problemId;
     }
 
-    public synchronized Solution_ getBestSolution() {
-        // TODO possible race condition: planningProblem might change by solver thread
-        Solution_ bestSolution = solver.getBestSolution();
-        return bestSolution == null ? planningProblem : bestSolution;
+    /**
+     * @return -1 if the current time slice has not started yet
+     */
+    public long getSolvingStartedMillis() {
+        return solvingStartedMillis;
+    }
+
+    /**
+     * @return -1 if it never started solving, otherwise when the first time slice started
+     */
+    public long getFirstSolvingStartedMillis() {
+        return firstSolvingStartedMillis;
+    }
+
+    /**
+     * Never locks, so it can be a step behind while the solver changes.
+     * A problem fact change restarts the count of the current solver.
+     * @return number of score calculations of all solvers of this problem so far
+     */
+    public long getScoreCalculationCount() {
+        Solver<Solution_> solver = this.solver;
+        // A pooled solver still holds the count of its previous problem until it starts solving
+        return previousSolversScoreCalculationCount
+                + (solver != null && solver.isSolving() ? readScoreCalculationCount(solver) : 0L);
+    }
+
+    private static long readScoreCalculationCount(Solver<?> solver) {
+        if (!(solver instanceof DefaultSolver)) {
+            return 0L;
+        }
+        DefaultSolverScope<?> solverScope = ((DefaultSolver<?>) solver).getSolverScope();
+        // Null until the solver started solving once
+        return solverScope.getScoreDirector() == null ? 0L : solverScope.getScoreCalculationCount();
+    }
+
+    /**
+     * @return time spent solving in all time slices so far, since the last problem fact changes
+     */
+    public long getTimeMillisSpent() {
+        long solvingStartedMillis = this.solvingStartedMillis;
+        return previousSlicesTimeMillisSpent + (solvingStartedMillis < 0L ? 0L
+                : System.currentTimeMillis() - Math.max(solvingStartedMillis, restartedMillis));
+    }
+
+    public boolean isQueued() {
+        return !paused && solvingStartedMillis < 0L;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    public boolean isPauseRequested() {
+        return pauseRequested;
+    }
+
+    /**
+     * @return true if the pause was requested by the time slice scheduler, which queues it again right away
+     */
+    public boolean isResumeAfterPause() {
+        return resumeAfterPause;
+    }
+
+    public boolean isTerminateEarlyRequested() {
+        return terminateEarlyRequested;
+    }
+
+    /**
+     * Called by the solver thread. The new best solution is a clone that the solver doesn't change anymore.
+     */
+    private void publishBestSolutionSnapshot(BestSolutionChangedEvent<Solution_> event) {
+        bestSolutionSnapshot = new BestSolutionSnapshot<>(event.getNewBestSolution(), event.getNewBestScore(),
+                bestSolutionSnapshot.getSequence() + 1L);
+    }
+
+    /**
+     * Never locks.
+     * @return never null, the submitted planning problem until the solver finds a best solution
+     */
+    public BestSolutionSnapshot<Solution_> getBestSolutionSnapshot() {
+        return bestSolutionSnapshot;
+    }
+
+    public Solution_ getBestSolution() {
+        return bestSolutionSnapshot.getBestSolution();
     }
 
     public Score<?> getBestScore() {
-        return solver.getBestScore();
+        return bestSolutionSnapshot.getBestScore();
     }
 
-    public synchronized SolverStatus getSolverStatus() {
-        if (solver.isTerminateEarly()) {
+    /**
+     * Never locks, so the status can be a step behind while it changes.
+     */
+    public SolverStatus getSolverStatus() {
+        Solver<Solution_> solver = this.solver;
+        if (released) {
+            return finalTerminatedEarly ? SolverStatus.TERMINATED_EARLY : SolverStatus.STOPPED;
+        } else if (terminateEarlyRequested) {
+            return SolverStatus.TERMINATED_EARLY;
+        } else if (paused) {
+            return SolverStatus.PAUSED;
+        } else if (solver != null && solver.isTerminateEarly() && !pauseRequested) {
             return SolverStatus.TERMINATED_EARLY;
-        } else if (solver.isSolving()) {
+        } else if (solver != null && solver.isSolving()) {
             return SolverStatus.SOLVING;
+        } else if (isQueued()) {
+            return SolverStatus.QUEUED;
         } else {
             return SolverStatus.STOPPED;
         }
     }
 
-    public void addEventListener(SolverEventListener<Solution_> eventListener) {
-        solver.addEventListener(eventListener);
+    public synchronized void addEventListener(SolverEventListener<Solution_> eventListener) {
+        eventListenerList.add(eventListener);
+        if (solver != null) {
+            solver.addEventListener(eventListener);
+        }
+    }
+
+    /**
+     * Keeps the changes until {@link #flushProblemFactChanges()}, so a burst of changes restarts the solver only once.
+     * Every change must be idempotent: after a pause, the changes that the solver might not have processed
+     * are handed to the next solver again.
+     * @param problemFactChangeList never null
+     */
+    public synchronized void addProblemFactChanges(List<ProblemFactChange<Solution_>> problemFactChangeList) {
+        if (released) {
+            throw new IllegalStateException("Problem (" + problemId + ") has already ended.");
+        }
+        pendingProblemFactChangeList.addAll(problemFactChangeList);
+    }
+
+    /**
+     * Hands the pending changes to the solver as one batch, if it's solving.
+     * Otherwise they wait for the next time slice.
+     */
+    public synchronized void flushProblemFactChanges() {
+        if (solver != null && solveStarted && !pauseRequested && !terminateEarlyRequested) {
+            handOverProblemFactChanges();
+        }
+    }
+
+    private void handOverProblemFactChanges() {
+        if (pendingProblemFactChangeList.isEmpty()) {
+            return;
+        }
+        if (solver.isEveryProblemFactChangeProcessed()) {
+            inFlightProblemFactChangeList.clear();
+        }
+        inFlightProblemFactChangeList.addAll(pendingProblemFactChangeList);
+        solver.addProblemFactChanges(new ArrayList<>(pendingProblemFactChangeList));
+        logger.debug("Handed {} problem fact changes to the solver of problemId ({}).",
+                pendingProblemFactChangeList.size(), problemId);
+        pendingProblemFactChangeList.clear();
+        solverChanged = true;
+        previousSlicesTimeMillisSpent = 0L;
+        restartedMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * @return number of changes that wait for the next flush or time slice
+     */
+    public synchronized int getPendingProblemFactChangeCount() {
+        return pendingProblemFactChangeList.size();
+    }
+
+    /**
+     * @return false if the solver got problem fact changes, so it must not solve another problem
+     */
+    public synchronized boolean isSolverReusable() {
+        return !solverChanged;
+    }
+
+    public synchronized void stopSolver() {
+        // Once released, the solver might already solve another problem
+        if (released) {
+            return;
+        }
+        terminateEarlyRequested = true;
+        if (solver != null) {
+            solver.terminateEarly();
+        }
+    }
+
+    /**
+     * Ends the current time slice, the solver keeps solving until it notices.
+     * @param resumeAfterPause true to queue it again right away, false to wait for {@link #resume()}
+     * @return false if it's not solving or already pausing
+     */
+    public synchronized boolean requestPause(boolean resumeAfterPause) {
+        if (released || paused || terminateEarlyRequested) {
+            return false;
+        }
+        if (pauseRequested) {
+            // An explicit pause wins over the time slice scheduler
+            if (!resumeAfterPause) {
+                this.resumeAfterPause = false;
+            }
+            return true;
+        }
+        pauseRequested = true;
+        this.resumeAfterPause = resumeAfterPause;
+        if (solver != null) {
+            solver.terminateEarly();
+        }
+        return true;
+    }
+
+    /**
+     * Pauses a problem that is waiting in the solver queue and has been taken out of it.
+     */
+    public synchronized void pauseQueued() {
+        paused = true;
     }
 
-    public void stopSolver() {
-        solver.terminateEarly();
+    /**
+     * Ends a time slice: the best solution snapshot becomes the warm start of the next time slice.
+     * @param paused true if the problem waits for {@link #resume()}, false if it's queued again right away
+     * @return never null, the detached solver
+     */
+    public synchronized Solver<Solution_> detachSolver(boolean paused) {
+        if (solver == null) {
+            throw new IllegalStateException("The problem (" + problemId + ") has no solver to detach.");
+        }
+        if (solverChanged && !solver.isEveryProblemFactChangeProcessed()) {
+            // Solving ended before the solver got to them, so the next time slice gets them again
+            pendingProblemFactChangeList.addAll(0, inFlightProblemFactChangeList);
+        }
+        inFlightProblemFactChangeList.clear();
+        solveStarted = false;
+        long solvingStartedMillis = this.solvingStartedMillis;
+        if (solvingStartedMillis >= 0L) {
+            previousSlicesTimeMillisSpent +=
+                    System.currentTimeMillis() - Math.max(solvingStartedMillis, restartedMillis);
+        }
+        restartedMillis = -1L;
+        Solver<Solution_> detachedSolver = detachEventListeners();
+        this.solvingStartedMillis = -1L;
+        pauseRequested = false;
+        resumeAfterPause = false;
+        this.paused = paused;
+        solverChanged = false;
+        return detachedSolver;
+    }
+
+    /**
+     * @return true if it was paused, so the caller is the one that has to queue it again
+     */
+    public synchronized boolean resume() {
+        if (!paused) {
+            return false;
+        }
+        paused = false;
+        return true;
+    }
+
+    private Solver<Solution_> detachEventListeners() {
+        Solver<Solution_> detachedSolver = solver;
+        if (solvingStartedMillis >= 0L) {
+            previousSolversScoreCalculationCount += readScoreCalculationCount(detachedSolver);
+        }
+        detachedSolver.removeEventListener(bestSolutionSnapshotPublisher);
+        for (SolverEventListener<Solution_> eventListener : eventListenerList) {
+            detachedSolver.removeEventListener(eventListener);
+        }
+        solver = null;
+        return detachedSolver;
+    }
+
+    /**
+     * Detaches the solver after solving ended, so it can be reused for another problem.
+     * Afterwards this task keeps answering with the last best solution snapshot and the final status.
+     * @return null if no solver is attached, for example if solving ended while paused
+     */
+    public synchronized Solver<Solution_> releaseSolver() {
+        if (released) {
+            throw new IllegalStateException("The problem (" + problemId + ") is already released.");
+        }
+        finalTerminatedEarly = terminateEarlyRequested || (solver != null && solver.isTerminateEarly());
+        if (solverChanged && !solver.isEveryProblemFactChangeProcessed()) {
+            pendingProblemFactChangeList.addAll(0, inFlightProblemFactChangeList);
+        }
+        Solver<Solution_> releasedSolver = solver == null ? null : detachEventListeners();
+        eventListenerList.clear();
+        if (!pendingProblemFactChangeList.isEmpty()) {
+            logger.info("Problem ({}) ended before its solver did {} problem fact changes.",
+                    problemId, pendingProblemFactChangeList.size());
+            pendingProblemFactChangeList.clear();
+        }
+        inFlightProblemFactChangeList.clear();
+        solveStarted = false;
+        paused = false;
+        released = true;
+        return releasedSolver;
     }
 }
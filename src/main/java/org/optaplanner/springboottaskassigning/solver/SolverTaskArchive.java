@@ -0,0 +1,47 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.optaplanner.springboottaskassigning.solver;
+
+/**
+ * Keeps finished problems outside the heap, so the solver manager can evict them from memory
+ * and still answer for them afterwards.
+ * Called by solver threads and request threads at the same time, so implementations must be thread-safe.
+ */
+public interface SolverTaskArchive<Solution_> {
+
+    /**
+     * Called once per problem, right after solving ended and before the solving ended event.
+     * @param finishedSolverTask never null
+     */
+    void archive(FinishedSolverTask<Solution_> finishedSolverTask);
+
+    /**
+     * @param problemId never null
+     * @return null if that problem was never archived
+     */
+    FinishedSolverTask<Solution_> load(Object problemId);
+
+    /**
+     * Called once per problem that was queued, solving or paused when the solver manager shut down,
+     * after the shutdown waited for its final best solution events. Such a problem is never archived.
+     * Its time spent can be handed to {@link SolverTaskConfig#withPreviousTimeMillisSpent(long)} to resume it later.
+     * @param interruptedSolverTask never null, its status is the one it had when the shutdown started
+     */
+    default void checkpoint(FinishedSolverTask<Solution_> interruptedSolverTask) {
+    }
+}
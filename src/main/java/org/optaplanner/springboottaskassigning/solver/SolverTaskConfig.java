@@ -0,0 +1,133 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.optaplanner.springboottaskassigning.solver;
+
+import org.optaplanner.core.config.solver.termination.TerminationConfig;
+
+/**
+ * Options of one submitted problem, on top of the solver config that all problems share.
+ */
+public class SolverTaskConfig {
+
+    /**
+     * Maximum number of cores this problem solves on, null to only be limited by the core budget.
+     * Ignored if the core budget of the {@link SolverManagerConfig} is 0.
+     */
+    private Integer moveThreadCount = null;
+    /**
+     * Relative size of this problem, for example its number of planning entities.
+     * A problem gets a share of the core budget in proportion to its scale.
+     */
+    private long problemScale = 1L;
+    /**
+     * When this problem stops solving, for example after an unimproved time spent or once the best score is feasible,
+     * null for the default termination of the {@link SolverManagerConfig}.
+     * The time spent limit of the solver config still applies, unless it has a time spent limit of its own.
+     */
+    private TerminationConfig terminationConfig = null;
+    /**
+     * Time this problem already spent solving before it was submitted, for example before a restart.
+     * It only solves for the rest of its time spent limit.
+     */
+    private long previousTimeMillisSpent = 0L;
+
+    public Integer getMoveThreadCount() {
+        return moveThreadCount;
+    }
+
+    public void setMoveThreadCount(Integer moveThreadCount) {
+        this.moveThreadCount = moveThreadCount;
+    }
+
+    public long getProblemScale() {
+        return problemScale;
+    }
+
+    public void setProblemScale(long problemScale) {
+        this.problemScale = problemScale;
+    }
+
+    public TerminationConfig getTerminationConfig() {
+        return terminationConfig;
+    }
+
+    public void setTerminationConfig(TerminationConfig terminationConfig) {
+        this.terminationConfig = terminationConfig;
+    }
+
+    public long getPreviousTimeMillisSpent() {
+        return previousTimeMillisSpent;
+    }
+
+    public void setPreviousTimeMillisSpent(long previousTimeMillisSpent) {
+        this.previousTimeMillisSpent = previousTimeMillisSpent;
+    }
+
+    // ************************************************************************
+    // With methods
+    // ************************************************************************
+
+    public SolverTaskConfig withMoveThreadCount(Integer moveThreadCount) {
+        this.moveThreadCount = moveThreadCount;
+        return this;
+    }
+
+    public SolverTaskConfig withProblemScale(long problemScale) {
+        this.problemScale = problemScale;
+        return this;
+    }
+
+    public SolverTaskConfig withTerminationConfig(TerminationConfig terminationConfig) {
+        this.terminationConfig = terminationConfig;
+        return this;
+    }
+
+    public SolverTaskConfig withPreviousTimeMillisSpent(long previousTimeMillisSpent) {
+        this.previousTimeMillisSpent = previousTimeMillisSpent;
+        return this;
+    }
+
+    /**
+     * The score limits of the terminationConfig are only checked when the problem is submitted,
+     * because parsing them needs the score definition.
+     */
+    public void validate() {
+        if (moveThreadCount != null && moveThreadCount < 1) {
+            throw new IllegalArgumentException("The moveThreadCount (" + moveThreadCount + ") must be at least 1.");
+        }
+        if (problemScale < 1L) {
+            throw new IllegalArgumentException("The problemScale (" + problemScale + ") must be at least 1.");
+        }
+        if (previousTimeMillisSpent < 0L) {
+            throw new IllegalArgumentException("The previousTimeMillisSpent (" + previousTimeMillisSpent
+                                                       + ") cannot be negative.");
+        }
+        if (terminationConfig != null) {
+            // Both throw an IllegalArgumentException for a negative limit
+            terminationConfig.calculateTimeMillisSpentLimit();
+            Long unimprovedTimeMillisSpentLimit = terminationConfig.calculateUnimprovedTimeMillisSpentLimit();
+            if (terminationConfig.getUnimprovedScoreDifferenceThreshold() != null
+                    && unimprovedTimeMillisSpentLimit == null) {
+                throw new IllegalArgumentException("The unimprovedScoreDifferenceThreshold ("
+                                                           + terminationConfig.getUnimprovedScoreDifferenceThreshold()
+                                                           + ") needs an unimproved time spent limit too.");
+            }
+            if (Boolean.FALSE.equals(terminationConfig.getBestScoreFeasible())) {
+                throw new IllegalArgumentException("The bestScoreFeasible (false) must be true or null.");
+            }
+        }
+    }
+}
@@ -16,8 +16,13 @@
 
 package org.optaplanner.springboottaskassigning;
 
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -25,7 +30,11 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.optaplanner.core.api.solver.SolverFactory;
+import org.optaplanner.springboottaskassigning.domain.Employee;
+import org.optaplanner.springboottaskassigning.domain.Priority;
+import org.optaplanner.springboottaskassigning.domain.Task;
 import org.optaplanner.springboottaskassigning.domain.TaskAssigningSolution;
+import org.optaplanner.springboottaskassigning.domain.TaskOrEmployee;
 import org.optaplanner.springboottaskassigning.solver.DefaultSolverManager;
 import org.optaplanner.springboottaskassigning.solver.SolverStatus;
 import org.optaplanner.springboottaskassigning.utils.TaskAssigningGenerator;
@@ -40,7 +49,10 @@ import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultMatcher;
 
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -137,6 +149,92 @@ public class TaskAssigningSolverManagerControllerTest {
         mockMvc.perform(get("/tenants/{tenantId}/solver/solverStatue", tenantId)).andExpect(status().isNotFound());
     }
 
+    @Test(timeout = 60_000)
+    public void changeTasksAndEmployeesOfASubmittedProblem() throws Exception {
+        TaskAssigningSolution planningProblem =
+                new TaskAssigningGenerator(newTenantId.getAndIncrement()).createTaskAssigningSolution(10, 4);
+        Long tenantId = planningProblem.getTenantId();
+        solveProblem(planningProblem, tenantId, status().isOk());
+        // The ids are generated when the problem is saved
+        TaskAssigningSolution solution = getBestSolution(tenantId);
+
+        TaskRequest taskRequest = new TaskRequest();
+        taskRequest.setTaskTypeId(solution.getTaskTypeList().get(0).getId());
+        taskRequest.setCustomerId(solution.getCustomerList().get(0).getId());
+        taskRequest.setPriority(Priority.CRITICAL);
+        String newTaskId = mockMvc.perform(post("/tenants/{tenantId}/tasks", tenantId)
+                .content(objectMapper.writeValueAsString(taskRequest))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        TaskRequest readyTimeRequest = new TaskRequest();
+        readyTimeRequest.setReadyTime(60);
+        mockMvc.perform(patch("/tenants/{tenantId}/tasks/{taskId}", tenantId, newTaskId)
+                .content(objectMapper.writeValueAsString(readyTimeRequest))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        Long removedTaskId = solution.getTaskList().get(0).getId();
+        mockMvc.perform(delete("/tenants/{tenantId}/tasks/{taskId}", tenantId, removedTaskId))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/tenants/{tenantId}/tasks/{taskId}", tenantId, removedTaskId))
+                .andExpect(status().isNotFound());
+        taskRequest.setTaskTypeId(-1L);
+        mockMvc.perform(post("/tenants/{tenantId}/tasks", tenantId)
+                .content(objectMapper.writeValueAsString(taskRequest))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        EmployeeRequest employeeRequest = new EmployeeRequest();
+        employeeRequest.setFullName("New employee");
+        employeeRequest.setSkillIds(Collections.singleton(solution.getSkillList().get(0).getId()));
+        mockMvc.perform(post("/tenants/{tenantId}/employees", tenantId)
+                .content(objectMapper.writeValueAsString(employeeRequest))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/tenants/{tenantId}/employees/{employeeId}", tenantId,
+                solution.getEmployeeList().get(0).getId()))
+                .andExpect(status().isOk());
+
+        SolverStatus solverStatus;
+        do { // Wait until solving ends
+            solverStatus = getSolverStatus(tenantId);
+        } while (!solverStatus.equals(SolverStatus.STOPPED));
+        solution = getBestSolution(tenantId);
+        assertEquals(10, solution.getTaskList().size());
+        assertEquals(4, solution.getEmployeeList().size());
+    }
+
+    @Test(timeout = 60_000)
+    public void terminationOfASubmittedProblem() throws Exception {
+        Long tenantId = newTenantId.getAndIncrement();
+        mockMvc.perform(post("/tenants/{tenantId}/solver/generate/{taskListSize}/{employeeListSize}", tenantId, 1, 1)
+                .param("bestScoreLimit", "not a score"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/tenants/{tenantId}/solver/status", tenantId)).andExpect(status().isNotFound());
+
+        // Without the unimproved time spent limit, the problem would solve for a minute
+        mockMvc.perform(post("/tenants/{tenantId}/solver/generate/{taskListSize}/{employeeListSize}", tenantId, 1, 1)
+                .param("millisecondsSpentLimit", "60000")
+                .param("unimprovedMillisecondsSpentLimit", "200"))
+                .andExpect(status().isOk());
+        SolverStatus solverStatus;
+        do {
+            solverStatus = getSolverStatus(tenantId);
+        } while (!solverStatus.equals(SolverStatus.STOPPED));
+    }
+
+    private TaskAssigningSolution getBestSolution(Long tenantId) throws Exception {
+        String solutionAsJsonString = mockMvc.perform(get("/tenants/{tenantId}/solver/bestSolution", tenantId)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        return objectMapper.readValue(solutionAsJsonString, TaskAssigningSolution.class);
+    }
+
     private void submitProblemsAndSolveThem(int problemSize, int taskListSizeBound, int employeeListSizeBound) {
         logger.info("Sumbitting {} problems with taskListSizeBound ({}) and employeeListSizeBound ({}).",
                 problemSize, taskListSizeBound, employeeListSizeBound);
@@ -155,6 +253,25 @@ public class TaskAssigningSolverManagerControllerTest {
         });
     }
 
+    /**
+     * The chains and their aggregates aren't serialized, but the score rules read the aggregates.
+     */
+    private static void relinkChains(TaskAssigningSolution solution) {
+        Map<Employee, List<Task>> employeeToTaskListMap = solution.getTaskList().stream()
+                .filter(task -> task.getEmployee() != null)
+                .sorted(Comparator.comparing(Task::getStartTime))
+                .collect(Collectors.groupingBy(Task::getEmployee));
+        employeeToTaskListMap.forEach((employee, taskList) -> {
+            TaskOrEmployee previousTaskOrEmployee = employee;
+            for (Task task : taskList) {
+                task.setPreviousTaskOrEmployee(previousTaskOrEmployee);
+                previousTaskOrEmployee.setNextTask(task);
+                previousTaskOrEmployee = task;
+            }
+        });
+        solution.resetChainAggregates();
+    }
+
     private void submitOneProblemAndSolveIt(int taskListSize, int employeeListSize) throws Exception {
         TaskAssigningSolution planningProblem =
                 new TaskAssigningGenerator(newTenantId.getAndIncrement()).createTaskAssigningSolution(taskListSize, employeeListSize);
@@ -177,6 +294,7 @@ public class TaskAssigningSolverManagerControllerTest {
                     .getContentAsString();
             solution = objectMapper.readValue(solutionAsJsonString, TaskAssigningSolution.class);
         } while (solution.getScore() == null);
+        relinkChains(solution);
         scoreVerifier.assertHardWeight("Skill requirements",
                 0, solution.getScore().getHardScore(0), solution);
         scoreVerifier.assertSoftWeight("Critical priority",
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.springboottaskassigning;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.optaplanner.springboottaskassigning.domain.TaskAssigningSolution;
+import org.optaplanner.springboottaskassigning.repository.EmployeeRepository;
+import org.optaplanner.springboottaskassigning.repository.TaskAssigningSolutionRepository;
+import org.optaplanner.springboottaskassigning.repository.TaskRepository;
+import org.optaplanner.springboottaskassigning.solver.SolverManager;
+import org.optaplanner.springboottaskassigning.solver.SolverManagerConfig;
+import org.optaplanner.springboottaskassigning.solver.SolverStatus;
+import org.optaplanner.springboottaskassigning.utils.TaskAssigningGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class TaskAssigningSolverManagerServiceTest {
+
+    // Smaller than every kind of saved solution, so each kind needs more than one page
+    private static final int STARTUP_PAGE_SIZE = 2;
+
+    @Autowired
+    private TaskAssigningSolutionRepository taskAssigningSolutionRepository;
+    @Autowired
+    private TaskRepository taskRepository;
+    @Autowired
+    private EmployeeRepository employeeRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private TenantLeaseService tenantLeaseService;
+
+    private List<Long> interruptedTenantIdList;
+    private List<Long> unfinishedTenantIdList;
+    private List<Long> finishedTenantIdList;
+    private List<Long> savedSolutionIdList;
+    private TaskAssigningSolverManagerService service;
+    private List<Long> submittedTenantIdList;
+
+    @Before
+    public void setup() {
+        // Negative, so it never collides with the tenants of the other tests
+        long firstTenantId = -ThreadLocalRandom.current().nextLong(1_000L, Long.MAX_VALUE / 2L);
+        interruptedTenantIdList = new ArrayList<>();
+        unfinishedTenantIdList = new ArrayList<>();
+        finishedTenantIdList = new ArrayList<>();
+        savedSolutionIdList = new ArrayList<>();
+        // Interleaved, so the interrupted solutions don't have the smallest ids
+        for (int i = 0; i < 9; i++) {
+            long tenantId = firstTenantId - i;
+            TaskAssigningSolution solution = new TaskAssigningGenerator(tenantId).createTaskAssigningSolution(2, 1);
+            switch (i % 3) {
+                case 0:
+                    unfinishedTenantIdList.add(tenantId);
+                    break;
+                case 1:
+                    solution.setInterruptedAtMillis(System.currentTimeMillis());
+                    interruptedTenantIdList.add(tenantId);
+                    break;
+                case 2:
+                    solution.setSolverStatus(SolverStatus.STOPPED);
+                    finishedTenantIdList.add(tenantId);
+                    break;
+                default:
+                    throw new IllegalStateException();
+            }
+            savedSolutionIdList.add(taskAssigningSolutionRepository.save(solution).getId());
+        }
+        submittedTenantIdList = new CopyOnWriteArrayList<>();
+    }
+
+    @After
+    public void tearDown() {
+        // Not service.tearDown(), it would shut down the shared tenant lease service
+        taskAssigningSolutionRepository.deleteAll(taskAssigningSolutionRepository.findAllById(savedSolutionIdList));
+    }
+
+    @Test
+    public void keysetPagesReadEverySolutionOnce() {
+        List<Long> interruptedIdList = readAllPages(afterId -> taskAssigningSolutionRepository.findInterruptedIds(
+                afterId, PageRequest.of(0, STARTUP_PAGE_SIZE)));
+        List<Long> unfinishedIdList = readAllPages(afterId -> taskAssigningSolutionRepository.findNotInterruptedIds(
+                afterId, false, PageRequest.of(0, STARTUP_PAGE_SIZE)));
+        List<Long> notInterruptedIdList = readAllPages(afterId -> taskAssigningSolutionRepository.findNotInterruptedIds(
+                afterId, true, PageRequest.of(0, STARTUP_PAGE_SIZE)));
+
+        assertEquals(Arrays.asList(savedSolutionIdList.get(1), savedSolutionIdList.get(4), savedSolutionIdList.get(7)),
+                ownSolutionIds(interruptedIdList));
+        assertEquals(Arrays.asList(savedSolutionIdList.get(0), savedSolutionIdList.get(3), savedSolutionIdList.get(6)),
+                ownSolutionIds(unfinishedIdList));
+        assertEquals(Arrays.asList(savedSolutionIdList.get(0), savedSolutionIdList.get(2), savedSolutionIdList.get(3),
+                savedSolutionIdList.get(5), savedSolutionIdList.get(6), savedSolutionIdList.get(8)),
+                ownSolutionIds(notInterruptedIdList));
+        assertTrue(taskAssigningSolutionRepository.countBySolverStatusIsNotNull() >= finishedTenantIdList.size());
+    }
+
+    @Test(timeout = 60_000L)
+    public void resumeSubmitsInterruptedTenantsFirstAndSkipsFinishedTenants() {
+        createService(true);
+        loadSavedTenants();
+
+        List<Long> ownSubmittedTenantIdList = ownTenantIds(submittedTenantIdList);
+        assertEquals(interruptedTenantIdList.size() + unfinishedTenantIdList.size(), ownSubmittedTenantIdList.size());
+        assertEquals(new LinkedHashSet<>(interruptedTenantIdList),
+                new LinkedHashSet<>(ownSubmittedTenantIdList.subList(0, interruptedTenantIdList.size())));
+        assertEquals(new LinkedHashSet<>(unfinishedTenantIdList),
+                new LinkedHashSet<>(ownSubmittedTenantIdList.subList(interruptedTenantIdList.size(),
+                        ownSubmittedTenantIdList.size())));
+    }
+
+    @Test(timeout = 60_000L)
+    public void withoutResumeFinishedTenantsAreSubmittedToo() {
+        createService(false);
+        loadSavedTenants();
+
+        List<Long> ownSubmittedTenantIdList = ownTenantIds(submittedTenantIdList);
+        Set<Long> notInterruptedTenantIdSet = new LinkedHashSet<>(unfinishedTenantIdList);
+        notInterruptedTenantIdSet.addAll(finishedTenantIdList);
+        assertEquals(interruptedTenantIdList.size() + notInterruptedTenantIdSet.size(),
+                ownSubmittedTenantIdList.size());
+        assertEquals(new LinkedHashSet<>(interruptedTenantIdList),
+                new LinkedHashSet<>(ownSubmittedTenantIdList.subList(0, interruptedTenantIdList.size())));
+        assertEquals(notInterruptedTenantIdSet, new LinkedHashSet<>(ownSubmittedTenantIdList.subList(
+                interruptedTenantIdList.size(), ownSubmittedTenantIdList.size())));
+    }
+
+    private void createService(boolean resumeWithRemainingTime) {
+        SolverManagerConfig solverManagerConfig = new SolverManagerConfig()
+                .withResumeWithRemainingTime(resumeWithRemainingTime)
+                .withStartupPageSize(STARTUP_PAGE_SIZE);
+        service = new TaskAssigningSolverManagerService(taskAssigningSolutionRepository, taskRepository,
+                employeeRepository, transactionManager, solverManagerConfig, tenantLeaseService,
+                new SimpleMeterRegistry());
+        SolverManager<TaskAssigningSolution> realSolverManager =
+                (SolverManager<TaskAssigningSolution>) ReflectionTestUtils.getField(service, "solverManager");
+        realSolverManager.shutdown();
+        // Only records the submitted tenants, it doesn't solve them
+        SolverManager<TaskAssigningSolution> recordingSolverManager = mock(SolverManager.class);
+        AtomicBoolean queueFull = new AtomicBoolean(true);
+        doAnswer(invocation -> {
+            // The first submission finds the queue full and has to be retried
+            if (queueFull.getAndSet(false)) {
+                throw new RejectedExecutionException("The solver queue is full.");
+            }
+            submittedTenantIdList.add((Long) invocation.getArgument(0));
+            return null;
+        }).when(recordingSolverManager).solve(any(), any(), any(), any(), any(), any());
+        ReflectionTestUtils.setField(service, "solverManager", recordingSolverManager);
+    }
+
+    private void loadSavedTenants() {
+        // On this thread instead of the startup load thread, so it's done when it returns
+        ReflectionTestUtils.invokeMethod(service, "loadSavedTenants");
+    }
+
+    private static List<Long> readAllPages(Function<Long, List<Long>> idPageFunction) {
+        List<Long> idList = new ArrayList<>();
+        Long afterId = Long.MIN_VALUE;
+        while (true) {
+            List<Long> pageIdList = idPageFunction.apply(afterId);
+            assertTrue(pageIdList.size() <= STARTUP_PAGE_SIZE);
+            idList.addAll(pageIdList);
+            if (pageIdList.size() < STARTUP_PAGE_SIZE) {
+                return idList;
+            }
+            afterId = pageIdList.get(pageIdList.size() - 1);
+        }
+    }
+
+    private List<Long> ownSolutionIds(List<Long> solutionIdList) {
+        return solutionIdList.stream().filter(savedSolutionIdList::contains).collect(Collectors.toList());
+    }
+
+    private List<Long> ownTenantIds(List<Long> tenantIdList) {
+        return tenantIdList.stream()
+                .filter(tenantId -> interruptedTenantIdList.contains(tenantId)
+                        || unfinishedTenantIdList.contains(tenantId) || finishedTenantIdList.contains(tenantId))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.optaplanner.springboottaskassigning;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.optaplanner.springboottaskassigning.repository.SolverNodeRepository;
+import org.optaplanner.springboottaskassigning.repository.TenantLeaseRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class TenantLeaseServiceTest {
+
+    private static final long LEASE_MILLIS = 1000L;
+
+    @Autowired
+    private TenantLeaseRepository tenantLeaseRepository;
+    @Autowired
+    private SolverNodeRepository solverNodeRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Long tenantId;
+    private TenantLeaseService nodeA;
+    private TenantLeaseService nodeB;
+
+    @Before
+    public void setup() {
+        // Negative, so it never collides with the tenants of the other tests
+        tenantId = -ThreadLocalRandom.current().nextLong(1_000L, Long.MAX_VALUE / 2L);
+        nodeA = createNode("A-" + tenantId, "http://node-a:8080");
+        nodeB = createNode("B-" + tenantId, "http://node-b:8080");
+    }
+
+    private TenantLeaseService createNode(String nodeId, String nodeUrl) {
+        TenantLeaseConfig tenantLeaseConfig = new TenantLeaseConfig()
+                .withEnabled(true)
+                .withNodeId(nodeId)
+                .withNodeUrl(nodeUrl)
+                .withLeaseMillis(LEASE_MILLIS)
+                .withRenewIntervalMillis(LEASE_MILLIS / 3L);
+        return new TenantLeaseService(tenantLeaseConfig, tenantLeaseRepository, solverNodeRepository,
+                transactionManager);
+    }
+
+    @After
+    public void tearDown() {
+        nodeA.shutdown();
+        nodeB.shutdown();
+    }
+
+    @Test(timeout = 10_000)
+    public void onlyOneNodeOwnsATenantUntilItsLeaseExpires() throws InterruptedException {
+        assertTrue(nodeA.claim(tenantId));
+        assertTrue(nodeA.claim(tenantId));
+        assertFalse(nodeB.claim(tenantId));
+        assertTrue(nodeA.isOwned(tenantId));
+        assertFalse(nodeB.isOwned(tenantId));
+
+        Thread.sleep(LEASE_MILLIS + 50L);
+        assertTrue(nodeB.claim(tenantId));
+        assertFalse(nodeA.claim(tenantId));
+
+        nodeB.release(tenantId);
+        assertFalse(nodeB.isOwned(tenantId));
+        assertTrue(nodeA.claim(tenantId));
+    }
+
+    @Test(timeout = 10_000)
+    public void onlyTheOwnerLocksTheLeaseUntilItExpires() throws InterruptedException {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        assertTrue(nodeA.claim(tenantId));
+        assertTrue(transactionTemplate.execute(status -> nodeA.lockLease(tenantId)));
+        assertFalse(transactionTemplate.execute(status -> nodeB.lockLease(tenantId)));
+
+        // Still owned as far as node A knows, until it renews
+        Thread.sleep(LEASE_MILLIS + 50L);
+        assertTrue(nodeA.isOwned(tenantId));
+        assertFalse(transactionTemplate.execute(status -> nodeA.lockLease(tenantId)));
+        assertTrue(nodeB.claim(tenantId));
+        assertFalse(transactionTemplate.execute(status -> nodeA.lockLease(tenantId)));
+    }
+
+    @Test(timeout = 10_000)
+    public void otherNodesRedirectToTheOwner() {
+        List<Long> unfinishedTenantIdList = Collections.singletonList(tenantId);
+        List<Long> claimedTenantIdList = new ArrayList<>();
+        nodeA.renew(() -> unfinishedTenantIdList, claimedTenantIdList::add, lostTenantId -> {},
+                handedOverTenantId -> {});
+        assertEquals(Collections.singletonList(tenantId), claimedTenantIdList);
+
+        assertNull(nodeA.findRemoteOwnerUrl(tenantId));
+        assertEquals("http://node-a:8080", nodeB.findRemoteOwnerUrl(tenantId));
+        nodeA.shutdown();
+        assertNull(nodeB.findRemoteOwnerUrl(tenantId));
+    }
+
+    @Test(timeout = 10_000)
+    public void renewalDetectsALostTenant() throws InterruptedException {
+        assertTrue(nodeA.claim(tenantId));
+        Thread.sleep(LEASE_MILLIS + 50L);
+        assertTrue(nodeB.claim(tenantId));
+
+        List<Long> lostTenantIdList = new ArrayList<>();
+        nodeA.renew(Collections::emptyList, claimedTenantId -> {}, lostTenantIdList::add,
+                handedOverTenantId -> {});
+        assertEquals(Collections.singletonList(tenantId), lostTenantIdList);
+        assertFalse(nodeA.isOwned(tenantId));
+    }
+
+    @Test(timeout = 10_000)
+    public void nodeThatJoinsLaterGetsItsFairShare() {
+        List<Long> unfinishedTenantIdList = Arrays.asList(tenantId, tenantId - 1L, tenantId - 2L, tenantId - 3L);
+        List<Long> claimedTenantIdListA = new ArrayList<>();
+        List<Long> handedOverTenantIdListA = new ArrayList<>();
+        nodeA.renew(() -> unfinishedTenantIdList, claimedTenantIdListA::add, lostTenantId -> {},
+                handedOverTenantId -> {
+                    handedOverTenantIdListA.add(handedOverTenantId);
+                    nodeA.release(handedOverTenantId);
+                });
+        assertEquals(unfinishedTenantIdList, claimedTenantIdListA);
+
+        List<Long> claimedTenantIdListB = new ArrayList<>();
+        // Node B is live now, but every tenant is still leased by node A
+        nodeB.renew(() -> unfinishedTenantIdList, claimedTenantIdListB::add, lostTenantId -> {},
+                handedOverTenantId -> {});
+        assertTrue(claimedTenantIdListB.isEmpty());
+        nodeA.renew(() -> unfinishedTenantIdList, claimedTenantIdListA::add, lostTenantId -> {},
+                handedOverTenantId -> {
+                    handedOverTenantIdListA.add(handedOverTenantId);
+                    nodeA.release(handedOverTenantId);
+                });
+        // The most recently claimed first
+        assertEquals(Arrays.asList(tenantId - 3L, tenantId - 2L), handedOverTenantIdListA);
+        nodeB.renew(() -> unfinishedTenantIdList, claimedTenantIdListB::add, lostTenantId -> {},
+                handedOverTenantId -> {});
+        assertEquals(Arrays.asList(tenantId - 2L, tenantId - 3L), claimedTenantIdListB);
+
+        for (Long unfinishedTenantId : unfinishedTenantIdList) {
+            assertTrue(nodeA.isOwned(unfinishedTenantId) ^ nodeB.isOwned(unfinishedTenantId));
+        }
+        assertTrue(nodeA.isOwned(tenantId));
+        assertTrue(nodeB.isOwned(tenantId - 3L));
+    }
+}
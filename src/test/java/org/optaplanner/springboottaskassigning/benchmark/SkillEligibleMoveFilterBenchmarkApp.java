@@ -0,0 +1,47 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.springboottaskassigning.benchmark;
+
+import org.optaplanner.benchmark.api.PlannerBenchmarkFactory;
+import org.optaplanner.springboottaskassigning.domain.TaskAssigningSolution;
+import org.optaplanner.springboottaskassigning.utils.TaskAssigningGenerator;
+
+/**
+ * Compares the best score over time with and without the skill-aware move pruning.
+ * Not a test, because it runs for minutes: run the main method and open target/benchmarkReport.
+ */
+public class SkillEligibleMoveFilterBenchmarkApp {
+
+    public static final String BENCHMARK_CONFIG =
+            "org/optaplanner/springboottaskassigning/benchmark/skillEligibleMoveFilterBenchmarkConfig.xml";
+
+    public static void main(String[] args) {
+        PlannerBenchmarkFactory benchmarkFactory = PlannerBenchmarkFactory.createFromXmlResource(BENCHMARK_CONFIG);
+        benchmarkFactory.buildPlannerBenchmark(
+                createProblem(0L, 200, 10),
+                createProblem(1L, 1000, 40),
+                createProblem(2L, 2000, 80)).benchmark();
+    }
+
+    private static TaskAssigningSolution createProblem(long tenantId, int taskListSize, int employeeListSize) {
+        TaskAssigningSolution problem = new TaskAssigningGenerator(tenantId)
+                .createTaskAssigningSolution(taskListSize, employeeListSize);
+        problem.buildIndex();
+        problem.resetChainAggregates();
+        return problem;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.springboottaskassigning.domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import org.junit.Test;
+import org.optaplanner.springboottaskassigning.utils.TaskAssigningGenerator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TaskAssigningSolutionTest {
+
+    @Test
+    public void missingSkillCountsOfHundredsOfSkills() {
+        List<Skill> skillList = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            skillList.add(new Skill(i, 0L, "skill" + i));
+        }
+        Employee generalist = new Employee(1000L, 0L, "Generalist");
+        generalist.setSkillSet(new LinkedHashSet<>(skillList.subList(0, 150)));
+        Employee specialist = new Employee(1001L, 0L, "Specialist");
+        specialist.setSkillSet(new LinkedHashSet<>(Arrays.asList(skillList.get(63), skillList.get(199))));
+        TaskType taskType = new TaskType(2000L, 0L, "TT", "Task type", 30);
+        taskType.setRequiredSkillSet(new HashSet<>(Arrays.asList(
+                skillList.get(0), skillList.get(63), skillList.get(64), skillList.get(149), skillList.get(199))));
+        TaskAssigningSolution solution = new TaskAssigningSolution(0L, 0L, skillList,
+                Collections.singletonList(taskType), Collections.emptyList(),
+                Arrays.asList(generalist, specialist), Collections.emptyList());
+
+        solution.buildIndex();
+        assertEquals(1, specialist.getIndex());
+        assertArrayEquals(new long[]{1L << 63, 0L, 0L, 1L << (199 - 3 * Long.SIZE)}, specialist.getSkillBits());
+        assertArrayEquals(new int[]{1, 3}, taskType.getEmployeeIndexToMissingSkillCount());
+        assertEquals(3, taskType.getMissingSkillCount(specialist));
+        // Nobody has all the skills, so nobody is skipped
+        assertArrayEquals(new int[0], taskType.getEligibleEmployeeIndexes());
+        assertTrue(taskType.isEligible(specialist));
+
+        specialist.getSkillSet().addAll(taskType.getRequiredSkillSet());
+        solution.buildIndex();
+        assertArrayEquals(new int[]{1}, taskType.getEligibleEmployeeIndexes());
+        assertFalse(taskType.isEligible(generalist));
+        assertTrue(taskType.isEligible(specialist));
+    }
+
+    @Test
+    public void indexedMissingSkillCountsEqualTheSkillSets() {
+        TaskAssigningSolution solution = new TaskAssigningGenerator(0L).createTaskAssigningSolution(50, 6);
+        List<Integer> unindexedCountList = new ArrayList<>();
+        for (TaskType taskType : solution.getTaskTypeList()) {
+            for (Employee employee : solution.getEmployeeList()) {
+                unindexedCountList.add(taskType.getMissingSkillCount(employee));
+            }
+        }
+        solution.buildIndex();
+        List<Integer> indexedCountList = new ArrayList<>();
+        for (TaskType taskType : solution.getTaskTypeList()) {
+            for (Employee employee : solution.getEmployeeList()) {
+                indexedCountList.add(taskType.getMissingSkillCount(employee));
+            }
+        }
+        assertEquals(unindexedCountList, indexedCountList);
+    }
+
+    @Test
+    public void indexedTaskTypeMissingSkillCountsEqualTheSkillSets() {
+        TaskAssigningSolution solution = new TaskAssigningGenerator(0L).createTaskAssigningSolution(50, 6);
+        List<Integer> unindexedCountList = new ArrayList<>();
+        for (TaskType taskType : solution.getTaskTypeList()) {
+            for (TaskType other : solution.getTaskTypeList()) {
+                unindexedCountList.add(taskType.getMissingSkillCount(other));
+            }
+        }
+        solution.buildIndex();
+        List<Integer> indexedCountList = new ArrayList<>();
+        for (TaskType taskType : solution.getTaskTypeList()) {
+            for (TaskType other : solution.getTaskTypeList()) {
+                indexedCountList.add(taskType.getMissingSkillCount(other));
+            }
+        }
+        assertEquals(unindexedCountList, indexedCountList);
+    }
+
+    @Test
+    public void indexedAffinitiesEqualTheAffinityMaps() {
+        TaskAssigningSolution solution = new TaskAssigningGenerator(0L).createTaskAssigningSolution(50, 6);
+        List<Affinity> unindexedAffinityList = new ArrayList<>();
+        for (Employee employee : solution.getEmployeeList()) {
+            for (Customer customer : solution.getCustomerList()) {
+                unindexedAffinityList.add(employee.getAffinity(customer));
+            }
+        }
+        solution.buildIndex();
+        List<Affinity> indexedAffinityList = new ArrayList<>();
+        for (Employee employee : solution.getEmployeeList()) {
+            for (Customer customer : solution.getCustomerList()) {
+                indexedAffinityList.add(employee.getAffinity(customer));
+            }
+        }
+        assertEquals(unindexedAffinityList, indexedAffinityList);
+    }
+}
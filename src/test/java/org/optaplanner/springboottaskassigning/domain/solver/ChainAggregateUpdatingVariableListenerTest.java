@@ -0,0 +1,107 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.springboottaskassigning.domain.solver;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+import org.optaplanner.springboottaskassigning.domain.Customer;
+import org.optaplanner.springboottaskassigning.domain.Employee;
+import org.optaplanner.springboottaskassigning.domain.Priority;
+import org.optaplanner.springboottaskassigning.domain.Task;
+import org.optaplanner.springboottaskassigning.domain.TaskOrEmployee;
+import org.optaplanner.springboottaskassigning.domain.TaskType;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+public class ChainAggregateUpdatingVariableListenerTest {
+
+    private final StartAndEndTimeUpdatingVariableListener timeVariableListener =
+            new StartAndEndTimeUpdatingVariableListener();
+    private final ChainAggregateUpdatingVariableListener aggregateVariableListener =
+            new ChainAggregateUpdatingVariableListener();
+    private final ScoreDirector scoreDirector = mock(ScoreDirector.class);
+
+    private Employee firstEmployee;
+    private Employee secondEmployee;
+    private Task criticalTask;
+    private Task majorTask;
+
+    @Before
+    public void setUp() {
+        Customer customer = new Customer(0L, 0L, "Customer");
+        // No affinity, so every task takes 4 * 30 minutes
+        TaskType taskType = new TaskType(1L, 0L, "TT", "Task type", 30);
+        firstEmployee = new Employee(2L, 0L, "First");
+        secondEmployee = new Employee(3L, 0L, "Second");
+        criticalTask = new Task(4L, 0L, taskType, 0, customer, 0, Priority.CRITICAL);
+        majorTask = new Task(5L, 0L, taskType, 1, customer, 0, Priority.MAJOR);
+        assign(criticalTask, firstEmployee, firstEmployee);
+        assign(majorTask, criticalTask, firstEmployee);
+        timeVariableListener.afterVariableChanged(scoreDirector, criticalTask);
+        aggregateVariableListener.afterVariableChanged(scoreDirector, criticalTask);
+        aggregateVariableListener.afterVariableChanged(scoreDirector, majorTask);
+    }
+
+    @Test
+    public void aggregatesOfOneChain() {
+        assertAggregates(firstEmployee, 2, 240, 120, 240);
+        assertAggregates(secondEmployee, 0, 0, 0, 0);
+    }
+
+    @Test
+    public void lastTaskMovesToAnotherEmployee() {
+        criticalTask.setNextTask(null);
+        assign(majorTask, secondEmployee, secondEmployee);
+        timeVariableListener.afterVariableChanged(scoreDirector, majorTask);
+        aggregateVariableListener.afterVariableChanged(scoreDirector, criticalTask);
+        aggregateVariableListener.afterVariableChanged(scoreDirector, majorTask);
+        assertAggregates(firstEmployee, 1, 120, 120, 0);
+        assertAggregates(secondEmployee, 1, 120, 0, 120);
+    }
+
+    @Test
+    public void priorityChangeMovesTheEndTimeToAnotherSum() {
+        majorTask.setPriority(Priority.CRITICAL);
+        aggregateVariableListener.afterVariableChanged(scoreDirector, majorTask);
+        assertAggregates(firstEmployee, 2, 240, 360, 0);
+    }
+
+    @Test
+    public void resetGivesTheSameAggregates() {
+        firstEmployee.resetChainAggregates();
+        assertAggregates(firstEmployee, 2, 240, 120, 240);
+        aggregateVariableListener.afterVariableChanged(scoreDirector, majorTask);
+        assertAggregates(firstEmployee, 2, 240, 120, 240);
+    }
+
+    private static void assertAggregates(Employee employee, int taskCount, int lastEndTime,
+                                         int criticalEndTimeSum, int majorEndTimeSum) {
+        assertEquals(taskCount, employee.getTaskCount());
+        assertEquals(lastEndTime, employee.getLastEndTime());
+        assertEquals(criticalEndTimeSum, employee.getCriticalEndTimeSum());
+        assertEquals(majorEndTimeSum, employee.getMajorEndTimeSum());
+        assertEquals(0, employee.getMinorEndTimeSum());
+    }
+
+    private static void assign(Task task, TaskOrEmployee previous, Employee employee) {
+        task.setPreviousTaskOrEmployee(previous);
+        task.setEmployee(employee);
+        previous.setNextTask(task);
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.springboottaskassigning.domain.solver;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.optaplanner.core.impl.heuristic.selector.move.generic.ChangeMove;
+import org.optaplanner.core.impl.heuristic.selector.move.generic.SwapMove;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+import org.optaplanner.springboottaskassigning.domain.Customer;
+import org.optaplanner.springboottaskassigning.domain.Employee;
+import org.optaplanner.springboottaskassigning.domain.Priority;
+import org.optaplanner.springboottaskassigning.domain.Skill;
+import org.optaplanner.springboottaskassigning.domain.Task;
+import org.optaplanner.springboottaskassigning.domain.TaskAssigningSolution;
+import org.optaplanner.springboottaskassigning.domain.TaskOrEmployee;
+import org.optaplanner.springboottaskassigning.domain.TaskType;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SkillEligibleMoveFilterTest {
+
+    private final SkillEligibleMoveFilter moveFilter = new SkillEligibleMoveFilter();
+    private final ScoreDirector<TaskAssigningSolution> scoreDirector = mock(ScoreDirector.class);
+
+    private Employee skilledEmployee;
+    private Employee unskilledEmployee;
+    private Task skilledTask;
+    private Task unskilledTask;
+    private Task anyTask;
+
+    @Before
+    public void setUp() {
+        Customer customer = new Customer(0L, 0L, "Customer");
+        Skill skill = new Skill(1L, 0L, "Skill");
+        TaskType skillTaskType = new TaskType(2L, 0L, "TT1", "Skill task type", 30);
+        skillTaskType.setRequiredSkillSet(new HashSet<>(Collections.singletonList(skill)));
+        TaskType anyTaskType = new TaskType(3L, 0L, "TT2", "Any task type", 30);
+        skilledEmployee = new Employee(4L, 0L, "Skilled");
+        skilledEmployee.getSkillSet().add(skill);
+        unskilledEmployee = new Employee(5L, 0L, "Unskilled");
+        skilledTask = new Task(6L, 0L, skillTaskType, 0, customer, 0, Priority.MAJOR);
+        unskilledTask = new Task(7L, 0L, skillTaskType, 1, customer, 0, Priority.MAJOR);
+        anyTask = new Task(8L, 0L, anyTaskType, 2, customer, 0, Priority.MAJOR);
+        skilledTask.setEmployee(skilledEmployee);
+        unskilledTask.setEmployee(unskilledEmployee);
+        anyTask.setEmployee(skilledEmployee);
+        new TaskAssigningSolution(0L, 0L, Collections.singletonList(skill),
+                Arrays.asList(skillTaskType, anyTaskType), Collections.singletonList(customer),
+                Arrays.asList(skilledEmployee, unskilledEmployee),
+                Arrays.asList(skilledTask, unskilledTask, anyTask)).buildIndex();
+    }
+
+    @Test
+    public void changeMove() {
+        assertTrue(moveFilter.accept(scoreDirector, changeMove(unskilledTask, skilledEmployee)));
+        assertTrue(moveFilter.accept(scoreDirector, changeMove(unskilledTask, anyTask)));
+        assertFalse(moveFilter.accept(scoreDirector, changeMove(skilledTask, unskilledEmployee)));
+        assertFalse(moveFilter.accept(scoreDirector, changeMove(skilledTask, unskilledTask)));
+        assertTrue(moveFilter.accept(scoreDirector, changeMove(anyTask, unskilledEmployee)));
+    }
+
+    @Test
+    public void swapMove() {
+        assertFalse(moveFilter.accept(scoreDirector, swapMove(skilledTask, unskilledTask)));
+        // Both employees get a task they can do
+        assertTrue(moveFilter.accept(scoreDirector, swapMove(anyTask, unskilledTask)));
+        // Within the same chain
+        assertTrue(moveFilter.accept(scoreDirector, swapMove(skilledTask, anyTask)));
+    }
+
+    private static ChangeMove<TaskAssigningSolution> changeMove(Task task, TaskOrEmployee toPreviousTaskOrEmployee) {
+        ChangeMove<TaskAssigningSolution> move = mock(ChangeMove.class);
+        when(move.getEntity()).thenReturn(task);
+        when(move.getToPlanningValue()).thenReturn(toPreviousTaskOrEmployee);
+        return move;
+    }
+
+    private static SwapMove<TaskAssigningSolution> swapMove(Task leftTask, Task rightTask) {
+        SwapMove<TaskAssigningSolution> move = mock(SwapMove.class);
+        when(move.getLeftEntity()).thenReturn(leftTask);
+        when(move.getRightEntity()).thenReturn(rightTask);
+        return move;
+    }
+}
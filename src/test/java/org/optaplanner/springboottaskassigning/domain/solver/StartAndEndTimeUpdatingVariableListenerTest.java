@@ -0,0 +1,95 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.springboottaskassigning.domain.solver;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+import org.optaplanner.springboottaskassigning.domain.Affinity;
+import org.optaplanner.springboottaskassigning.domain.Customer;
+import org.optaplanner.springboottaskassigning.domain.Employee;
+import org.optaplanner.springboottaskassigning.domain.Priority;
+import org.optaplanner.springboottaskassigning.domain.Task;
+import org.optaplanner.springboottaskassigning.domain.TaskOrEmployee;
+import org.optaplanner.springboottaskassigning.domain.TaskType;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+
+public class StartAndEndTimeUpdatingVariableListenerTest {
+
+    private final StartAndEndTimeUpdatingVariableListener variableListener =
+            new StartAndEndTimeUpdatingVariableListener();
+    private final ScoreDirector scoreDirector = mock(ScoreDirector.class);
+
+    private Employee highAffinityEmployee;
+    private Employee noAffinityEmployee;
+    private Task firstTask;
+    private Task secondTask;
+
+    @Before
+    public void setUp() {
+        Customer customer = new Customer(0L, 0L, "Customer");
+        TaskType taskType = new TaskType(1L, 0L, "TT", "Task type", 30);
+        highAffinityEmployee = new Employee(2L, 0L, "High affinity");
+        highAffinityEmployee.getCustomerIdToAffinityMap().put(customer.getId(), Affinity.HIGH);
+        noAffinityEmployee = new Employee(3L, 0L, "No affinity");
+        firstTask = new Task(4L, 0L, taskType, 0, customer, 0, Priority.MAJOR);
+        secondTask = new Task(5L, 0L, taskType, 1, customer, 0, Priority.MAJOR);
+        assign(firstTask, highAffinityEmployee, highAffinityEmployee);
+        assign(secondTask, firstTask, highAffinityEmployee);
+        variableListener.afterVariableChanged(scoreDirector, firstTask);
+    }
+
+    @Test
+    public void downstreamTaskIsUpdated() {
+        assertEquals(Integer.valueOf(0), firstTask.getStartTime());
+        assertEquals(30, firstTask.getEndTime());
+        assertEquals(Integer.valueOf(30), secondTask.getStartTime());
+        assertEquals(60, secondTask.getEndTime());
+    }
+
+    @Test
+    public void downstreamTaskIsUpdatedWhenOnlyTheDurationChanges() {
+        // The whole chain moves to another employee, so the first task starts at the same time
+        assign(firstTask, noAffinityEmployee, noAffinityEmployee);
+        assign(secondTask, firstTask, noAffinityEmployee);
+        variableListener.afterVariableChanged(scoreDirector, firstTask);
+        assertEquals(Integer.valueOf(0), firstTask.getStartTime());
+        assertEquals(120, firstTask.getEndTime());
+        assertEquals(Integer.valueOf(120), secondTask.getStartTime());
+        assertEquals(240, secondTask.getEndTime());
+    }
+
+    @Test
+    public void unassignedTaskHasNoStartTime() {
+        firstTask.setNextTask(null);
+        secondTask.setPreviousTaskOrEmployee(null);
+        secondTask.setEmployee(null);
+        variableListener.afterVariableChanged(scoreDirector, secondTask);
+        assertNull(secondTask.getStartTime());
+        assertEquals(0, secondTask.getEndTime());
+        assertEquals(Task.UNASSIGNED_TIME, secondTask.getEndTimeValue());
+    }
+
+    private static void assign(Task task, TaskOrEmployee previous, Employee employee) {
+        task.setPreviousTaskOrEmployee(previous);
+        task.setEmployee(employee);
+        previous.setNextTask(task);
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.springboottaskassigning.domain.solver;
+
+import java.util.Collections;
+
+import org.junit.Test;
+import org.optaplanner.core.api.solver.Solver;
+import org.optaplanner.core.api.solver.SolverFactory;
+import org.optaplanner.core.config.score.director.ScoreDirectorFactoryConfig;
+import org.optaplanner.core.config.solver.EnvironmentMode;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+import org.optaplanner.springboottaskassigning.domain.TaskAssigningSolution;
+import org.optaplanner.springboottaskassigning.utils.TaskAssigningGenerator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TaskAssigningIncrementalScoreCalculatorTest {
+
+    public static final String SOLVER_CONFIG = "org/optaplanner/springboottaskassigning/solver/taskAssigningSolverConfig.xml";
+    public static final String SCORE_DRL = "org/optaplanner/springboottaskassigning/solver/taskAssigningScoreRules.drl";
+
+    @Test(timeout = 60_000L)
+    public void sameScoreAsDrlAfterEveryMove() {
+        SolverFactory<TaskAssigningSolution> solverFactory = SolverFactory.createFromXmlResource(SOLVER_CONFIG);
+        // Not FULL_ASSERT: only the score is under test, not the shadow variables
+        solverFactory.getSolverConfig().setEnvironmentMode(EnvironmentMode.NON_INTRUSIVE_FULL_ASSERT);
+        ScoreDirectorFactoryConfig scoreDirectorFactoryConfig = new ScoreDirectorFactoryConfig();
+        scoreDirectorFactoryConfig.setIncrementalScoreCalculatorClass(TaskAssigningIncrementalScoreCalculator.class);
+        scoreDirectorFactoryConfig.setInitializingScoreTrend("ONLY_DOWN");
+        ScoreDirectorFactoryConfig assertionScoreDirectorFactoryConfig = new ScoreDirectorFactoryConfig();
+        assertionScoreDirectorFactoryConfig.setScoreDrlList(Collections.singletonList(SCORE_DRL));
+        scoreDirectorFactoryConfig.setAssertionScoreDirectorFactory(assertionScoreDirectorFactoryConfig);
+        solverFactory.getSolverConfig().setScoreDirectorFactoryConfig(scoreDirectorFactoryConfig);
+        Solver<TaskAssigningSolution> solver = solverFactory.buildSolver();
+
+        TaskAssigningSolution problem = new TaskAssigningGenerator(0L).createTaskAssigningSolution(24, 4);
+        problem.buildIndex();
+        // Throws an IllegalStateException on the first score that differs from the DRL score
+        TaskAssigningSolution bestSolution = solver.solve(problem);
+        assertTrue(bestSolution.getScore().isSolutionInitialized());
+
+        Solver<TaskAssigningSolution> drlSolver =
+                SolverFactory.<TaskAssigningSolution>createFromXmlResource(SOLVER_CONFIG).buildSolver();
+        ScoreDirector<TaskAssigningSolution> drlScoreDirector = drlSolver.getScoreDirectorFactory().buildScoreDirector();
+        // The score rules read the chain aggregates too, so recalculate them from the chains
+        bestSolution.resetChainAggregates();
+        drlScoreDirector.setWorkingSolution(bestSolution);
+        assertEquals(drlScoreDirector.calculateScore(), bestSolution.getScore());
+        drlScoreDirector.dispose();
+    }
+}
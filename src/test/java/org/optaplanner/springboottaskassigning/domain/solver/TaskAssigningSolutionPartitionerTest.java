@@ -0,0 +1,113 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.optaplanner.springboottaskassigning.domain.solver;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+import org.optaplanner.springboottaskassigning.domain.Employee;
+import org.optaplanner.springboottaskassigning.domain.Skill;
+import org.optaplanner.springboottaskassigning.domain.Task;
+import org.optaplanner.springboottaskassigning.domain.TaskAssigningSolution;
+import org.optaplanner.springboottaskassigning.utils.TaskAssigningGenerator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TaskAssigningSolutionPartitionerTest {
+
+    @Test
+    public void everyEmployeeAndTaskIsClonedIntoExactlyOnePartAndChainsStayTogether() {
+        TaskAssigningSolution solution = new TaskAssigningGenerator(0L).createTaskAssigningSolution(200, 8);
+        Employee employee = solution.getEmployeeList().get(0);
+        Task firstTask = solution.getTaskList().get(0);
+        Task secondTask = solution.getTaskList().get(1);
+        firstTask.setPreviousTaskOrEmployee(employee);
+        firstTask.setEmployee(employee);
+        employee.setNextTask(firstTask);
+        secondTask.setPreviousTaskOrEmployee(firstTask);
+        secondTask.setEmployee(employee);
+        firstTask.setNextTask(secondTask);
+
+        TaskAssigningSolutionPartitioner partitioner = new TaskAssigningSolutionPartitioner();
+        partitioner.setMinimumTaskCountPerPart(50);
+        List<TaskAssigningSolution> partList = partitioner.splitWorkingSolution(mockScoreDirector(solution), 8);
+        assertEquals(4, partList.size());
+        assertEquals(8, partList.stream().mapToInt(part -> part.getEmployeeList().size()).sum());
+        assertEquals(200, partList.stream().mapToInt(part -> part.getTaskList().size()).sum());
+        assertEquals(200L, partList.stream().flatMap(part -> part.getTaskList().stream())
+                .map(Task::getId).distinct().count());
+        for (TaskAssigningSolution part : partList) {
+            assertTrue(part.getEmployeeList().size() >= 1);
+            // Shared capacity in proportion to the number of employees
+            assertTrue(part.getTaskList().size() <= (200 * part.getEmployeeList().size() + 7) / 8);
+            for (Task task : part.getTaskList()) {
+                assertFalse(solution.getTaskList().contains(task));
+                if (task.getId().equals(secondTask.getId())) {
+                    Task partFirstTask = (Task) task.getPreviousTaskOrEmployee();
+                    assertEquals(firstTask.getId(), partFirstTask.getId());
+                    assertSame(task, partFirstTask.getNextTask());
+                    assertSame(partFirstTask.getPreviousTaskOrEmployee(), task.getEmployee());
+                    assertTrue(part.getEmployeeList().contains(task.getEmployee()));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void employeesWithTheSameSkillsEndUpInTheSamePart() {
+        TaskAssigningSolution solution = new TaskAssigningGenerator(0L).createTaskAssigningSolution(200, 8);
+        Skill firstSkill = solution.getSkillList().get(0);
+        Skill secondSkill = solution.getSkillList().get(1);
+        List<Employee> employeeList = solution.getEmployeeList();
+        for (int i = 0; i < employeeList.size(); i++) {
+            employeeList.get(i).setSkillSet(Collections.singleton(i < 5 ? firstSkill : secondSkill));
+        }
+
+        TaskAssigningSolutionPartitioner partitioner = new TaskAssigningSolutionPartitioner();
+        partitioner.setMinimumTaskCountPerPart(50);
+        List<TaskAssigningSolution> partList = partitioner.splitWorkingSolution(mockScoreDirector(solution), 2);
+        assertEquals(2, partList.size());
+        assertEquals(200, partList.stream().mapToInt(part -> part.getTaskList().size()).sum());
+        for (TaskAssigningSolution part : partList) {
+            assertEquals(1L, part.getEmployeeList().stream().map(Employee::getSkillSet).distinct().count());
+        }
+    }
+
+    @Test
+    public void smallProblemIsNotSplit() {
+        TaskAssigningSolution solution = new TaskAssigningGenerator(0L).createTaskAssigningSolution(20, 4);
+        List<TaskAssigningSolution> partList = new TaskAssigningSolutionPartitioner()
+                .splitWorkingSolution(mockScoreDirector(solution), 4);
+        assertEquals(1, partList.size());
+        assertEquals(20, partList.get(0).getTaskList().size());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ScoreDirector<TaskAssigningSolution> mockScoreDirector(TaskAssigningSolution solution) {
+        ScoreDirector<TaskAssigningSolution> scoreDirector = mock(ScoreDirector.class);
+        when(scoreDirector.getWorkingSolution()).thenReturn(solution);
+        return scoreDirector;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.springboottaskassigning.domain.solver;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.optaplanner.springboottaskassigning.domain.Affinity;
+import org.optaplanner.springboottaskassigning.domain.Customer;
+import org.optaplanner.springboottaskassigning.domain.Employee;
+import org.optaplanner.springboottaskassigning.domain.Priority;
+import org.optaplanner.springboottaskassigning.domain.Skill;
+import org.optaplanner.springboottaskassigning.domain.Task;
+import org.optaplanner.springboottaskassigning.domain.TaskAssigningSolution;
+import org.optaplanner.springboottaskassigning.domain.TaskType;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TaskNearbyDistanceMeterTest {
+
+    private final TaskNearbyDistanceMeter distanceMeter = new TaskNearbyDistanceMeter();
+
+    private Employee skilledHighAffinityEmployee;
+    private Employee skilledEmployee;
+    private Employee unskilledHighAffinityEmployee;
+    private Task origin;
+    private Task sameCustomerTask;
+    private Task otherCustomerTask;
+    private Task otherTaskTypeTask;
+
+    @Before
+    public void setUp() {
+        Customer customer = new Customer(0L, 0L, "Customer");
+        Customer otherCustomer = new Customer(1L, 0L, "Other customer");
+        Skill skill = new Skill(2L, 0L, "Skill");
+        TaskType skillTaskType = new TaskType(3L, 0L, "TT1", "Skill task type", 30);
+        skillTaskType.setRequiredSkillSet(new HashSet<>(Collections.singletonList(skill)));
+        TaskType anyTaskType = new TaskType(4L, 0L, "TT2", "Any task type", 30);
+        skilledHighAffinityEmployee = new Employee(5L, 0L, "Skilled high affinity");
+        skilledHighAffinityEmployee.getSkillSet().add(skill);
+        skilledHighAffinityEmployee.getCustomerIdToAffinityMap().put(customer.getId(), Affinity.HIGH);
+        skilledEmployee = new Employee(6L, 0L, "Skilled");
+        skilledEmployee.getSkillSet().add(skill);
+        unskilledHighAffinityEmployee = new Employee(7L, 0L, "Unskilled high affinity");
+        unskilledHighAffinityEmployee.getCustomerIdToAffinityMap().put(customer.getId(), Affinity.HIGH);
+        origin = new Task(8L, 0L, skillTaskType, 0, customer, 0, Priority.MAJOR);
+        sameCustomerTask = new Task(9L, 0L, skillTaskType, 1, customer, 0, Priority.MAJOR);
+        otherCustomerTask = new Task(10L, 0L, skillTaskType, 2, otherCustomer, 0, Priority.MAJOR);
+        otherTaskTypeTask = new Task(11L, 0L, anyTaskType, 0, customer, 0, Priority.MAJOR);
+        new TaskAssigningSolution(0L, 0L, Collections.singletonList(skill),
+                Arrays.asList(skillTaskType, anyTaskType), Arrays.asList(customer, otherCustomer),
+                Arrays.asList(skilledHighAffinityEmployee, skilledEmployee, unskilledHighAffinityEmployee),
+                Arrays.asList(origin, sameCustomerTask, otherCustomerTask, otherTaskTypeTask)).buildIndex();
+    }
+
+    @Test
+    public void skillsBeforeAffinity() {
+        double skilledHighAffinityDistance = distanceMeter.getNearbyDistance(origin, skilledHighAffinityEmployee);
+        double skilledDistance = distanceMeter.getNearbyDistance(origin, skilledEmployee);
+        double unskilledHighAffinityDistance = distanceMeter.getNearbyDistance(origin, unskilledHighAffinityEmployee);
+        assertEquals(0.0, skilledHighAffinityDistance, 0.0);
+        assertTrue(skilledHighAffinityDistance < skilledDistance);
+        assertTrue(skilledDistance < unskilledHighAffinityDistance);
+    }
+
+    @Test
+    public void sameTaskTypeAndCustomerIsNearest() {
+        double sameCustomerDistance = distanceMeter.getNearbyDistance(origin, sameCustomerTask);
+        double otherCustomerDistance = distanceMeter.getNearbyDistance(origin, otherCustomerTask);
+        double otherTaskTypeDistance = distanceMeter.getNearbyDistance(origin, otherTaskTypeTask);
+        assertEquals(0.0, sameCustomerDistance, 0.0);
+        assertTrue(sameCustomerDistance < otherCustomerDistance);
+        assertTrue(otherCustomerDistance < otherTaskTypeDistance);
+        // A task type that requires nothing misses no skills of another one
+        assertEquals(0.0, distanceMeter.getNearbyDistance(otherTaskTypeTask, origin), 0.0);
+    }
+}
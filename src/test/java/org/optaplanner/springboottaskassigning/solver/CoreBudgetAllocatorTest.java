@@ -0,0 +1,96 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.optaplanner.springboottaskassigning.solver;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CoreBudgetAllocatorTest {
+
+    private static final long WAIT_MILLIS = 10L;
+
+    @Test
+    public void shareIsProportionalToProblemScale() throws InterruptedException {
+        CoreBudgetAllocator allocator = new CoreBudgetAllocator(8);
+        assertEquals(2, allocator.allocate("small", 100L, 2, WAIT_MILLIS));
+        assertEquals(6, allocator.allocate("large", 300L, null, WAIT_MILLIS));
+        allocator.release("large");
+        // The cores of the large problem are available again
+        assertEquals(4, allocator.allocate("medium", 100L, null, WAIT_MILLIS));
+        assertEquals(0, allocator.getAllocatedCoreCount("large"));
+    }
+
+    @Test
+    public void budgetIsNeverOversubscribed() throws InterruptedException {
+        CoreBudgetAllocator allocator = new CoreBudgetAllocator(4);
+        assertEquals(4, allocator.allocate("first", 100L, null, WAIT_MILLIS));
+        assertEquals(0, allocator.allocate("second", 100L, null, WAIT_MILLIS));
+        assertEquals(0, allocator.getAllocatedCoreCount("second"));
+        // The second problem waits, so the first one gives up its cores at its next time slice
+        assertTrue(allocator.isRebalanceNeeded("first"));
+        allocator.release("first");
+        assertEquals(4, allocator.allocate("second", 100L, null, WAIT_MILLIS));
+    }
+
+    @Test
+    public void sharesAreRebalancedWhenProblemsStartAndEnd() throws InterruptedException {
+        CoreBudgetAllocator allocator = new CoreBudgetAllocator(4);
+        assertEquals(4, allocator.allocate("first", 100L, null, WAIT_MILLIS));
+        assertFalse(allocator.isRebalanceNeeded("first"));
+
+        // Registered, so the first problem is over its fair share now
+        assertEquals(0, allocator.allocate("second", 100L, null, WAIT_MILLIS));
+        assertTrue(allocator.isRebalanceNeeded("first"));
+        // Its next time slice
+        allocator.release("first");
+        assertEquals(2, allocator.allocate("first", 100L, null, WAIT_MILLIS));
+        assertEquals(2, allocator.allocate("second", 100L, null, WAIT_MILLIS));
+        assertFalse(allocator.isRebalanceNeeded("first"));
+        assertFalse(allocator.isRebalanceNeeded("second"));
+
+        // The cores of the first problem are free, so the second one grows at its next time slice
+        allocator.release("first");
+        assertTrue(allocator.isRebalanceNeeded("second"));
+        allocator.release("second");
+        assertEquals(4, allocator.allocate("second", 100L, null, WAIT_MILLIS));
+    }
+
+    @Test(timeout = 10_000L)
+    public void waitingProblemGetsTheReleasedCores() throws InterruptedException {
+        CoreBudgetAllocator allocator = new CoreBudgetAllocator(2);
+        assertEquals(2, allocator.allocate("first", 100L, null, WAIT_MILLIS));
+        AtomicInteger waitingCoreCount = new AtomicInteger(-1);
+        Thread waitingThread = new Thread(() -> {
+            try {
+                waitingCoreCount.set(allocator.allocate("second", 100L, null, 60_000L));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waitingThread.start();
+        while (!allocator.isRebalanceNeeded("first")) {
+            Thread.sleep(1L);
+        }
+        allocator.release("first");
+        waitingThread.join();
+        assertEquals(2, waitingCoreCount.get());
+    }
+}
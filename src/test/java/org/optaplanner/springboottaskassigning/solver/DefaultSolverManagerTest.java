@@ -16,24 +16,47 @@
 
 package org.optaplanner.springboottaskassigning.solver;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.optaplanner.core.api.domain.solution.Solution;
+import org.optaplanner.core.api.score.Score;
+import org.optaplanner.core.config.solver.termination.TerminationConfig;
+import org.optaplanner.springboottaskassigning.domain.Employee;
+import org.optaplanner.springboottaskassigning.domain.Priority;
+import org.optaplanner.springboottaskassigning.domain.Task;
 import org.optaplanner.springboottaskassigning.domain.TaskAssigningSolution;
+import org.optaplanner.springboottaskassigning.domain.solver.AddTaskProblemFactChange;
+import org.optaplanner.springboottaskassigning.domain.solver.RemoveEmployeeProblemFactChange;
+import org.optaplanner.springboottaskassigning.domain.solver.RemoveTaskProblemFactChange;
+import org.optaplanner.springboottaskassigning.domain.solver.TaskAssigningSolutionPartitioner;
 import org.optaplanner.springboottaskassigning.utils.TaskAssigningGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class DefaultSolverManagerTest {
 
@@ -64,7 +87,12 @@ public class DefaultSolverManagerTest {
         TaskAssigningSolution problem =
                 new TaskAssigningGenerator(tenantId).createTaskAssigningSolution(4, 2);
         solverManager.solve(tenantId, problem,
-                taskAssigningSolution -> solutionChangedLatch.countDown(),
+                taskAssigningSolution -> {
+                    // The construction heuristic also publishes partially initialized best solutions
+                    if (taskAssigningSolution.getScore().isSolutionInitialized()) {
+                        solutionChangedLatch.countDown();
+                    }
+                },
                 taskAssigningSolution -> solvingEndedLatch.countDown());
         solutionChangedLatch.await(60, TimeUnit.SECONDS);
 
@@ -125,6 +153,502 @@ public class DefaultSolverManagerTest {
         logger.info("Number of bestSolutionChangedEvents: {}.", bestSolutionChangedEventCount.get());
     }
 
+    @Test(timeout = 60_000L)
+    public void bestSolutionEventsAreCoalescedAndFlushedBeforeSolvingEnded() throws InterruptedException {
+        solverManager.shutdown();
+        solverManager = SolverManager.createFromXmlResource(SOLVER_CONFIG, null, null,
+                new SolverManagerConfig().withBestSolutionEventIntervalMillis(60_000L));
+        List<TaskAssigningSolution> bestSolutionList = new ArrayList<>();
+        AtomicReference<TaskAssigningSolution> finalBestSolution = new AtomicReference<>();
+        TaskAssigningSolution problem =
+                new TaskAssigningGenerator(tenantId).createTaskAssigningSolution(24, 8);
+        solverManager.solve(tenantId, problem,
+                bestSolutionList::add,
+                taskAssigningSolution -> {
+                    finalBestSolution.set(taskAssigningSolution);
+                    solvingEndedLatch.countDown();
+                });
+        solvingEndedLatch.await(60, TimeUnit.SECONDS);
+        // The first best solution and the first initialized one right away, the newest one of the rest when solving ends
+        assertTrue(bestSolutionList.size() <= 3);
+        assertEquals(finalBestSolution.get().getScore(), bestSolutionList.get(bestSolutionList.size() - 1).getScore());
+    }
+
+    @Test(timeout = 60_000L)
+    public void slowEventHandlerOnlyDelaysItsOwnProblem() throws InterruptedException {
+        solverManager.shutdown();
+        solverManager = SolverManager.createFromXmlResource(SOLVER_CONFIG, null, null,
+                new SolverManagerConfig().withParallelSolverCount(2).withEventHandlerThreadCount(2));
+        CountDownLatch slowHandlerLatch = new CountDownLatch(1);
+        solverManager.solve(0L, new TaskAssigningGenerator(0L).createTaskAssigningSolution(1, 1),
+                taskAssigningSolution -> {
+                    try {
+                        slowHandlerLatch.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                },
+                taskAssigningSolution -> solutionChangedLatch.countDown());
+        solverManager.solve(1L, new TaskAssigningGenerator(1L).createTaskAssigningSolution(1, 1),
+                null, taskAssigningSolution -> solvingEndedLatch.countDown());
+
+        assertTrue(solvingEndedLatch.await(30, TimeUnit.SECONDS));
+        assertTrue(solverManager.getEventQueueDepth(0L) > 0);
+        assertEquals(1L, solutionChangedLatch.getCount());
+        slowHandlerLatch.countDown();
+        assertTrue(solutionChangedLatch.await(30, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 60_000L)
+    public void pooledSolversAreReusedWithoutMixingUpProblems() throws InterruptedException {
+        solverManager.shutdown();
+        solverManager = SolverManager.createFromXmlResource(SOLVER_CONFIG, null, null,
+                new SolverManagerConfig().withParallelSolverCount(1).withSolverPoolSize(1)
+                        .withWarmUpMillis(100L));
+        solverManager.warmUp(new TaskAssigningGenerator(-1L).createTaskAssigningSolution(4, 2));
+        CountDownLatch secondSolvingEndedLatch = new CountDownLatch(1);
+        solverManager.solve(0L, new TaskAssigningGenerator(0L).createTaskAssigningSolution(4, 2),
+                null, solution -> solvingEndedLatch.countDown());
+        solvingEndedLatch.await(30, TimeUnit.SECONDS);
+        solverManager.solve(1L, new TaskAssigningGenerator(1L).createTaskAssigningSolution(6, 2),
+                null, solution -> secondSolvingEndedLatch.countDown());
+        solverManager.stopSolver(0L); // Must not stop the reused solver
+        secondSolvingEndedLatch.await(30, TimeUnit.SECONDS);
+
+        assertEquals(SolverStatus.STOPPED, solverManager.getSolverStatus(0L));
+        assertEquals(SolverStatus.STOPPED, solverManager.getSolverStatus(1L));
+        assertEquals(Long.valueOf(0L), solverManager.getBestSolution(0L).getTenantId());
+        assertEquals(Long.valueOf(1L), solverManager.getBestSolution(1L).getTenantId());
+        assertTrue(solverManager.getBestScore(0L).isSolutionInitialized());
+    }
+
+    @Test(timeout = 120_000L)
+    public void concurrentSubmissionsRegisterEveryProblemIdOnce() throws InterruptedException {
+        solverManager.shutdown();
+        int tenantCount = 200;
+        int submitterCount = 8;
+        CountDownLatch solverThreadStartLatch = new CountDownLatch(1);
+        // Keeps the solver thread idle, so only the registration is measured
+        ThreadFactory blockingThreadFactory = runnable -> new Thread(() -> {
+            try {
+                solverThreadStartLatch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            runnable.run();
+        });
+        solverManager = SolverManager.createFromXmlResource(SOLVER_CONFIG, null, blockingThreadFactory,
+                new SolverManagerConfig().withParallelSolverCount(1).withQueueCapacity(tenantCount));
+        List<TaskAssigningSolution> problemList = new ArrayList<>(tenantCount);
+        for (long problemId = 0L; problemId < tenantCount; problemId++) {
+            problemList.add(new TaskAssigningGenerator(problemId).createTaskAssigningSolution(1, 1));
+        }
+        AtomicInteger acceptedCount = new AtomicInteger(0);
+        AtomicInteger duplicateCount = new AtomicInteger(0);
+        CountDownLatch submitStartLatch = new CountDownLatch(1);
+        CountDownLatch submitEndLatch = new CountDownLatch(submitterCount);
+        for (int submitter = 0; submitter < submitterCount; submitter++) {
+            new Thread(() -> {
+                try {
+                    submitStartLatch.await();
+                    // Every submitter tries every problemId, so each problemId is contended
+                    for (TaskAssigningSolution problem : problemList) {
+                        try {
+                            solverManager.solve(problem.getTenantId(), problem, null, null);
+                            acceptedCount.incrementAndGet();
+                        } catch (IllegalArgumentException e) {
+                            duplicateCount.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    submitEndLatch.countDown();
+                }
+            }).start();
+        }
+        long startMillis = System.currentTimeMillis();
+        submitStartLatch.countDown();
+        assertTrue(submitEndLatch.await(100, TimeUnit.SECONDS));
+        logger.info("{} submitters registered {} problems in {} ms.",
+                submitterCount, tenantCount, System.currentTimeMillis() - startMillis);
+
+        assertEquals(tenantCount, acceptedCount.get());
+        assertEquals(tenantCount * (submitterCount - 1), duplicateCount.get());
+        for (long problemId = 0L; problemId < tenantCount; problemId++) {
+            assertTrue(solverManager.isProblemSubmitted(problemId));
+        }
+        solverThreadStartLatch.countDown();
+    }
+
+    @Test
+    public void stoppedQueuedProblemNeverStartsSolving() throws InterruptedException {
+        solverManager.shutdown();
+        solverManager = SolverManager.createFromXmlResource(SOLVER_CONFIG, null, null,
+                new SolverManagerConfig().withParallelSolverCount(1));
+        CountDownLatch secondSolvingEndedLatch = new CountDownLatch(1);
+        solverManager.solve(0L, new TaskAssigningGenerator(0L).createTaskAssigningSolution(4, 2),
+                null, solution -> solvingEndedLatch.countDown());
+        solverManager.solve(1L, new TaskAssigningGenerator(1L).createTaskAssigningSolution(4, 2),
+                null, solution -> secondSolvingEndedLatch.countDown());
+        solverManager.stopSolver(1L);
+        solverManager.stopSolver(0L);
+        assertTrue(secondSolvingEndedLatch.await(30, TimeUnit.SECONDS));
+        assertEquals(SolverStatus.TERMINATED_EARLY, solverManager.getSolverStatus(1L));
+        assertNull(solverManager.getBestScore(1L));
+    }
+
+    @Test(timeout = 60_000L)
+    public void multithreadedSolvingWithinCoreBudget() throws InterruptedException {
+        solverManager.shutdown();
+        solverManager = SolverManager.createFromXmlResource(SOLVER_CONFIG, null, null,
+                new SolverManagerConfig().withParallelSolverCount(2).withCoreBudget(4)
+                        .withTimeSliceMillis(200L));
+        CountDownLatch bothSolvingEndedLatch = new CountDownLatch(2);
+        // The most cores seen while solving, from the best solution events
+        AtomicInteger bigProblemCoreCount = new AtomicInteger(0);
+        AtomicInteger pinnedProblemCoreCount = new AtomicInteger(0);
+        TerminationConfig terminationConfig = new TerminationConfig().withMillisecondsSpentLimit(2_000L);
+        solverManager.solve(0L, new TaskAssigningGenerator(0L).createTaskAssigningSolution(24, 4),
+                new SolverTaskConfig().withProblemScale(24L).withTerminationConfig(terminationConfig),
+                solution -> bigProblemCoreCount.accumulateAndGet(solverManager.getAllocatedCoreCount(0L), Math::max),
+                solution -> bothSolvingEndedLatch.countDown(), null);
+        solverManager.solve(1L, new TaskAssigningGenerator(1L).createTaskAssigningSolution(8, 2),
+                new SolverTaskConfig().withProblemScale(8L).withMoveThreadCount(1)
+                        .withTerminationConfig(terminationConfig),
+                solution -> pinnedProblemCoreCount.accumulateAndGet(solverManager.getAllocatedCoreCount(1L), Math::max),
+                solution -> bothSolvingEndedLatch.countDown(), null);
+
+        assertTrue(bothSolvingEndedLatch.await(30, TimeUnit.SECONDS));
+        // Whichever starts first, the big problem gets at least 3 of the 4 cores
+        assertTrue(bigProblemCoreCount.get() > 1);
+        assertEquals(1, pinnedProblemCoreCount.get());
+        for (long problemId = 0L; problemId < 2L; problemId++) {
+            assertEquals(SolverStatus.STOPPED, solverManager.getSolverStatus(problemId));
+            assertEquals(Long.valueOf(problemId), solverManager.getBestSolution(problemId).getTenantId());
+            // Released when solving ended
+            assertEquals(0, solverManager.getAllocatedCoreCount(problemId));
+        }
+    }
+
+    @Test(timeout = 60_000L)
+    public void timeSlicingLetsQueuedProblemsSolveBeforeEarlierOnesEnd() throws InterruptedException {
+        solverManager.shutdown();
+        solverManager = SolverManager.createFromXmlResource(SOLVER_CONFIG, null, null,
+                new SolverManagerConfig().withParallelSolverCount(1).withTimeSliceMillis(50L));
+        CountDownLatch secondBestSolutionLatch = new CountDownLatch(1);
+        AtomicReference<Boolean> firstEndedBeforeSecondStarted = new AtomicReference<>();
+        CountDownLatch bothSolvingEndedLatch = new CountDownLatch(2);
+        solverManager.solve(0L, new TaskAssigningGenerator(0L).createTaskAssigningSolution(24, 4), null,
+                solution -> {
+                    firstEndedBeforeSecondStarted.compareAndSet(null, secondBestSolutionLatch.getCount() > 0L);
+                    bothSolvingEndedLatch.countDown();
+                });
+        solverManager.solve(1L, new TaskAssigningGenerator(1L).createTaskAssigningSolution(24, 4),
+                solution -> secondBestSolutionLatch.countDown(),
+                solution -> bothSolvingEndedLatch.countDown());
+
+        assertTrue(bothSolvingEndedLatch.await(30, TimeUnit.SECONDS));
+        assertFalse(firstEndedBeforeSecondStarted.get());
+        assertEquals(SolverStatus.STOPPED, solverManager.getSolverStatus(0L));
+        assertEquals(SolverStatus.STOPPED, solverManager.getSolverStatus(1L));
+        assertEquals(Long.valueOf(0L), solverManager.getBestSolution(0L).getTenantId());
+    }
+
+    @Test(timeout = 60_000L)
+    public void pauseAndResume() throws InterruptedException {
+        TaskAssigningSolution problem =
+                new TaskAssigningGenerator(tenantId).createTaskAssigningSolution(24, 8);
+        solverManager.solve(tenantId, problem,
+                taskAssigningSolution -> solutionChangedLatch.countDown(),
+                taskAssigningSolution -> solvingEndedLatch.countDown());
+        solutionChangedLatch.await(30, TimeUnit.SECONDS);
+        solverManager.pauseSolver(tenantId);
+        while (solverManager.getSolverStatus(tenantId) != SolverStatus.PAUSED) {
+            assertEquals(1L, solvingEndedLatch.getCount());
+            Thread.sleep(10L);
+        }
+        assertEquals(tenantId, solverManager.getBestSolution(tenantId).getTenantId());
+        assertNotNull(solverManager.getBestScore(tenantId));
+        try {
+            solverManager.pauseSolver(tenantId);
+            fail("A paused problem can't be paused again.");
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+
+        solverManager.resumeSolver(tenantId);
+        assertTrue(solvingEndedLatch.await(30, TimeUnit.SECONDS));
+        assertEquals(SolverStatus.STOPPED, solverManager.getSolverStatus(tenantId));
+    }
+
+    @Test(timeout = 60_000L)
+    public void stoppingAPausedProblemEndsIt() throws InterruptedException {
+        solverManager.shutdown();
+        solverManager = SolverManager.createFromXmlResource(SOLVER_CONFIG, null, null,
+                new SolverManagerConfig().withParallelSolverCount(1));
+        solverManager.solve(0L, new TaskAssigningGenerator(0L).createTaskAssigningSolution(24, 4), null, null);
+        solverManager.solve(1L, new TaskAssigningGenerator(1L).createTaskAssigningSolution(4, 2), null,
+                solution -> solvingEndedLatch.countDown());
+        // Still in the queue behind the first problem
+        solverManager.pauseSolver(1L);
+        assertEquals(SolverStatus.PAUSED, solverManager.getSolverStatus(1L));
+        assertNull(solverManager.getQueuePosition(1L));
+
+        solverManager.stopSolver(1L);
+        assertTrue(solvingEndedLatch.await(30, TimeUnit.SECONDS));
+        assertEquals(SolverStatus.TERMINATED_EARLY, solverManager.getSolverStatus(1L));
+        assertEquals(Long.valueOf(1L), solverManager.getBestSolution(1L).getTenantId());
+    }
+
+    @Test(timeout = 60_000L)
+    public void problemFactChangesAreDoneWithoutRestartingTheSolve() throws InterruptedException {
+        solverManager.shutdown();
+        solverManager = SolverManager.createFromXmlResource(SOLVER_CONFIG, null, null,
+                new SolverManagerConfig().withProblemFactChangeBatchMillis(0L));
+        TaskAssigningSolution problem =
+                new TaskAssigningGenerator(tenantId).createTaskAssigningSolution(24, 8);
+        AtomicReference<TaskAssigningSolution> finalSolution = new AtomicReference<>();
+        solverManager.solve(tenantId, problem, null,
+                taskAssigningSolution -> {
+                    finalSolution.set(taskAssigningSolution);
+                    solvingEndedLatch.countDown();
+                });
+        // Keeps the solver busy with a change, so the next changes reach a solver that is solving
+        CountDownLatch changeStartedLatch = new CountDownLatch(1);
+        CountDownLatch changeReleasedLatch = new CountDownLatch(1);
+        solverManager.addProblemFactChanges(tenantId, Collections.singletonList(scoreDirector -> {
+            changeStartedLatch.countDown();
+            try {
+                changeReleasedLatch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertTrue(changeStartedLatch.await(30, TimeUnit.SECONDS));
+        assertEquals(SolverStatus.SOLVING, solverManager.getSolverStatus(tenantId));
+
+        Task removedTask = problem.getTaskList().get(0);
+        Employee removedEmployee = problem.getEmployeeList().get(0);
+        Task newTask = new Task(1000L, tenantId, problem.getTaskTypeList().get(0), 1000,
+                problem.getCustomerList().get(0), 0, Priority.CRITICAL);
+        solverManager.addProblemFactChanges(tenantId, Arrays.asList(
+                new AddTaskProblemFactChange(newTask), new RemoveTaskProblemFactChange(removedTask.getId())));
+        solverManager.addProblemFactChanges(tenantId, Collections.singletonList(
+                new RemoveEmployeeProblemFactChange(removedEmployee.getId())));
+        // Done twice, so it must be idempotent
+        solverManager.addProblemFactChanges(tenantId, Collections.singletonList(
+                new AddTaskProblemFactChange(newTask)));
+        changeReleasedLatch.countDown();
+
+        assertTrue(solvingEndedLatch.await(30, TimeUnit.SECONDS));
+        TaskAssigningSolution solution = finalSolution.get();
+        assertEquals(24, solution.getTaskList().size());
+        assertEquals(7, solution.getEmployeeList().size());
+        assertTrue(solution.getTaskList().stream().anyMatch(task -> task.getId().equals(1000L)));
+        assertTrue(solution.getTaskList().stream().noneMatch(task -> task.getId().equals(removedTask.getId())));
+        assertTrue(solution.getTaskList().stream()
+                           .noneMatch(task -> task.getEmployee() != null
+                                   && task.getEmployee().getId().equals(removedEmployee.getId())));
+    }
+
+    @Test(timeout = 60_000L)
+    public void problemFactChangesOfAPausedProblemAreDoneWhenItResumes() throws InterruptedException {
+        TaskAssigningSolution problem =
+                new TaskAssigningGenerator(tenantId).createTaskAssigningSolution(24, 8);
+        AtomicReference<TaskAssigningSolution> finalSolution = new AtomicReference<>();
+        solverManager.solve(tenantId, problem,
+                taskAssigningSolution -> solutionChangedLatch.countDown(),
+                taskAssigningSolution -> {
+                    finalSolution.set(taskAssigningSolution);
+                    solvingEndedLatch.countDown();
+                });
+        solutionChangedLatch.await(30, TimeUnit.SECONDS);
+        solverManager.pauseSolver(tenantId);
+        while (solverManager.getSolverStatus(tenantId) != SolverStatus.PAUSED) {
+            Thread.sleep(10L);
+        }
+        Task removedTask = problem.getTaskList().get(0);
+        solverManager.addProblemFactChanges(tenantId, Collections.singletonList(
+                new RemoveTaskProblemFactChange(removedTask.getId())));
+
+        solverManager.resumeSolver(tenantId);
+        assertTrue(solvingEndedLatch.await(30, TimeUnit.SECONDS));
+        assertEquals(23, finalSolution.get().getTaskList().size());
+        try {
+            solverManager.addProblemFactChanges(tenantId, Collections.singletonList(
+                    new RemoveTaskProblemFactChange(removedTask.getId())));
+            fail("An ended problem can't be changed.");
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+    }
+
+    @Test(timeout = 60_000L)
+    public void polledBestSolutionsNeverChangeAfterwards() throws InterruptedException {
+        TaskAssigningSolution problem = new TaskAssigningGenerator(tenantId).createTaskAssigningSolution(24, 4);
+        solverManager.solve(tenantId, problem, null, solution -> solvingEndedLatch.countDown());
+        List<TaskAssigningSolution> polledSolutionList = new ArrayList<>();
+        List<Score<?>> polledScoreList = new ArrayList<>();
+        while (!solvingEndedLatch.await(10L, TimeUnit.MILLISECONDS)) {
+            TaskAssigningSolution polledSolution = solverManager.getBestSolution(tenantId);
+            polledSolutionList.add(polledSolution);
+            polledScoreList.add(polledSolution.getScore());
+        }
+        assertTrue(polledSolutionList.stream().distinct().count() > 1L);
+        for (int i = 0; i < polledSolutionList.size(); i++) {
+            assertEquals(polledScoreList.get(i), polledSolutionList.get(i).getScore());
+        }
+        assertEquals(solverManager.getBestScore(tenantId), solverManager.getBestSolution(tenantId).getScore());
+    }
+
+    @Test(timeout = 60_000L)
+    public void submittedProblemStreamsImprovingBestSolutionsAndCompletesWithTheFinalOne() throws Exception {
+        TaskAssigningSolution problem = new TaskAssigningGenerator(tenantId).createTaskAssigningSolution(24, 4);
+        SolverJob<TaskAssigningSolution> solverJob = solverManager.submit(tenantId, problem);
+        List<Score> streamedScoreList = new CopyOnWriteArrayList<>();
+        BestSolutionSubscription<TaskAssigningSolution> slowSubscription = solverJob.subscribe(1, solution -> {
+            streamedScoreList.add(solution.getScore());
+            try {
+                Thread.sleep(50L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        CompletableFuture<Score> finalScoreFuture = solverJob.getFinalBestSolution()
+                .thenApply(TaskAssigningSolution::getScore);
+
+        TaskAssigningSolution finalBestSolution = solverJob.getFinalBestSolution().get(30, TimeUnit.SECONDS);
+        assertEquals(solverManager.getBestScore(tenantId), finalBestSolution.getScore());
+        assertEquals(finalBestSolution.getScore(), finalScoreFuture.get(30, TimeUnit.SECONDS));
+        assertEquals(SolverStatus.STOPPED, solverJob.getSolverStatus());
+        assertFalse(streamedScoreList.isEmpty());
+        assertTrue(slowSubscription.getBufferedCount() <= 1);
+        for (int i = 1; i < streamedScoreList.size(); i++) {
+            assertTrue(streamedScoreList.get(i).compareTo(streamedScoreList.get(i - 1)) > 0);
+        }
+    }
+
+    @Test(timeout = 60_000L)
+    public void bigProblemsAreSolvedWithPartitionedSearch() throws Exception {
+        solverManager.shutdown();
+        solverManager = SolverManager.createFromXmlResource(SOLVER_CONFIG, null, null,
+                new SolverManagerConfig().withParallelSolverCount(1).withPartitionedSearchProblemScale(40L)
+                        .withSolutionPartitionerClass(SmallPartsPartitioner.class));
+        TaskAssigningSolution problem = new TaskAssigningGenerator(tenantId).createTaskAssigningSolution(48, 6);
+        SolverJob<TaskAssigningSolution> solverJob = solverManager.submit(tenantId, problem,
+                new SolverTaskConfig().withProblemScale(problem.getTaskList().size())
+                        .withTerminationConfig(new TerminationConfig().withMillisecondsSpentLimit(3000L)));
+        TaskAssigningSolution finalBestSolution = solverJob.getFinalBestSolution().get(30, TimeUnit.SECONDS);
+        assertTrue(finalBestSolution.getScore().isSolutionInitialized());
+        assertEquals(48, finalBestSolution.getTaskList().size());
+        for (Task task : finalBestSolution.getTaskList()) {
+            assertTrue(finalBestSolution.getEmployeeList().contains(task.getEmployee()));
+        }
+    }
+
+    public static class SmallPartsPartitioner extends TaskAssigningSolutionPartitioner {
+
+        public SmallPartsPartitioner() {
+            setMinimumTaskCountPerPart(10);
+            setPartCount(3);
+        }
+    }
+
+    @Test(timeout = 60_000L)
+    public void boundSolverManagerRecordsSolverAndEventMetrics() throws Exception {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        solverManager.bindTo(meterRegistry);
+        assertEquals(0.0, meterRegistry.get("solver.queue.size").gauge().value(), 0.0);
+        TaskAssigningSolution problem = new TaskAssigningGenerator(tenantId).createTaskAssigningSolution(12, 3);
+        CountDownLatch scoreCalculatedLatch = new CountDownLatch(1);
+        solverManager.solve(tenantId, problem, new SolverTaskConfig()
+                        .withTerminationConfig(new TerminationConfig().withBestScoreFeasible(true)),
+                solution -> {
+                    if (meterRegistry.get("solver.score.calculations").tag("problemId", String.valueOf(tenantId))
+                            .functionCounter().count() > 0.0) {
+                        scoreCalculatedLatch.countDown();
+                    }
+                },
+                solution -> solvingEndedLatch.countDown(), null);
+        scoreCalculatedLatch.await();
+        solvingEndedLatch.await();
+
+        assertTrue(meterRegistry.get("solver.best.score.improvements").counter().count() > 0.0);
+        assertEquals(1L, meterRegistry.get("solver.best.score.first.initialized").timer().count());
+        assertTrue(meterRegistry.get("solver.events.dispatch.lag").timer().count() > 0L);
+        // Per problem meters don't outlive the problem
+        assertTrue(meterRegistry.find("solver.score.calculations").meters().isEmpty());
+    }
+
+    @Test(timeout = 60_000L)
+    public void finishedProblemsAreEvictedAndReadBackFromTheArchive() throws InterruptedException {
+        solverManager.shutdown();
+        solverManager = SolverManager.createFromXmlResource(SOLVER_CONFIG, null, null,
+                new SolverManagerConfig().withParallelSolverCount(2).withFinishedProblemCacheSize(1));
+        Map<Object, FinishedSolverTask<TaskAssigningSolution>> archiveMap = new ConcurrentHashMap<>();
+        solverManager.setSolverTaskArchive(new SolverTaskArchive<TaskAssigningSolution>() {
+            @Override
+            public void archive(FinishedSolverTask<TaskAssigningSolution> finishedSolverTask) {
+                archiveMap.put(finishedSolverTask.getProblemId(), finishedSolverTask);
+            }
+
+            @Override
+            public FinishedSolverTask<TaskAssigningSolution> load(Object problemId) {
+                return archiveMap.get(problemId);
+            }
+        });
+        CountDownLatch bothSolvingEndedLatch = new CountDownLatch(2);
+        solverManager.solve(0L, new TaskAssigningGenerator(0L).createTaskAssigningSolution(4, 2),
+                null, solution -> bothSolvingEndedLatch.countDown());
+        solverManager.solve(1L, new TaskAssigningGenerator(1L).createTaskAssigningSolution(4, 2),
+                null, solution -> bothSolvingEndedLatch.countDown());
+        solverManager.stopSolver(0L);
+        assertTrue(bothSolvingEndedLatch.await(30, TimeUnit.SECONDS));
+        assertEquals(2, archiveMap.size());
+        assertEquals(1, solverManager.getFinishedProblemCacheSize());
+
+        // Problem 0 ended first, so it was evicted when problem 1 ended
+        assertFalse(solverManager.isProblemSubmitted(0L));
+        long missCount = solverManager.getFinishedProblemCacheMissCount();
+        assertEquals(SolverStatus.TERMINATED_EARLY, solverManager.getSolverStatus(0L));
+        assertEquals(missCount + 1L, solverManager.getFinishedProblemCacheMissCount());
+        // Read through, so now problem 1 is evicted
+        long hitCount = solverManager.getFinishedProblemCacheHitCount();
+        assertEquals(Long.valueOf(0L), solverManager.getBestSolution(0L).getTenantId());
+        assertEquals(hitCount + 1L, solverManager.getFinishedProblemCacheHitCount());
+        assertEquals(SolverStatus.STOPPED, solverManager.getSolverStatus(1L));
+        assertTrue(solverManager.getBestScore(1L).isSolutionInitialized());
+        assertNull(solverManager.getSolverStatus(2L));
+
+        // An evicted problem can be submitted again
+        archiveMap.clear();
+        solverManager.solve(0L, new TaskAssigningGenerator(0L).createTaskAssigningSolution(4, 2), null, null);
+        assertTrue(solverManager.isProblemSubmitted(0L));
+        solverManager.stopSolver(0L);
+    }
+
+    @Test(timeout = 60_000L)
+    public void resumedProblemOnlySolvesTheRestOfItsTimeSpentLimit() throws InterruptedException {
+        TerminationConfig terminationConfig = new TerminationConfig().withMillisecondsSpentLimit(60_000L);
+        solverManager.solve(0L, new TaskAssigningGenerator(0L).createTaskAssigningSolution(4, 2),
+                new SolverTaskConfig().withTerminationConfig(terminationConfig).withPreviousTimeMillisSpent(59_500L),
+                null, solution -> solvingEndedLatch.countDown(), null);
+        // Nothing left, so it never starts solving
+        CountDownLatch exhaustedSolvingEndedLatch = new CountDownLatch(1);
+        solverManager.solve(1L, new TaskAssigningGenerator(1L).createTaskAssigningSolution(4, 2),
+                new SolverTaskConfig().withTerminationConfig(terminationConfig).withPreviousTimeMillisSpent(60_000L),
+                null, solution -> exhaustedSolvingEndedLatch.countDown(), null);
+
+        assertTrue(solvingEndedLatch.await(30, TimeUnit.SECONDS));
+        assertEquals(SolverStatus.STOPPED, solverManager.getSolverStatus(0L));
+        assertTrue(solverManager.getBestScore(0L).isSolutionInitialized());
+        assertTrue(exhaustedSolvingEndedLatch.await(30, TimeUnit.SECONDS));
+        assertEquals(SolverStatus.STOPPED, solverManager.getSolverStatus(1L));
+        assertNull(solverManager.getBestScore(1L));
+    }
+
     @Test
     public void shutdownShouldStopAllSolvers() {
         int[] problemIds = new int[Runtime.getRuntime().availableProcessors() * 3];
@@ -142,6 +666,95 @@ public class DefaultSolverManagerTest {
                 .forEach(problemId -> assertEquals(SolverStatus.TERMINATED_EARLY, solverManager.getSolverStatus(problemId)));
     }
 
+    @Test(timeout = 60_000L)
+    public void shutdownFlushesFinalBestSolutionsAndCheckpointsInterruptedProblems() throws InterruptedException {
+        solverManager.shutdown();
+        solverManager = SolverManager.createFromXmlResource(SOLVER_CONFIG, null, null,
+                new SolverManagerConfig().withParallelSolverCount(1).withShutdownTimeoutMillis(30_000L));
+        List<FinishedSolverTask<TaskAssigningSolution>> archivedList = new CopyOnWriteArrayList<>();
+        List<FinishedSolverTask<TaskAssigningSolution>> checkpointedList = new CopyOnWriteArrayList<>();
+        solverManager.setSolverTaskArchive(new SolverTaskArchive<TaskAssigningSolution>() {
+            @Override
+            public void archive(FinishedSolverTask<TaskAssigningSolution> finishedSolverTask) {
+                archivedList.add(finishedSolverTask);
+            }
+
+            @Override
+            public void checkpoint(FinishedSolverTask<TaskAssigningSolution> interruptedSolverTask) {
+                checkpointedList.add(interruptedSolverTask);
+            }
+
+            @Override
+            public FinishedSolverTask<TaskAssigningSolution> load(Object problemId) {
+                return null;
+            }
+        });
+        List<TaskAssigningSolution> endedSolutionList = new CopyOnWriteArrayList<>();
+        // Still solving when the shutdown starts
+        solverManager.solve(0L, new TaskAssigningGenerator(0L).createTaskAssigningSolution(4, 2),
+                new SolverTaskConfig()
+                        .withTerminationConfig(new TerminationConfig().withMillisecondsSpentLimit(60_000L)),
+                taskAssigningSolution -> {
+                    if (taskAssigningSolution.getScore().isSolutionInitialized()) {
+                        solutionChangedLatch.countDown();
+                    }
+                },
+                endedSolutionList::add, null);
+        // Queued behind problem 0, because there's only 1 solver thread
+        solverManager.solve(1L, new TaskAssigningGenerator(1L).createTaskAssigningSolution(4, 2),
+                null, endedSolutionList::add);
+        assertTrue(solutionChangedLatch.await(30, TimeUnit.SECONDS));
+        solverManager.shutdown();
+
+        // The final best solution of the solving problem reached its handler before the shutdown returned
+        assertEquals(1, endedSolutionList.size());
+        assertEquals(Long.valueOf(0L), endedSolutionList.get(0).getTenantId());
+        assertTrue(endedSolutionList.get(0).getScore().isSolutionInitialized());
+        // Neither problem finished, so both are checkpointed instead of archived
+        assertTrue(archivedList.isEmpty());
+        assertEquals(2, checkpointedList.size());
+        Map<Object, SolverStatus> checkpointedStatusMap = new ConcurrentHashMap<>();
+        checkpointedList.forEach(interruptedSolverTask -> checkpointedStatusMap.put(
+                interruptedSolverTask.getProblemId(), interruptedSolverTask.getSolverStatus()));
+        assertEquals(SolverStatus.SOLVING, checkpointedStatusMap.get(0L));
+        assertEquals(SolverStatus.QUEUED, checkpointedStatusMap.get(1L));
+        try {
+            solverManager.solve(2L, new TaskAssigningGenerator(2L).createTaskAssigningSolution(1, 1), null, null);
+            fail("A shut down solver manager should reject new problems.");
+        } catch (RejectedExecutionException e) {
+            assertTrue(e.getMessage().contains("shut down"));
+        }
+    }
+
+    @Test(timeout = 60_000L)
+    public void immediateShutdownStillCompletesSolverJobsAndEndsSolving() throws Exception {
+        solverManager.shutdown();
+        solverManager = SolverManager.createFromXmlResource(SOLVER_CONFIG, null, null,
+                new SolverManagerConfig().withParallelSolverCount(2).withShutdownTimeoutMillis(0L));
+        SolverTaskConfig longSolverTaskConfig = new SolverTaskConfig()
+                .withTerminationConfig(new TerminationConfig().withMillisecondsSpentLimit(60_000L));
+        SolverJob<TaskAssigningSolution> solverJob = solverManager.submit(0L,
+                new TaskAssigningGenerator(0L).createTaskAssigningSolution(4, 2), longSolverTaskConfig);
+        solverManager.solve(1L, new TaskAssigningGenerator(1L).createTaskAssigningSolution(4, 2),
+                longSolverTaskConfig,
+                taskAssigningSolution -> {
+                    if (taskAssigningSolution.getScore().isSolutionInitialized()) {
+                        solutionChangedLatch.countDown();
+                    }
+                },
+                taskAssigningSolution -> solvingEndedLatch.countDown(), null);
+        assertTrue(solutionChangedLatch.await(30, TimeUnit.SECONDS));
+        while (solverJob.getSolverStatus() != SolverStatus.SOLVING) {
+            Thread.sleep(10L);
+        }
+        // No shutdown timeout, so the event lanes reject everything once the solvers end
+        solverManager.shutdown();
+
+        solverJob.getFinalBestSolution().handle((solution, throwable) -> solution).get(30, TimeUnit.SECONDS);
+        assertTrue(solverJob.getFinalBestSolution().isDone());
+        assertTrue(solvingEndedLatch.await(30, TimeUnit.SECONDS));
+    }
+
     // ****************************
     // Exception handling tests
     // ****************************
@@ -171,6 +784,41 @@ public class DefaultSolverManagerTest {
         assertEquals(IllegalArgumentException.class, solverException.get().getClass());
     }
 
+    @Test(timeout = 60_000L)
+    public void shouldRejectProblemsWhenSolverQueueIsFull() throws InterruptedException {
+        solverManager.shutdown();
+        CountDownLatch solverThreadStartLatch = new CountDownLatch(1);
+        // Keeps the only solver thread busy, so the second problem stays in the queue
+        ThreadFactory blockingThreadFactory = runnable -> new Thread(() -> {
+            try {
+                solverThreadStartLatch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            runnable.run();
+        });
+        solverManager = SolverManager.createFromXmlResource(SOLVER_CONFIG, null, blockingThreadFactory,
+                new SolverManagerConfig().withParallelSolverCount(1).withQueueCapacity(1));
+        for (long problemId = 0L; problemId < 2L; problemId++) {
+            solverManager.solve(problemId, new TaskAssigningGenerator(problemId).createTaskAssigningSolution(1, 1),
+                    null, solution -> solvingEndedLatch.countDown());
+        }
+        assertEquals(SolverStatus.QUEUED, solverManager.getSolverStatus(1L));
+        assertEquals(1, solverManager.getQueueSize());
+        assertEquals(0, solverManager.getQueuePosition(1L).getPosition());
+        try {
+            solverManager.solve(2L, new TaskAssigningGenerator(2L).createTaskAssigningSolution(1, 1), null, null);
+            fail("The third problem should not fit in the solver queue.");
+        } catch (RejectedExecutionException e) {
+            assertEquals("Problem (2) was rejected because the solver queue is full (1 queued problems).",
+                    e.getMessage());
+        }
+        assertFalse(solverManager.isProblemSubmitted(2L));
+        solverThreadStartLatch.countDown();
+        solvingEndedLatch.await(60, TimeUnit.SECONDS);
+    }
+
     @Test
     public void shouldNotStopASolverThatHasNotBeenSubmitted() {
         try {
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2019 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.springboottaskassigning.solver;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class FinishedSolverTaskCacheTest {
+
+    @Test
+    public void archivedMeanwhileWinsOverTheOlderArchiveRow() {
+        FinishedSolverTaskCache<String> cache = new FinishedSolverTaskCache<>(10, 0L);
+        FinishedSolverTask<String> olderFinishedSolverTask =
+                new FinishedSolverTask<>(0L, "older", null, SolverStatus.TERMINATED_EARLY);
+        FinishedSolverTask<String> newerFinishedSolverTask =
+                new FinishedSolverTask<>(0L, "newer", null, SolverStatus.STOPPED);
+        SolverTaskArchive<String> archive = new SolverTaskArchive<String>() {
+            @Override
+            public void archive(FinishedSolverTask<String> finishedSolverTask) {
+            }
+
+            @Override
+            public FinishedSolverTask<String> load(Object problemId) {
+                // The problem is archived again while the old row is read
+                cache.put(newerFinishedSolverTask);
+                return olderFinishedSolverTask;
+            }
+        };
+
+        assertSame(newerFinishedSolverTask, cache.get(0L, archive));
+        assertSame(newerFinishedSolverTask, cache.get(0L, null));
+    }
+
+    @Test
+    public void absentProblemIsOnlyLoadedOnceUntilItIsPut() {
+        FinishedSolverTaskCache<String> cache = new FinishedSolverTaskCache<>(10, 0L);
+        AtomicInteger loadCount = new AtomicInteger(0);
+        SolverTaskArchive<String> archive = new SolverTaskArchive<String>() {
+            @Override
+            public void archive(FinishedSolverTask<String> finishedSolverTask) {
+            }
+
+            @Override
+            public FinishedSolverTask<String> load(Object problemId) {
+                loadCount.incrementAndGet();
+                return null;
+            }
+        };
+
+        assertNull(cache.get(0L, archive));
+        assertNull(cache.get(0L, archive));
+        assertEquals(1, loadCount.get());
+        assertEquals(1L, cache.getMissCount());
+        assertEquals(1L, cache.getHitCount());
+        // Not a finished problem
+        assertEquals(0, cache.size());
+
+        FinishedSolverTask<String> finishedSolverTask = new FinishedSolverTask<>(0L, "solution", null,
+                SolverStatus.STOPPED);
+        cache.put(finishedSolverTask);
+        assertSame(finishedSolverTask, cache.get(0L, archive));
+        assertEquals(1, loadCount.get());
+    }
+}